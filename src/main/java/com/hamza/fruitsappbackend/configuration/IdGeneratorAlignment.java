@@ -0,0 +1,70 @@
+package com.hamza.fruitsappbackend.configuration;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// Orders and order items used AUTO_INCREMENT ids before moving to the pooled id_generators table.
+// On startup each generator row is raised past the highest id already in its table (plus one
+// allocation block), so the first blocks handed out can never collide with existing rows.
+// It only ever moves a row forward, so several instances starting together are harmless: one that
+// loses the race to create a row raises the winner's row instead.
+@Component
+public class IdGeneratorAlignment {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorAlignment.class);
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    // generator row (pkColumnValue) -> table whose ids it allocates
+    private static final Map<String, String> GENERATORS = Map.of(
+            "orders", "orders",
+            "order_items", "order_items"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The EntityManagerFactory is only injected so this runs after Hibernate has created the tables
+    @Autowired
+    public IdGeneratorAlignment(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        GENERATORS.forEach((generator, table) -> {
+            long floor = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class)
+                    + 1 + ALLOCATION_SIZE;
+            List<Long> current = jdbcTemplate.queryForList(
+                    "SELECT next_val FROM id_generators WHERE sequence_name = ?", Long.class, generator);
+            if (current.isEmpty() && insert(generator, floor)) {
+                logger.info("Id generator '{}' initialised at {}", generator, floor);
+            } else if (current.isEmpty() || current.get(0) < floor) {
+                int raised = jdbcTemplate.update(
+                        "UPDATE id_generators SET next_val = ? WHERE sequence_name = ? AND next_val < ?",
+                        floor, generator, floor);
+                if (raised > 0) {
+                    logger.info("Id generator '{}' raised to {}", generator, floor);
+                }
+            }
+        });
+    }
+
+    private boolean insert(String generator, long floor) {
+        try {
+            jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)", generator, floor);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // Another instance (or Hibernate itself) created the row since we looked
+            return false;
+        }
+    }
+}
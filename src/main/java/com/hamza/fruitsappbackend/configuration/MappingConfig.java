@@ -0,0 +1,16 @@
+package com.hamza.fruitsappbackend.configuration;
+
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.MapperConfig;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+// Shared settings for the generated mappers. Unmapped target properties fail the build, so every
+// DTO field and every entity association has to be mapped or ignored explicitly.
+@MapperConfig(
+        componentModel = MappingConstants.ComponentModel.SPRING,
+        injectionStrategy = InjectionStrategy.CONSTRUCTOR,
+        unmappedTargetPolicy = ReportingPolicy.ERROR
+)
+public interface MappingConfig {
+}
@@ -2,7 +2,7 @@ package com.hamza.fruitsappbackend.configuration;
 
 import com.hamza.fruitsappbackend.security.JwtAuthenticationEntryPoint;
 import com.hamza.fruitsappbackend.security.JwtAuthenticationFilter;
-import com.hamza.fruitsappbackend.security.JwtTokenProvider;
+import com.hamza.fruitsappbackend.security.PrincipalResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,7 +10,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -24,15 +23,15 @@ import org.springframework.web.filter.CorsFilter;
 public class SecurityConfiguration {
 
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
-    private final JwtTokenProvider jwtTokenProvider;
+    private final PrincipalResolver principalResolver;
 
-    public SecurityConfiguration(JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint, JwtTokenProvider jwtTokenProvider) {
+    public SecurityConfiguration(JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint, PrincipalResolver principalResolver) {
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
-        this.jwtTokenProvider = jwtTokenProvider;
+        this.principalResolver = principalResolver;
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, UserDetailsService userDetailsService) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 .csrf().disable() // Disable CSRF as we're using JWT
                 .cors() // Enable CORS
@@ -46,7 +45,7 @@ public class SecurityConfiguration {
                         .requestMatchers("/api/v1/auth/**", "/api/v1/products/**").permitAll() // Allow authentication requests without JWT
                         .requestMatchers("/api/v1/**").permitAll() // Allow all OPTIONS requests
                         .anyRequest().authenticated()) // All other requests require authentication
-                .addFilterBefore(jwtAuthenticationFilter(userDetailsService), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -62,8 +61,8 @@ public class SecurityConfiguration {
     }
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(UserDetailsService userDetailsService) {
-        return new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService);
+    public JwtAuthenticationFilter jwtAuthenticationFilter() {
+        return new JwtAuthenticationFilter(principalResolver);
     }
 
     // Add CORS filter if not using Spring Boot's @CrossOrigin annotation
@@ -0,0 +1,8 @@
+package com.hamza.fruitsappbackend.constant;
+
+public enum MailStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,69 @@
+package com.hamza.fruitsappbackend.instrumentation;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+// Sees every statement prepared or run on the application's connections, whether Hibernate or
+// JdbcTemplate sent it. A JDBC batch is prepared once and counts once.
+class QueryCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> PREPARES = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> EXECUTIONS =
+            Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "addBatch");
+
+    QueryCountingDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(Connection.class, super.getConnection(username, password));
+    }
+
+    private static <T> T counting(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, (proxy, method, args) -> invoke(proxy, target, method, args)));
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        // Prepared SQL is counted on the connection; plain statements only know theirs when run
+        boolean sqlArgument = args != null && args.length > 0 && args[0] instanceof String;
+        if (sqlArgument && (target instanceof Connection ? PREPARES : EXECUTIONS).contains(method.getName())) {
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) {
+                stats.statement((String) args[0]);
+            }
+        }
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        if (target instanceof Connection && method.getName().equals("createStatement")) {
+            return counting(Statement.class, (Statement) result);
+        }
+        return result;
+    }
+}
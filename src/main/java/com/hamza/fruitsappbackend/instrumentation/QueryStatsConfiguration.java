@@ -0,0 +1,42 @@
+package com.hamza.fruitsappbackend.instrumentation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class QueryStatsConfiguration implements WebMvcConfigurer {
+
+    private final QueryStatsInterceptor queryStatsInterceptor;
+
+    @Autowired
+    public QueryStatsConfiguration(QueryStatsInterceptor queryStatsInterceptor) {
+        this.queryStatsInterceptor = queryStatsInterceptor;
+    }
+
+    // Static so it is registered before the DataSource is created
+    @Bean
+    public static BeanPostProcessor queryCountingDataSource(
+            @Value("${app.query-stats.enabled:true}") boolean enabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+                    return new QueryCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryStatsInterceptor);
+    }
+}
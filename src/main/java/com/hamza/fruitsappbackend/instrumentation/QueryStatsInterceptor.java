@@ -0,0 +1,112 @@
+package com.hamza.fruitsappbackend.instrumentation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Measures each controller call from the handler to the written response (lazy loads while
+// serialising included), tagged with the controller method. A statement shape repeated more
+// than app.query-stats.repeat-threshold times in one request, typically an N+1, is logged with
+// the code that issued it. Meters: http.handler.latency, http.handler.statements,
+// http.handler.entity.loads, http.handler.collection.fetches and http.handler.repeated.statements.
+@Component
+public class QueryStatsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryStatsInterceptor.class);
+
+    private static final String START_ATTRIBUTE = QueryStatsInterceptor.class.getName() + ".start";
+    private static final int MAX_LOGGED_SQL_LENGTH = 300;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int repeatThreshold;
+    private final Map<String, HandlerMeters> meters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public QueryStatsInterceptor(MeterRegistry meterRegistry,
+                                 @Value("${app.query-stats.enabled:true}") boolean enabled,
+                                 @Value("${app.query-stats.repeat-threshold:10}") int repeatThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (enabled && handler instanceof HandlerMethod) {
+            RequestQueryStats.start(repeatThreshold);
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestQueryStats stats = RequestQueryStats.finish();
+        if (stats == null || !(handler instanceof HandlerMethod handlerMethod)
+                || !(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        String name = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        HandlerMeters handlerMeters = meters.computeIfAbsent(name, this::register);
+        handlerMeters.latency().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        handlerMeters.statements().record(stats.statements());
+        handlerMeters.entityLoads().record(stats.entityLoads());
+        handlerMeters.collectionFetches().record(stats.collectionFetches());
+
+        stats.repeated().forEach((sql, shape) -> {
+            handlerMeters.repeated().increment();
+            logger.warn("{} issued the same statement {} times in one request (at {}): {}", name, shape.count(),
+                    shape.callSite(), sql.length() > MAX_LOGGED_SQL_LENGTH ? sql.substring(0, MAX_LOGGED_SQL_LENGTH) + "..." : sql);
+        });
+    }
+
+    // The rest of an async request runs on another thread and is measured on its own dispatch
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestQueryStats.finish();
+        request.removeAttribute(START_ATTRIBUTE);
+    }
+
+    private HandlerMeters register(String handler) {
+        return new HandlerMeters(
+                Timer.builder("http.handler.latency")
+                        .description("Time from the controller call to the completed response")
+                        .tag("handler", handler)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                summary("http.handler.statements", "SQL statements Hibernate prepared per request", handler),
+                summary("http.handler.entity.loads", "Entities loaded per request", handler),
+                summary("http.handler.collection.fetches", "Lazy collections initialised per request", handler),
+                Counter.builder("http.handler.repeated.statements")
+                        .description("Statement shapes repeated past the threshold within one request")
+                        .tag("handler", handler)
+                        .register(meterRegistry));
+    }
+
+    private DistributionSummary summary(String name, String description, String handler) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private record HandlerMeters(Timer latency, DistributionSummary statements, DistributionSummary entityLoads,
+                                 DistributionSummary collectionFetches, Counter repeated) {
+    }
+}
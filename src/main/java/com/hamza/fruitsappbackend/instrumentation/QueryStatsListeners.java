@@ -0,0 +1,42 @@
+package com.hamza.fruitsappbackend.instrumentation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Counts entity loads and lazy collection initialisations per request. Hibernate's Statistics keep
+// the same counts for the whole session factory, so concurrent requests could not be told apart.
+@Component
+public class QueryStatsListeners {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public QueryStatsListeners(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> {
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) {
+                stats.entityLoaded();
+            }
+        });
+        registry.appendListeners(EventType.INIT_COLLECTION, (InitializeCollectionEventListener) event -> {
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) {
+                stats.collectionFetched();
+            }
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.hamza.fruitsappbackend.instrumentation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+// SQL activity of the request being handled on the current thread. QueryStatsInterceptor starts
+// and finishes it; the DataSource wrapper and Hibernate listeners record into it and do nothing on
+// threads without one (schedulers, the mail outbox, the cart coalescer).
+final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private static final String APPLICATION_PACKAGE = "com.hamza.fruitsappbackend.";
+    private static final String OWN_PACKAGE = RequestQueryStats.class.getPackageName() + ".";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    // IN lists of batch fetches grow with the batch; "in (?, ?, ?)" and "in (?)" are one shape
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin \\(\\?(?: ?, ?\\?)*\\)");
+
+    private final int repeatThreshold;
+    private final Map<String, Shape> shapes = new HashMap<>();
+    private int statements;
+    private int entityLoads;
+    private int collectionFetches;
+
+    private RequestQueryStats(int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    static void start(int repeatThreshold) {
+        CURRENT.set(new RequestQueryStats(repeatThreshold));
+    }
+
+    static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    static RequestQueryStats finish() {
+        RequestQueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    void statement(String sql) {
+        statements++;
+        Shape shape = shapes.computeIfAbsent(shapeOf(sql), key -> new Shape());
+        // The call site of the first statement past the threshold is the loop issuing them
+        if (++shape.count == repeatThreshold + 1) {
+            shape.callSite = callSite();
+        }
+    }
+
+    void entityLoaded() {
+        entityLoads++;
+    }
+
+    void collectionFetched() {
+        collectionFetches++;
+    }
+
+    int statements() {
+        return statements;
+    }
+
+    int entityLoads() {
+        return entityLoads;
+    }
+
+    int collectionFetches() {
+        return collectionFetches;
+    }
+
+    // Statement shapes issued more than repeatThreshold times
+    Map<String, Shape> repeated() {
+        return shapes.entrySet().stream()
+                .filter(entry -> entry.getValue().count > repeatThreshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private static String shapeOf(String sql) {
+        String shape = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return IN_LIST.matcher(shape).replaceAll("in (?)");
+    }
+
+    // The innermost application frames, skipping Spring proxies and this package
+    private static String callSite() {
+        String site = StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(APPLICATION_PACKAGE)
+                        && !frame.getClassName().startsWith(OWN_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .limit(3)
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining(" <- ")));
+        return site.isEmpty() ? "unknown" : site;
+    }
+
+    static final class Shape {
+        private int count;
+        private String callSite;
+
+        int count() {
+            return count;
+        }
+
+        String callSite() {
+            return callSite;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.hamza.fruitsappbackend.modules.address.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.address.dto.AddressDTO;
+import com.hamza.fruitsappbackend.modules.address.entity.Address;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MappingConfig.class)
+public interface AddressMapper {
+
+    AddressDTO toDto(Address address);
+
+    @Mapping(target = "user", ignore = true)
+    Address toEntity(AddressDTO addressDTO);
+}
@@ -5,6 +5,7 @@ import com.hamza.fruitsappbackend.modules.address.dto.AddressDTO;
 import com.hamza.fruitsappbackend.modules.address.entity.Address;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
 import com.hamza.fruitsappbackend.modules.address.exception.AddressNotFoundException;
+import com.hamza.fruitsappbackend.modules.address.mapper.AddressMapper;
 import com.hamza.fruitsappbackend.modules.user.exception.UserNotFoundException;
 import com.hamza.fruitsappbackend.modules.address.repository.AddressRepository;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
@@ -12,7 +13,6 @@ import com.hamza.fruitsappbackend.modules.address.service.AddressService;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
 import com.hamza.fruitsappbackend.security.JwtTokenProvider;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.List;
@@ -25,15 +25,15 @@ public class AddressServiceImpl implements AddressService {
 
     private final AddressRepository addressRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final AddressMapper addressMapper;
     private final AuthorizationUtils authorizationUtils;
 
     @Autowired
     public AddressServiceImpl(AddressRepository addressRepository, UserRepository userRepository,
-                              ModelMapper modelMapper, AuthorizationUtils authorizationUtils, JwtTokenProvider jwtTokenProvider) {
+                              AddressMapper addressMapper, AuthorizationUtils authorizationUtils, JwtTokenProvider jwtTokenProvider) {
         this.addressRepository = addressRepository;
         this.userRepository = userRepository;
-        this.modelMapper = modelMapper;
+        this.addressMapper = addressMapper;
         this.authorizationUtils = authorizationUtils;
     }
 
@@ -166,7 +166,7 @@ public class AddressServiceImpl implements AddressService {
     }
 
     private Long getUserIdFromToken(String token) {
-        return authorizationUtils.getUserFromToken(token).getId();
+        return authorizationUtils.getUserIdFromToken(token);
     }
 
     private Address findAddressById(Long id) {
@@ -187,11 +187,11 @@ public class AddressServiceImpl implements AddressService {
     }
 
     private AddressDTO convertToDto(Address address) {
-        return modelMapper.map(address, AddressDTO.class);
+        return addressMapper.toDto(address);
     }
 
     private Address convertToEntity(AddressDTO addressDTO) {
-        return modelMapper.map(addressDTO, Address.class);
+        return addressMapper.toEntity(addressDTO);
     }
 
     private Address prepareAddressForSaving(AddressDTO addressDTO, Long userId) {
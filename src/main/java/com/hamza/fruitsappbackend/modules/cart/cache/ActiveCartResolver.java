@@ -0,0 +1,87 @@
+package com.hamza.fruitsappbackend.modules.cart.cache;
+
+import com.hamza.fruitsappbackend.constant.CartStatus;
+import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
+import com.hamza.fruitsappbackend.modules.cart.exception.CartNotFoundException;
+import com.hamza.fruitsappbackend.modules.cart.repository.CartRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Resolves a user's active cart through a cached userId -> cartId pointer ("activeCartIds"), so
+// the cart is loaded by primary key instead of filtering carts by user and status. The pointer is
+// only a hint: a cart found through it must still be ACTIVE and belong to the user, otherwise it
+// is dropped and the lookup falls back to the (user_id, status) index. Cart services call
+// activated/deactivated whenever a cart changes status.
+@Component
+public class ActiveCartResolver {
+
+    public static final String CACHE_NAME = "activeCartIds";
+
+    private final CartRepository cartRepository;
+    private final Cache activeCartIds;
+
+    @Autowired
+    public ActiveCartResolver(CartRepository cartRepository, CacheManager cacheManager) {
+        this.cartRepository = cartRepository;
+        this.activeCartIds = cacheManager.getCache(CACHE_NAME);
+    }
+
+    public Optional<Cart> find(Long userId) {
+        return resolve(userId, cartRepository::findById, false);
+    }
+
+    // Cart with its items and their products loaded in the same query, for callers that walk the items
+    public Optional<Cart> findWithItems(Long userId) {
+        return resolve(userId, cartRepository::findWithItemsById, true);
+    }
+
+    public Cart get(Long userId) {
+        return find(userId).orElseThrow(() -> new CartNotFoundException("userId", userId.toString()));
+    }
+
+    public Cart getWithItems(Long userId) {
+        return findWithItems(userId).orElseThrow(() -> new CartNotFoundException("userId", userId.toString()));
+    }
+
+    public void activated(Cart cart) {
+        activeCartIds.put(cart.getUser().getId(), cart.getId());
+    }
+
+    public void deactivated(Long userId) {
+        activeCartIds.evict(userId);
+    }
+
+    private Optional<Cart> resolve(Long userId, Function<Long, Optional<Cart>> loadById, boolean withItems) {
+        Long cartId = activeCartIds.get(userId, Long.class);
+        if (cartId != null) {
+            Optional<Cart> cart = loadById.apply(cartId).filter(found -> isActiveCartOf(found, userId));
+            if (cart.isPresent()) {
+                return cart;
+            }
+            activeCartIds.evict(userId);
+        }
+
+        List<Cart> activeCarts = withItems
+                ? cartRepository.findAllWithItemsByUserIdAndStatus(userId, CartStatus.ACTIVE)
+                : cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE);
+        if (activeCarts.size() > 1) {
+            throw new IllegalStateException("Multiple active carts found for user. Data inconsistency detected.");
+        }
+        if (activeCarts.isEmpty()) {
+            return Optional.empty();
+        }
+        Cart cart = activeCarts.get(0);
+        activeCartIds.put(userId, cart.getId());
+        return Optional.of(cart);
+    }
+
+    private static boolean isActiveCartOf(Cart cart, Long userId) {
+        return cart.getStatus() == CartStatus.ACTIVE && cart.getUser().getId().equals(userId);
+    }
+}
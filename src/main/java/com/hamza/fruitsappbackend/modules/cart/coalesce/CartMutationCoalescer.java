@@ -0,0 +1,190 @@
+package com.hamza.fruitsappbackend.modules.cart.coalesce;
+
+import com.hamza.fruitsappbackend.exception.global.FruitsApiException;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartItemDTO;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartItemResponseDto;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartMutationDTO;
+import com.hamza.fruitsappbackend.modules.cart.service.CartItemService;
+import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Merges rapid quantity taps of one user into a single cart transaction. The first tap opens a
+// window of app.cart.coalesce-window-ms; every tap arriving before it closes joins the same burst,
+// and the burst is applied with CartItemService.applyCartMutations, one call per token so every tap
+// runs under the credentials it arrived with. Like the single-tap endpoints, taps only change items
+// already in the cart. Each request thread waits (up to
+// app.cart.coalesce-timeout-ms) for its burst and answers with the item as it is after the whole
+// burst. If the merged burst fails (e.g. it would take a quantity below 1) its taps are applied
+// again one by one, so only the taps that fail on their own get the error.
+// A window of 0 disables coalescing and every tap is its own transaction, as before.
+@Component
+public class CartMutationCoalescer {
+
+    private final CartItemService cartItemService;
+    private final AuthorizationUtils authorizationUtils;
+    private final long windowMillis;
+    private final long timeoutMillis;
+    private final DistributionSummary burstSize;
+    private final Map<Long, Burst> bursts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public CartMutationCoalescer(CartItemService cartItemService, AuthorizationUtils authorizationUtils,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.cart.coalesce-window-ms:0}") long windowMillis,
+                                 @Value("${app.cart.coalesce-timeout-ms:5000}") long timeoutMillis,
+                                 @Value("${app.cart.coalesce-threads:2}") int threads) {
+        this.cartItemService = cartItemService;
+        this.authorizationUtils = authorizationUtils;
+        this.windowMillis = windowMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.burstSize = DistributionSummary.builder("cart.mutations.burst.size")
+                .description("Quantity taps applied per cart transaction")
+                .register(meterRegistry);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = windowMillis > 0 ? Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cart-coalescer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public CartItemDTO increase(Long productId, String token) {
+        if (scheduler == null) {
+            return cartItemService.increaseCartItemQuantity(productId, token);
+        }
+        Long userId = authorizationUtils.getUserIdFromToken(token);
+        return await(userId, enqueue(userId, productId, 1, token));
+    }
+
+    public CartItemDTO decrease(Long productId, String token) {
+        if (scheduler == null) {
+            return cartItemService.decreaseCartItemQuantity(productId, token);
+        }
+        Long userId = authorizationUtils.getUserIdFromToken(token);
+        return await(userId, enqueue(userId, productId, -1, token));
+    }
+
+    private Tap enqueue(Long userId, Long productId, int delta, String token) {
+        Tap tap = new Tap(productId, delta, new CompletableFuture<>());
+        // compute() serialises this with the remove() in flush, so a burst never gains taps after it was taken
+        bursts.compute(userId, (id, burst) -> {
+            if (burst == null) {
+                burst = new Burst();
+                scheduler.schedule(() -> flush(id), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            burst.tapsByToken.computeIfAbsent(token, t -> new ArrayList<>()).add(tap);
+            return burst;
+        });
+        return tap;
+    }
+
+    private void flush(Long userId) {
+        Burst burst = bursts.remove(userId);
+        if (burst == null) {
+            return;
+        }
+        burst.tapsByToken.forEach(this::apply);
+    }
+
+    private void apply(String token, List<Tap> taps) {
+        if (taps.isEmpty()) {
+            return;
+        }
+        burstSize.record(taps.size());
+        try {
+            List<CartMutationDTO> mutations = taps.stream()
+                    .map(tap -> new CartMutationDTO(tap.productId(), tap.delta()))
+                    .toList();
+            CartItemResponseDto response = cartItemService.applyCartMutations(mutations, token, true);
+            Map<Long, CartItemDTO> itemsByProduct = response.getItems().stream()
+                    .collect(Collectors.toMap(CartItemDTO::getProductId, Function.identity()));
+            taps.forEach(tap -> tap.result().complete(itemsByProduct.get(tap.productId())));
+        } catch (RuntimeException e) {
+            if (taps.size() == 1) {
+                taps.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // The merged burst rolled back as a whole; replaying the taps in order pins the error
+            // on the taps that fail on their own and applies the rest.
+            taps.forEach(tap -> applyAlone(tap, token));
+        }
+    }
+
+    private void applyAlone(Tap tap, String token) {
+        try {
+            tap.result().complete(tap.delta() > 0
+                    ? cartItemService.increaseCartItemQuantity(tap.productId(), token)
+                    : cartItemService.decreaseCartItemQuantity(tap.productId(), token));
+        } catch (RuntimeException e) {
+            tap.result().completeExceptionally(e);
+        }
+    }
+
+    // Waits on the request thread rather than returning an async result, so the request keeps its
+    // security context and error handling exactly as for the uncoalesced endpoints.
+    private CartItemDTO await(Long userId, Tap tap) {
+        try {
+            return tap.result().get(windowMillis + timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Cart update failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new FruitsApiException(HttpStatus.SERVICE_UNAVAILABLE, withdraw(userId, tap)
+                    ? "Cart update timed out and was not applied, please try again"
+                    : "Cart update timed out, refresh the cart to see whether it was applied");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            withdraw(userId, tap);
+            throw new IllegalStateException("Interrupted while waiting for the cart update", e);
+        }
+    }
+
+    // Takes the tap back out of its burst if that burst has not been flushed yet.
+    private boolean withdraw(Long userId, Tap tap) {
+        boolean[] withdrawn = new boolean[1];
+        bursts.computeIfPresent(userId, (id, burst) -> {
+            burst.tapsByToken.values().forEach(taps -> withdrawn[0] |= taps.remove(tap));
+            return burst;
+        });
+        return withdrawn[0];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            bursts.keySet().forEach(this::flush);
+        }
+    }
+
+    private record Tap(Long productId, int delta, CompletableFuture<CartItemDTO> result) {
+    }
+
+    private static final class Burst {
+        private final Map<String, List<Tap>> tapsByToken = new LinkedHashMap<>();
+    }
+}
@@ -1,7 +1,9 @@
 package com.hamza.fruitsappbackend.modules.cart.controller;
 
+import com.hamza.fruitsappbackend.modules.cart.coalesce.CartMutationCoalescer;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartItemDTO;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartItemResponseDto;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartMutationRequestDto;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartResponseDto;
 import com.hamza.fruitsappbackend.modules.cart.service.CartItemService;
 import com.hamza.fruitsappbackend.modules.cart.service.CartService;
@@ -17,11 +19,14 @@ public class CartController {
 
     private final CartService cartService;
     private final CartItemService cartItemService;
+    private final CartMutationCoalescer cartMutationCoalescer;
 
     @Autowired
-    public CartController(CartService cartService, CartItemService cartItemService) {
+    public CartController(CartService cartService, CartItemService cartItemService,
+                          CartMutationCoalescer cartMutationCoalescer) {
         this.cartService = cartService;
         this.cartItemService = cartItemService;
+        this.cartMutationCoalescer = cartMutationCoalescer;
     }
 
     @PostMapping("/add")
@@ -84,7 +89,7 @@ public class CartController {
     @PostMapping("/increase-quantity/{productId}")
     public ResponseEntity<CartItemDTO> increaseCartItemQuantity(@PathVariable Long productId,
                                                                  @RequestHeader("Authorization") String token) {
-        CartItemDTO updatedCartItem = cartItemService.increaseCartItemQuantity(productId, token);
+        CartItemDTO updatedCartItem = cartMutationCoalescer.increase(productId, token);
         return ResponseEntity.ok(updatedCartItem);
     }
 
@@ -92,7 +97,14 @@ public class CartController {
     @PostMapping("/decrease-quantity/{productId}")
     public ResponseEntity<CartItemDTO> decreaseCartItemQuantity(@PathVariable Long productId,
                                                                 @RequestHeader("Authorization") String token) {
-        CartItemDTO updatedCartItem = cartItemService.decreaseCartItemQuantity(productId, token);
+        CartItemDTO updatedCartItem = cartMutationCoalescer.decrease(productId, token);
         return ResponseEntity.ok(updatedCartItem);
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<CartItemResponseDto> applyCartMutations(@RequestHeader("Authorization") String token,
+                                                                  @Valid @RequestBody CartMutationRequestDto request) {
+        CartItemResponseDto updatedCartItems = cartItemService.applyCartMutations(request.getOperations(), token);
+        return ResponseEntity.ok(updatedCartItems);
+    }
 }
@@ -0,0 +1,20 @@
+package com.hamza.fruitsappbackend.modules.cart.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartMutationDTO {
+
+    @NotNull(message = "Product ID cannot be null")
+    private Long productId;
+
+    // Units to add (positive) or remove (negative)
+    private int delta;
+}
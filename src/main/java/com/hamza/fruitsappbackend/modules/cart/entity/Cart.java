@@ -22,6 +22,7 @@ import java.util.List;
 @Table(name = "carts", indexes = {
         @Index(name = "idx_user_id", columnList = "user_id"),
         @Index(name = "idx_status", columnList = "status"),
+        @Index(name = "idx_user_status", columnList = "user_id, status"),
         @Index(name = "idx_created_at", columnList = "created_at"),
         @Index(name = "idx_updated_at", columnList = "updated_at")
 }, uniqueConstraints = {
@@ -117,9 +118,6 @@ public class Cart {
     }
 
     private void updateTotal() {
-        this.totalPrice = this.cartItems.stream()
-                .map(CartItem::getPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        this.totalQuantity = this.cartItems.size();
+        CartTotals.of(this.cartItems).applyTo(this);
     }
 }
@@ -0,0 +1,41 @@
+package com.hamza.fruitsappbackend.modules.cart.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// The one definition of a cart's totals: totalPrice is the sum of price * quantity over its
+// items and totalQuantity the sum of quantities. Mutations apply a line delta to the stored
+// totals (CartRepository.applyTotalsDelta); of(...) recomputes them from scratch.
+public record CartTotals(BigDecimal totalPrice, int totalQuantity) {
+
+    public static final CartTotals ZERO = new CartTotals(BigDecimal.ZERO.setScale(2), 0);
+
+    public static CartTotals of(Iterable<CartItem> items) {
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        int totalQuantity = 0;
+        for (CartItem item : items) {
+            totalPrice = totalPrice.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            totalQuantity += item.getQuantity();
+        }
+        return new CartTotals(totalPrice.setScale(2, RoundingMode.HALF_UP), totalQuantity);
+    }
+
+    // Change caused by quantityDelta units (negative when removing) of an item at price.
+    public static CartTotals line(BigDecimal price, int quantityDelta) {
+        return new CartTotals(price.multiply(BigDecimal.valueOf(quantityDelta)).setScale(2, RoundingMode.HALF_UP),
+                quantityDelta);
+    }
+
+    public CartTotals plus(CartTotals other) {
+        return new CartTotals(totalPrice.add(other.totalPrice), totalQuantity + other.totalQuantity);
+    }
+
+    public boolean isZero() {
+        return totalQuantity == 0 && totalPrice.signum() == 0;
+    }
+
+    public void applyTo(Cart cart) {
+        cart.setTotalPrice(totalPrice);
+        cart.setTotalQuantity(totalQuantity);
+    }
+}
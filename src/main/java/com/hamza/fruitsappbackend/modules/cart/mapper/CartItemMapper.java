@@ -0,0 +1,18 @@
+package com.hamza.fruitsappbackend.modules.cart.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartItemDTO;
+import com.hamza.fruitsappbackend.modules.cart.entity.CartItem;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MappingConfig.class)
+public interface CartItemMapper {
+
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "productName", source = "product.name")
+    @Mapping(target = "productImageUrl", source = "product.imageUrl")
+    @Mapping(target = "stockQuantity", source = "product.stockQuantity")
+    @Mapping(target = "price", source = "product.price")
+    CartItemDTO toDto(CartItem cartItem);
+}
@@ -0,0 +1,20 @@
+package com.hamza.fruitsappbackend.modules.cart.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartDTO;
+import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MappingConfig.class, uses = CartItemMapper.class)
+public interface CartMapper {
+
+    CartDTO toDto(Cart cart);
+
+    @Mapping(target = "totalQuantity", ignore = true)
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "cartItems", ignore = true)
+    @Mapping(target = "orders", ignore = true)
+    @Mapping(target = "activeCartFlag", ignore = true)
+    Cart toEntity(CartDTO cartDTO);
+}
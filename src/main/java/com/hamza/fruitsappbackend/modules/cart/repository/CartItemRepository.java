@@ -1,9 +1,14 @@
 package com.hamza.fruitsappbackend.modules.cart.repository;
 
 import com.hamza.fruitsappbackend.modules.cart.entity.CartItem;
+import com.hamza.fruitsappbackend.constant.CartStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,9 +16,17 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
 
+    @Query("SELECT item FROM CartItem item JOIN FETCH item.product product " +
+            "WHERE item.cart.id = :cartId AND product.id IN :productIds")
+    List<CartItem> findAllWithProductByCartIdAndProductIdIn(@Param("cartId") Long cartId,
+                                                           @Param("productIds") Collection<Long> productIds);
+
     void deleteAllByCartId(Long id);
 
     boolean existsByCartIdAndProductId(Long cartId, Long productId);
 
     void deleteAllByProductId(Long productId);
+
+    @Query("SELECT ci.product.id FROM CartItem ci WHERE ci.cart.user.id = :userId AND ci.cart.status = :status")
+    List<Long> findProductIdsByUserIdAndCartStatus(@Param("userId") Long userId, @Param("status") CartStatus status);
 }
\ No newline at end of file
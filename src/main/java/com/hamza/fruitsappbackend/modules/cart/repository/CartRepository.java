@@ -3,15 +3,38 @@ package com.hamza.fruitsappbackend.modules.cart.repository;
 import com.hamza.fruitsappbackend.constant.CartStatus;
 import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     // Use this method to fetch carts filtered by both userId and status
     List<Cart> findAllByUserIdAndStatus(Long userId, CartStatus cartStatus);
 
+    // Same filter with items and their products loaded in one query, for checkout
+    @Query("SELECT DISTINCT cart FROM Cart cart LEFT JOIN FETCH cart.cartItems item LEFT JOIN FETCH item.product " +
+            "WHERE cart.user.id = :userId AND cart.status = :status")
+    List<Cart> findAllWithItemsByUserIdAndStatus(@Param("userId") Long userId, @Param("status") CartStatus status);
+
+    @Query("SELECT cart FROM Cart cart LEFT JOIN FETCH cart.cartItems item LEFT JOIN FETCH item.product " +
+            "WHERE cart.id = :id")
+    Optional<Cart> findWithItemsById(@Param("id") Long id);
+
+    // Adds a CartTotals delta to the stored totals in a single statement, without loading the items
+    @Modifying
+    @Query("UPDATE Cart cart SET cart.totalPrice = COALESCE(cart.totalPrice, 0) + :price, " +
+            "cart.totalQuantity = COALESCE(cart.totalQuantity, 0) + :quantity, cart.updatedAt = :now " +
+            "WHERE cart.id = :cartId")
+    int applyTotalsDelta(@Param("cartId") Long cartId, @Param("price") BigDecimal price,
+                         @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
     // Remove this method to avoid returning unfiltered results
     // Optional<Cart> findByUserId(Long userId);
 }
@@ -2,8 +2,11 @@ package com.hamza.fruitsappbackend.modules.cart.service;
 
 import com.hamza.fruitsappbackend.modules.cart.dto.CartItemDTO;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartItemResponseDto;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartMutationDTO;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartResponseDto;
 
+import java.util.List;
+
 public interface CartItemService {
 
     CartItemDTO addCartItemToCart(Long cartId, CartItemDTO cartItemDTO, String token);
@@ -21,4 +24,8 @@ public interface CartItemService {
 
     CartItemDTO increaseCartItemQuantity(Long productId, String token);
     CartItemDTO decreaseCartItemQuantity(Long productId, String token);
+
+    CartItemResponseDto applyCartMutations(List<CartMutationDTO> mutations, String token);
+
+    CartItemResponseDto applyCartMutations(List<CartMutationDTO> mutations, String token, boolean existingItemsOnly);
 }
@@ -2,14 +2,18 @@ package com.hamza.fruitsappbackend.modules.cart.service_impl;
 
 import com.hamza.fruitsappbackend.constant.CartStatus;
 import com.hamza.fruitsappbackend.exception.global.BadRequestException;
+import com.hamza.fruitsappbackend.modules.cart.cache.ActiveCartResolver;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartItemDTO;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartItemResponseDto;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartMutationDTO;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartResponseDto;
 import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
 import com.hamza.fruitsappbackend.modules.cart.entity.CartItem;
+import com.hamza.fruitsappbackend.modules.cart.entity.CartTotals;
 import com.hamza.fruitsappbackend.modules.product.entity.Product;
 import com.hamza.fruitsappbackend.modules.cart.exception.CartItemNotFoundException;
 import com.hamza.fruitsappbackend.modules.cart.exception.CartNotFoundException;
+import com.hamza.fruitsappbackend.modules.cart.mapper.CartItemMapper;
 import com.hamza.fruitsappbackend.modules.product.exception.ProductNotFoundException;
 import com.hamza.fruitsappbackend.modules.cart.repository.CartItemRepository;
 import com.hamza.fruitsappbackend.modules.cart.repository.CartRepository;
@@ -18,15 +22,18 @@ import com.hamza.fruitsappbackend.modules.cart.service.CartItemService;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,27 +42,27 @@ public class CartItemServiceImpl implements CartItemService {
     private final CartItemRepository cartItemRepository;
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final CartItemMapper cartItemMapper;
     private final AuthorizationUtils authorizationUtils;
     private final UserRepository userRepository;
+    private final ActiveCartResolver activeCartResolver;
 
     @Autowired
     public CartItemServiceImpl(CartItemRepository cartItemRepository, CartRepository cartRepository,
-                               ProductRepository productRepository, ModelMapper modelMapper,
-                               AuthorizationUtils authorizationUtils, UserRepository userRepository) {
+                               ProductRepository productRepository, CartItemMapper cartItemMapper,
+                               AuthorizationUtils authorizationUtils, UserRepository userRepository,
+                               ActiveCartResolver activeCartResolver) {
         this.cartItemRepository = cartItemRepository;
         this.cartRepository = cartRepository;
         this.productRepository = productRepository;
-        this.modelMapper = modelMapper;
+        this.cartItemMapper = cartItemMapper;
         this.authorizationUtils = authorizationUtils;
         this.userRepository = userRepository;
+        this.activeCartResolver = activeCartResolver;
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     @Transactional
     public CartItemDTO addCartItemToCart(Long cartId, CartItemDTO cartItemDTO, String token) {
 
@@ -78,9 +85,9 @@ public class CartItemServiceImpl implements CartItemService {
         cartItem.setPrice(BigDecimal.valueOf(product.getPrice()));
         cartItemRepository.save(cartItem);
 
-        updateCartTotal(cart);
+        applyTotalsDelta(cart, CartTotals.line(cartItem.getPrice(), cartItem.getQuantity()));
 
-        return modelMapper.map(cartItem, CartItemDTO.class);
+        return cartItemMapper.toDto(cartItem);
     }
 
     @Override
@@ -88,22 +95,16 @@ public class CartItemServiceImpl implements CartItemService {
         Long userId = getUserIdAndCheckRole(token);
 
         // Ensure only one active cart is fetched
-        Cart cart = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE)
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> new CartNotFoundException("userId", userId.toString()));
+        Cart cart = activeCartResolver.get(userId);
 
         CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
                 .orElseThrow(() -> new CartItemNotFoundException("productId", productId.toString()));
 
-        return modelMapper.map(cartItem, CartItemDTO.class);
+        return cartItemMapper.toDto(cartItem);
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     @Transactional
     public CartItemDTO updateCartItem(Long cartId, CartItemDTO cartItemDTO, String token) {
 
@@ -117,34 +118,31 @@ public class CartItemServiceImpl implements CartItemService {
         CartItem existingCartItem = cartItemRepository.findById(cartItemDTO.getId())
                 .orElseThrow(() -> new CartItemNotFoundException("id", cartItemDTO.getId().toString()));
 
+        int previousQuantity = existingCartItem.getQuantity();
         existingCartItem.setQuantity(cartItemDTO.getQuantity());
         cartItemRepository.save(existingCartItem);
 
-        updateCartTotal(cart);
+        applyTotalsDelta(cart, CartTotals.line(existingCartItem.getPrice(), cartItemDTO.getQuantity() - previousQuantity));
 
         return convertToDTO(existingCartItem);
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     @Transactional
     public CartItemResponseDto deleteCartItemByProductId(Long productId, String token) {
         Long userId = getUserIdAndCheckRole(token);
 
-        Cart cart = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE)
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> new CartNotFoundException("userId", userId.toString()));
+        Cart cart = activeCartResolver.getWithItems(userId);
 
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
+        CartItem cartItem = cart.getCartItems().stream()
+                .filter(item -> item.getProduct().getId().equals(productId))
+                .findFirst()
                 .orElseThrow(() -> new CartItemNotFoundException("productId", productId.toString()));
 
         cart.getCartItems().remove(cartItem);
         cartItemRepository.delete(cartItem);
-        updateCartTotal(cart);
+        applyTotalsDelta(cart, CartTotals.line(cartItem.getPrice(), -cartItem.getQuantity()));
 
         List<CartItemDTO> cartItemDTOS = cart.getCartItems().stream().map(this::convertToDTO).toList();
 
@@ -156,9 +154,7 @@ public class CartItemServiceImpl implements CartItemService {
         Long userId = getUserIdAndCheckRole(token);
 
         // Attempt to fetch an active cart for the user
-        Cart cart = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE)
-                .stream()
-                .findFirst()
+        Cart cart = activeCartResolver.findWithItems(userId)
                 .orElseGet(() -> {
                     // If no active cart is found, create a new one
                     Cart newCart = new Cart();
@@ -166,7 +162,9 @@ public class CartItemServiceImpl implements CartItemService {
                     newCart.setStatus(CartStatus.ACTIVE);
                     newCart.setTotalPrice(BigDecimal.ZERO);
                     newCart.setTotalQuantity(0);
-                    return cartRepository.save(newCart);
+                    Cart savedCart = cartRepository.save(newCart);
+                    activeCartResolver.activated(savedCart);
+                    return savedCart;
                 });
 
         // Sort the cart items by creation date in descending order
@@ -174,15 +172,9 @@ public class CartItemServiceImpl implements CartItemService {
                 .sorted(Comparator.comparing(CartItem::getCreatedAt).reversed())
                 .toList();
 
-        // Calculate the total price for the cart items
-        BigDecimal totalPrice = sortedCartItems.stream()
-                .map(CartItem::getPrice)
-                .reduce(BigDecimal::add)
-                .orElse(BigDecimal.ZERO);
-
         // Return the cart response
         return new CartResponseDto(
-                totalPrice,
+                CartTotals.of(sortedCartItems).totalPrice(),
                 sortedCartItems.size(),
                 sortedCartItems.stream()
                         .map(this::convertToDTO)
@@ -192,39 +184,26 @@ public class CartItemServiceImpl implements CartItemService {
 
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     @Transactional
     public void deleteAllCartItemsByUser(String token) {
         Long userId = getUserIdAndCheckRole(token);
 
-        Cart cart = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE)
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> new CartNotFoundException("userId", userId.toString()));
+        Cart cart = activeCartResolver.get(userId);
 
         cartItemRepository.deleteAllByCartId(cart.getId());
 
-        cart.setTotalPrice(BigDecimal.ZERO);
-        cart.setTotalQuantity(0);
+        CartTotals.ZERO.applyTo(cart);
         cartRepository.save(cart);
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     @Transactional
     public CartItemDTO increaseCartItemQuantity(Long productId, String token) {
         Long userId = getUserIdAndCheckRole(token);
 
-        Cart cart = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE)
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> new CartNotFoundException("userId", userId.toString()));
+        Cart cart = activeCartResolver.get(userId);
 
         CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
                 .orElseThrow(() -> new CartItemNotFoundException("productId", productId.toString()));
@@ -232,24 +211,18 @@ public class CartItemServiceImpl implements CartItemService {
         cartItem.setQuantity(cartItem.getQuantity() + 1);
         cartItemRepository.save(cartItem);
 
-        updateCartTotal(cart);
+        applyTotalsDelta(cart, CartTotals.line(cartItem.getPrice(), 1));
 
         return convertToDTO(cartItem);
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     @Transactional
     public CartItemDTO decreaseCartItemQuantity(Long productId, String token) {
         Long userId = getUserIdAndCheckRole(token);
 
-        Cart cart = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE)
-                .stream()
-                .findFirst()
-                .orElseThrow(() -> new CartNotFoundException("userId", userId.toString()));
+        Cart cart = activeCartResolver.get(userId);
 
         CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
                 .orElseThrow(() -> new CartItemNotFoundException("productId", productId.toString()));
@@ -261,37 +234,94 @@ public class CartItemServiceImpl implements CartItemService {
         cartItem.setQuantity(cartItem.getQuantity() - 1);
         cartItemRepository.save(cartItem);
 
-        updateCartTotal(cart);
+        applyTotalsDelta(cart, CartTotals.line(cartItem.getPrice(), -1));
 
         return convertToDTO(cartItem);
     }
 
+    // Applies every (productId, delta) in one transaction: deltas for the same product are merged,
+    // the touched items are loaded with one query and the cart totals move with one UPDATE.
+    // A positive delta for a product not yet in the cart adds it at the current price, unless
+    // existingItemsOnly is set (coalesced quantity taps, which must fail like the single-tap endpoints).
+    @Override
+    @CacheEvict(value = "allWishlists", allEntries = true)
+    @Transactional
+    public CartItemResponseDto applyCartMutations(List<CartMutationDTO> mutations, String token) {
+        return applyCartMutations(mutations, token, false);
+    }
+
+    @Override
+    @CacheEvict(value = "allWishlists", allEntries = true)
+    @Transactional
+    public CartItemResponseDto applyCartMutations(List<CartMutationDTO> mutations, String token, boolean existingItemsOnly) {
+        Long userId = getUserIdAndCheckRole(token);
+
+        Cart cart = activeCartResolver.get(userId);
+
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        mutations.forEach(mutation -> deltas.merge(mutation.getProductId(), mutation.getDelta(), Integer::sum));
+
+        Map<Long, CartItem> existingItems = cartItemRepository
+                .findAllWithProductByCartIdAndProductIdIn(cart.getId(), deltas.keySet())
+                .stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+
+        List<Long> newProductIds = existingItemsOnly ? List.of() : deltas.keySet().stream()
+                .filter(productId -> !existingItems.containsKey(productId))
+                .toList();
+        Map<Long, Product> newProducts = newProductIds.isEmpty() ? Map.of() : productRepository.findAllById(newProductIds)
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        CartTotals totalsDelta = CartTotals.ZERO;
+        List<CartItemDTO> touchedItems = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            Long productId = entry.getKey();
+            int delta = entry.getValue();
+            CartItem cartItem = existingItems.get(productId);
+
+            if (cartItem == null) {
+                if (delta <= 0 || existingItemsOnly) {
+                    throw new CartItemNotFoundException("productId", productId.toString());
+                }
+                Product product = newProducts.get(productId);
+                if (product == null) {
+                    throw new ProductNotFoundException("id", productId.toString());
+                }
+                cartItem = new CartItem(cart, product);
+                cartItem.setQuantity(delta);
+                cartItemRepository.save(cartItem);
+            } else if (delta != 0) {
+                if (cartItem.getQuantity() + delta < 1) {
+                    throw new BadRequestException("Cannot decrease quantity below 1");
+                }
+                cartItem.setQuantity(cartItem.getQuantity() + delta);
+            }
+
+            totalsDelta = totalsDelta.plus(CartTotals.line(cartItem.getPrice(), delta));
+            touchedItems.add(convertToDTO(cartItem));
+        }
+
+        applyTotalsDelta(cart, totalsDelta);
+
+        return new CartItemResponseDto(touchedItems.size(), touchedItems);
+    }
+
     private Long getUserIdAndCheckRole(String token) {
         Long userId = getUserIdFromToken(token);
         authorizationUtils.checkUserOrAdminRole(token, userId);
         return userId;
     }
 
-    private void updateCartTotal(Cart cart) {
+    // One UPDATE on the cart row with the change of the touched item; the items are not reloaded.
+    // The loaded Cart keeps its old totals, so it must not be saved again in the same transaction.
+    private void applyTotalsDelta(Cart cart, CartTotals delta) {
         if (cart.getStatus() == CartStatus.COMPLETED) {
             throw new IllegalStateException("Cannot update total for a completed cart.");
         }
-
-        Cart updatedCart = cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new CartNotFoundException("id", cart.getId().toString()));
-
-        BigDecimal totalPrice = updatedCart.getCartItems().stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        int totalQuantity = updatedCart.getCartItems().stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-
-        updatedCart.setTotalPrice(totalPrice);
-        updatedCart.setTotalQuantity(totalQuantity);
-
-        cartRepository.save(updatedCart);
+        if (!delta.isZero()) {
+            cartRepository.applyTotalsDelta(cart.getId(), delta.totalPrice(), delta.totalQuantity(), LocalDateTime.now());
+        }
     }
 
     private CartItem findOrCreateCartItem(Cart cart, Product product) {
@@ -300,18 +330,10 @@ public class CartItemServiceImpl implements CartItemService {
     }
 
     private Long getUserIdFromToken(String token) {
-        return authorizationUtils.getUserFromToken(token).getId();
+        return authorizationUtils.getUserIdFromToken(token);
     }
 
     private CartItemDTO convertToDTO(CartItem cartItem) {
-        CartItemDTO cartItemDTO = new CartItemDTO();
-        cartItemDTO.setId(cartItem.getId());
-        cartItemDTO.setStockQuantity(cartItem.getProduct().getStockQuantity());
-        cartItemDTO.setProductId(cartItem.getProduct().getId());
-        cartItemDTO.setQuantity(cartItem.getQuantity());
-        cartItemDTO.setPrice(cartItem.getProduct().getPrice());
-        cartItemDTO.setProductName(cartItem.getProduct().getName());
-        cartItemDTO.setProductImageUrl(cartItem.getProduct().getImageUrl());
-        return cartItemDTO;
+        return cartItemMapper.toDto(cartItem);
     }
 }
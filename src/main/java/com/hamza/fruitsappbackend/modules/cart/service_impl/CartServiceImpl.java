@@ -2,6 +2,7 @@ package com.hamza.fruitsappbackend.modules.cart.service_impl;
 
 import com.hamza.fruitsappbackend.constant.CartStatus;
 import com.hamza.fruitsappbackend.exception.global.BadRequestException;
+import com.hamza.fruitsappbackend.modules.cart.cache.ActiveCartResolver;
 import com.hamza.fruitsappbackend.modules.cart.dto.CartItemDTO;
 import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
 import com.hamza.fruitsappbackend.modules.cart.exception.CartNotFoundException;
@@ -11,7 +12,7 @@ import com.hamza.fruitsappbackend.modules.cart.repository.CartRepository;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.modules.cart.service.CartItemService;
 import com.hamza.fruitsappbackend.modules.cart.service.CartService;
-import com.hamza.fruitsappbackend.security.JwtTokenProvider;
+import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import jakarta.transaction.Transactional;
@@ -25,16 +26,18 @@ public class CartServiceImpl implements CartService {
     private final CartRepository cartRepository;
     private final UserRepository userRepository;
     private final CartItemService cartItemService;
-    private final JwtTokenProvider jwtTokenProvider;
+    private final AuthorizationUtils authorizationUtils;
+    private final ActiveCartResolver activeCartResolver;
 
     @Autowired
     public CartServiceImpl(CartRepository cartRepository, UserRepository userRepository,
                            CartItemService cartItemService,
-                           JwtTokenProvider jwtTokenProvider) {
+                           AuthorizationUtils authorizationUtils, ActiveCartResolver activeCartResolver) {
         this.cartRepository = cartRepository;
         this.userRepository = userRepository;
         this.cartItemService = cartItemService;
-        this.jwtTokenProvider = jwtTokenProvider;
+        this.authorizationUtils = authorizationUtils;
+        this.activeCartResolver = activeCartResolver;
     }
 
     @Override
@@ -44,27 +47,17 @@ public class CartServiceImpl implements CartService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException("id", userId.toString()));
 
-        // Fetch the active cart for the user
-        List<Cart> activeCarts = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE);
-
-        if (activeCarts.size() > 1) {
-            // Throw an error if more than one active cart exists, indicating a data inconsistency
-            throw new IllegalStateException("Multiple active carts found for user. Data inconsistency detected.");
-        }
-
-        Cart cart;
-        if (activeCarts.isEmpty()) {
-            // Create a new cart if no active cart is found
-            cart = new Cart();
-            cart.setUser(user);
-            cart.setTotalPrice(BigDecimal.ZERO);
-            cart.setTotalQuantity(0);
-            cart.setStatus(CartStatus.ACTIVE);
-            cartRepository.save(cart); // Save the new cart
-        } else {
-            // Use the existing active cart
-            cart = activeCarts.get(0);
-        }
+        // Fetch the active cart for the user, or create a new cart if there is none
+        Cart cart = activeCartResolver.find(userId).orElseGet(() -> {
+            Cart newCart = new Cart();
+            newCart.setUser(user);
+            newCart.setTotalPrice(BigDecimal.ZERO);
+            newCart.setTotalQuantity(0);
+            newCart.setStatus(CartStatus.ACTIVE);
+            cartRepository.save(newCart); // Save the new cart
+            activeCartResolver.activated(newCart);
+            return newCart;
+        });
 
         // Add cart item to the active cart
         return cartItemService.addCartItemToCart(cart.getId(), cartItemDTO, token);
@@ -75,19 +68,8 @@ public class CartServiceImpl implements CartService {
     public void completeCart(String token) {
         Long userId = getUserIdFromToken(token);
 
-        // Fetch all active carts for the user
-        List<Cart> activeCarts = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE);
-
-        if (activeCarts.size() > 1) {
-            throw new IllegalStateException("Multiple active carts found for user. Data inconsistency detected.");
-        }
-
-        if (activeCarts.isEmpty()) {
-            throw new CartNotFoundException("userId", userId.toString());
-        }
-
         // Get the active cart
-        Cart cart = activeCarts.get(0);
+        Cart cart = activeCartResolver.get(userId);
 
         // Check if the cart is already completed
         if (cart.getStatus() == CartStatus.COMPLETED) {
@@ -97,6 +79,7 @@ public class CartServiceImpl implements CartService {
         // Mark the cart as completed
         cart.setStatus(CartStatus.COMPLETED);
         cartRepository.save(cart);
+        activeCartResolver.deactivated(userId);
     }
 
     @Override
@@ -121,9 +104,10 @@ public class CartServiceImpl implements CartService {
         // Reopen the cart and mark it as active
         cart.setStatus(CartStatus.ACTIVE);
         cartRepository.save(cart);
+        activeCartResolver.activated(cart);
     }
 
     private Long getUserIdFromToken(String token) {
-        return Long.valueOf(jwtTokenProvider.getUserIdFromToken(token));
+        return authorizationUtils.getUserIdFromToken(token);
     }
 }
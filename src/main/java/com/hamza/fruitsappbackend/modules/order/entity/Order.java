@@ -30,8 +30,12 @@ import java.util.List;
 })
 public class Order {
 
+    // Ids are allocated in blocks of 50 from id_generators rather than by AUTO_INCREMENT, so
+    // Hibernate can batch the inserts of a whole order (see IdGeneratorAlignment)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id")
+    @TableGenerator(name = "order_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "orders", allocationSize = 50)
     private Long id;
 
     @Column(name = "total_price", nullable = false)
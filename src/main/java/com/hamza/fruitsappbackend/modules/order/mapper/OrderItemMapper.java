@@ -0,0 +1,21 @@
+package com.hamza.fruitsappbackend.modules.order.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.order.dto.OrderItemDTO;
+import com.hamza.fruitsappbackend.modules.order.entity.OrderItem;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MappingConfig.class)
+public interface OrderItemMapper {
+
+    @Mapping(target = "productId", source = "product.id")
+    OrderItemDTO toDto(OrderItem orderItem);
+
+    @Mapping(target = "price", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "order", ignore = true)
+    @Mapping(target = "product", ignore = true)
+    OrderItem toEntity(OrderItemDTO orderItemDTO);
+}
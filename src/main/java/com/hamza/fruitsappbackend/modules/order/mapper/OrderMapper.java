@@ -0,0 +1,35 @@
+package com.hamza.fruitsappbackend.modules.order.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.order.dto.OrderDTO;
+import com.hamza.fruitsappbackend.modules.order.entity.Order;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
+
+@Mapper(config = MappingConfig.class)
+public interface OrderMapper {
+
+    @Mapping(target = "userId", source = "user.id")
+    @Mapping(target = "addressId", source = "address.id")
+    OrderDTO toDto(Order order);
+
+    // Only the client-editable columns; ownership, address and timestamps stay as stored.
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "address", ignore = true)
+    @Mapping(target = "cart", ignore = true)
+    @Mapping(target = "orderItems", ignore = true)
+    void updateEntity(OrderDTO orderDTO, @MappingTarget Order order);
+
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "address", ignore = true)
+    @Mapping(target = "cart", ignore = true)
+    @Mapping(target = "orderItems", ignore = true)
+    Order toEntity(OrderDTO orderDTO);
+}
@@ -5,6 +5,7 @@ import com.hamza.fruitsappbackend.modules.order.dto.OrderItemsResponseDTO;
 import com.hamza.fruitsappbackend.modules.order.entity.Order;
 import com.hamza.fruitsappbackend.modules.order.entity.OrderItem;
 import com.hamza.fruitsappbackend.modules.order.exception.OrderNotFoundException;
+import com.hamza.fruitsappbackend.modules.order.mapper.OrderItemMapper;
 import com.hamza.fruitsappbackend.modules.order.repository.OrderRepository;
 import com.hamza.fruitsappbackend.modules.product.entity.Product;
 import com.hamza.fruitsappbackend.modules.order.exception.OrderItemNotFoundException;
@@ -13,7 +14,6 @@ import com.hamza.fruitsappbackend.modules.order.repository.OrderItemRepository;
 import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
 import com.hamza.fruitsappbackend.modules.order.service.OrderItemService;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,44 +35,44 @@ public class OrderItemServiceImpl implements OrderItemService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final AuthorizationUtils authorizationUtils;
-    private final ModelMapper modelMapper;
+    private final OrderItemMapper orderItemMapper;
 
     @Autowired
-    public OrderItemServiceImpl(OrderItemRepository orderItemRepository, OrderRepository orderRepository, ProductRepository productRepository, AuthorizationUtils authorizationUtils, ModelMapper modelMapper) {
+    public OrderItemServiceImpl(OrderItemRepository orderItemRepository, OrderRepository orderRepository, ProductRepository productRepository, AuthorizationUtils authorizationUtils, OrderItemMapper orderItemMapper) {
         this.orderItemRepository = orderItemRepository;
         this.orderRepository = orderRepository;
         this.productRepository = productRepository;
         this.authorizationUtils = authorizationUtils;
-        this.modelMapper = modelMapper;
+        this.orderItemMapper = orderItemMapper;
     }
 
     @Override
     public OrderItemDTO saveOrderItem(String token, OrderItemDTO orderItemDTO) {
-        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserFromToken(token).getId());
+        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserIdFromToken(token));
         Product product = productRepository.findById(orderItemDTO.getProductId())
                 .orElseThrow(() -> new ProductNotFoundException("id", orderItemDTO.getProductId().toString()));
 
-        OrderItem orderItem = modelMapper.map(orderItemDTO, OrderItem.class);
+        OrderItem orderItem = orderItemMapper.toEntity(orderItemDTO);
         orderItem.setProduct(product);
         orderItem.setPrice(BigDecimal.valueOf(product.getPrice()));
 
         OrderItem savedOrderItem = orderItemRepository.save(orderItem);
         logger.debug("OrderItem saved with product ID {} and quantity {}", orderItemDTO.getProductId(), orderItemDTO.getQuantity());
 
-        return modelMapper.map(savedOrderItem, OrderItemDTO.class);
+        return orderItemMapper.toDto(savedOrderItem);
     }
 
     @Override
     @Cacheable(value = "orderItems", key = "#id")
     public Optional<OrderItemDTO> getOrderItemById(String token, Long id) {
-        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserFromToken(token).getId());
+        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserIdFromToken(token));
         return orderItemRepository.findById(id)
-                .map(orderItem -> modelMapper.map(orderItem, OrderItemDTO.class));
+                .map(orderItemMapper::toDto);
     }
 
     @Override
     public OrderItemsResponseDTO getOrderItemsByOrderId(String token, Long orderId) {
-        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserFromToken(token).getId());
+        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserIdFromToken(token));
         Order order = orderRepository.findById(orderId).orElseThrow(
                 () -> new OrderNotFoundException("id", orderId.toString())
         );
@@ -80,7 +80,7 @@ public class OrderItemServiceImpl implements OrderItemService {
         List<OrderItemDTO> orderItems = order.getOrderItems()
                 .stream()
                 .sorted(Comparator.comparing(OrderItem::getCreatedAt).reversed())
-                .map(orderItem -> modelMapper.map(orderItem, OrderItemDTO.class))
+                .map(orderItemMapper::toDto)
                 .toList();
       logger.info("orderItems retrieved by order ID {}: {}", orderId, orderItems);
         return new OrderItemsResponseDTO(orderItems.size(), orderItems);
@@ -92,13 +92,13 @@ public class OrderItemServiceImpl implements OrderItemService {
         authorizationUtils.checkAdminRole(token);
 
         return orderItemRepository.findAll().stream()
-                .map(orderItem -> modelMapper.map(orderItem, OrderItemDTO.class))
+                .map(orderItemMapper::toDto)
                 .collect(Collectors.toList());
     }
 
     @Override
     public OrderItemDTO updateOrderItem(String token, OrderItemDTO orderItemDTO) {
-        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserFromToken(token).getId());
+        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserIdFromToken(token));
 
         OrderItem existingOrderItem = orderItemRepository.findById(orderItemDTO.getId())
                 .orElseThrow(() -> new OrderItemNotFoundException("id", orderItemDTO.getId().toString()));
@@ -111,12 +111,12 @@ public class OrderItemServiceImpl implements OrderItemService {
         existingOrderItem.setPrice(BigDecimal.valueOf(product.getPrice()));
 
         OrderItem updatedOrderItem = orderItemRepository.save(existingOrderItem);
-        return modelMapper.map(updatedOrderItem, OrderItemDTO.class);
+        return orderItemMapper.toDto(updatedOrderItem);
     }
 
     @Override
     public void deleteOrderItemById(String token, Long id) {
-        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserFromToken(token).getId());
+        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserIdFromToken(token));
 
         if (!orderItemRepository.existsById(id)) {
             throw new OrderItemNotFoundException("id", id.toString());
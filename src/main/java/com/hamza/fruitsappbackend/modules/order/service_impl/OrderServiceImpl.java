@@ -3,25 +3,29 @@ package com.hamza.fruitsappbackend.modules.order.service_impl;
 import com.hamza.fruitsappbackend.constant.CartStatus;
 import com.hamza.fruitsappbackend.constant.OrderStatus;
 import com.hamza.fruitsappbackend.exception.global.BadRequestException;
+import com.hamza.fruitsappbackend.modules.cart.cache.ActiveCartResolver;
 import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
 import com.hamza.fruitsappbackend.modules.cart.entity.CartItem;
+import com.hamza.fruitsappbackend.modules.cart.entity.CartTotals;
 import com.hamza.fruitsappbackend.modules.cart.repository.CartRepository;
 import com.hamza.fruitsappbackend.modules.order.dto.OrderDTO;
 import com.hamza.fruitsappbackend.modules.order.dto.OrderResponseDto;
 import com.hamza.fruitsappbackend.modules.order.entity.Order;
 import com.hamza.fruitsappbackend.modules.order.entity.OrderItem;
 import com.hamza.fruitsappbackend.modules.order.exception.OrderNotFoundException;
+import com.hamza.fruitsappbackend.modules.order.mapper.OrderMapper;
 import com.hamza.fruitsappbackend.modules.order.repository.OrderRepository;
 import com.hamza.fruitsappbackend.modules.order.service.OrderService;
-import com.hamza.fruitsappbackend.modules.product.entity.Product;
-import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductStockRepository;
+import com.hamza.fruitsappbackend.modules.product.stock.StockReservationEngine;
 import com.hamza.fruitsappbackend.modules.address.entity.Address;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionStatus;
@@ -29,8 +33,13 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,23 +47,31 @@ public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
-    private final ProductRepository productRepository;
+    private final ProductStockRepository productStockRepository;
     private final CartRepository cartRepository;
     private final PlatformTransactionManager transactionManager;
-    private final ModelMapper modelMapper;
+    private final OrderMapper orderMapper;
     private final AuthorizationUtils authorizationUtils;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockReservationEngine stockReservationEngine;
+    private final ActiveCartResolver activeCartResolver;
 
     @Autowired
     public OrderServiceImpl(OrderRepository orderRepository, UserRepository userRepository,
-                            ProductRepository productRepository, CartRepository cartRepository,
-                            ModelMapper modelMapper,PlatformTransactionManager transactionManager, AuthorizationUtils authorizationUtils) {
+                            ProductStockRepository productStockRepository, CartRepository cartRepository,
+                            OrderMapper orderMapper, PlatformTransactionManager transactionManager, AuthorizationUtils authorizationUtils,
+                            ApplicationEventPublisher eventPublisher, StockReservationEngine stockReservationEngine,
+                            ActiveCartResolver activeCartResolver) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
-        this.productRepository = productRepository;
+        this.productStockRepository = productStockRepository;
         this.cartRepository = cartRepository;
         this.transactionManager = transactionManager;
-        this.modelMapper = modelMapper;
+        this.orderMapper = orderMapper;
         this.authorizationUtils = authorizationUtils;
+        this.eventPublisher = eventPublisher;
+        this.stockReservationEngine = stockReservationEngine;
+        this.activeCartResolver = activeCartResolver;
     }
 
     @Override
@@ -66,12 +83,13 @@ public class OrderServiceImpl implements OrderService {
         validateCartNotEmpty(cart);
 
         Order order = createOrderFromCart(user, cart);
+        reserveStock(cart);
         Order savedOrder = orderRepository.save(order);
 
         completeCart(cart);
         createNewActiveCartForUser(user);
 
-        return modelMapper.map(savedOrder, OrderDTO.class);
+        return orderMapper.toDto(savedOrder);
     }
 
     @Override
@@ -79,7 +97,7 @@ public class OrderServiceImpl implements OrderService {
     public Optional<OrderDTO> getOrderById(Long id, String token) {
         Order order = fetchOrderById(id);
         authorizeUserAccess(token, order.getUser().getId());
-        return Optional.of(modelMapper.map(order, OrderDTO.class));
+        return Optional.of(orderMapper.toDto(order));
     }
 
     @Override
@@ -94,7 +112,7 @@ public class OrderServiceImpl implements OrderService {
     public List<OrderDTO> getAllOrders(String token) {
         authorizeAdmin(token);
         return orderRepository.findAll().stream()
-                .map(order -> modelMapper.map(order, OrderDTO.class))
+                .map(orderMapper::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -105,7 +123,7 @@ public class OrderServiceImpl implements OrderService {
         authorizeUserAccess(token, order.getUser().getId());
 
         validateAndHandleOrderStatusTransition(order, newStatus);
-        return modelMapper.map(orderRepository.save(order), OrderDTO.class);
+        return orderMapper.toDto(orderRepository.save(order));
     }
 
     @Override
@@ -144,14 +162,14 @@ public class OrderServiceImpl implements OrderService {
         }
 
         updateOrderStatusIfValid(existingOrder, orderDTO.getStatus());
-        modelMapper.map(orderDTO, existingOrder);
-        return modelMapper.map(orderRepository.save(existingOrder), OrderDTO.class);
+        orderMapper.updateEntity(orderDTO, existingOrder);
+        return orderMapper.toDto(orderRepository.save(existingOrder));
     }
 
 
 
     private Long authorizeUser(String token) {
-        return authorizationUtils.getUserFromToken(token).getId();
+        return authorizationUtils.getUserIdFromToken(token);
     }
 
     private void authorizeAdmin(String token) {
@@ -173,13 +191,8 @@ public class OrderServiceImpl implements OrderService {
     }
 
     private Cart fetchActiveCartForUser(Long userId) {
-        List<Cart> activeCarts = cartRepository.findAllByUserIdAndStatus(userId, CartStatus.ACTIVE);
-        if (activeCarts.size() > 1) {
-            throw new IllegalStateException("Multiple active carts found for user. Data inconsistency detected.");
-        } else if (activeCarts.isEmpty()) {
-            throw new IllegalStateException("No active cart found for the user (Add product to your cart)");
-        }
-        return activeCarts.get(0);
+        return activeCartResolver.findWithItems(userId)
+                .orElseThrow(() -> new IllegalStateException("No active cart found for the user (Add product to your cart)"));
     }
 
     private void validateCartNotEmpty(Cart cart) {
@@ -195,7 +208,8 @@ public class OrderServiceImpl implements OrderService {
         Order order = new Order();
         order.setUser(user);
         order.setStatus(OrderStatus.PENDING);
-        order.setTotalPrice(cart.getTotalPrice());
+        // Priced from the items themselves rather than the running totals kept on the cart row
+        order.setTotalPrice(CartTotals.of(cart.getCartItems()).totalPrice());
         order.setCart(cart);
         order.setAddress(fetchDefaultAddress(user));
 
@@ -216,17 +230,19 @@ public class OrderServiceImpl implements OrderService {
                 .orElseThrow(() -> new IllegalStateException("No default address found for the user."));
     }
 
-    private OrderItem createOrderItemFromCartItem(CartItem cartItem, Order order) {
-        Product product = cartItem.getProduct();
-        if (product.getStockQuantity() < cartItem.getQuantity()) {
-            throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+    // Stock and order counts are updated in SQL by the reservation engine, never through the
+    // Product entities loaded with the cart.
+    private void reserveStock(Cart cart) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItem cartItem : cart.getCartItems()) {
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
         }
+        stockReservationEngine.reserve(quantities);
+    }
 
-        product.setStockQuantity(product.getStockQuantity() - cartItem.getQuantity());
-        product.setOrderCount(product.getOrderCount() + 1);
-
+    private OrderItem createOrderItemFromCartItem(CartItem cartItem, Order order) {
         OrderItem orderItem = new OrderItem();
-        orderItem.setProduct(product);
+        orderItem.setProduct(cartItem.getProduct());
         orderItem.setQuantity(cartItem.getQuantity());
         orderItem.setPrice(cartItem.getPrice());
         orderItem.setOrder(order);
@@ -238,15 +254,16 @@ public class OrderServiceImpl implements OrderService {
     private void completeCart(Cart cart) {
         cart.completeCart();
         cartRepository.saveAndFlush(cart);
+        activeCartResolver.deactivated(cart.getUser().getId());
     }
 
     private void createNewActiveCartForUser(User user) {
         Cart newCart = new Cart();
         newCart.setUser(user);
-        newCart.setTotalPrice(BigDecimal.ZERO);
-        newCart.setTotalQuantity(0);
+        CartTotals.ZERO.applyTo(newCart);
         newCart.setStatus(CartStatus.ACTIVE);
         cartRepository.save(newCart);
+        activeCartResolver.activated(newCart);
     }
 
     private void validateAndHandleOrderStatusTransition(Order order, OrderStatus newStatus) {
@@ -273,11 +290,13 @@ public class OrderServiceImpl implements OrderService {
         try {
 
             if (newStatus == OrderStatus.FAILED || newStatus == OrderStatus.RETURNED || newStatus == OrderStatus.CANCELLED) {
-                order.getOrderItems().forEach(orderItem -> {
-                    Product product = orderItem.getProduct();
-                    product.setOrderCount(product.getOrderCount() - 1);
-                    productRepository.save(product);
-                });
+                // Counted in SQL like the checkout that raised them; saving the Product would write back
+                // the stock it loaded over reservations committed since.
+                Map<Long, Integer> orderCounts = new TreeMap<>();
+                order.getOrderItems().forEach(orderItem -> orderCounts.merge(orderItem.getProduct().getId(), 1, Integer::sum));
+                productStockRepository.releaseOrders(new ArrayList<>(orderCounts.entrySet()));
+                orderCounts.keySet().forEach(productId ->
+                        eventPublisher.publishEvent(ProductChangedEvent.updated(productId, Set.of("orderCount"))));
             }
             order.setStatus(newStatus);
             transactionManager.commit(status);
@@ -290,7 +309,7 @@ public class OrderServiceImpl implements OrderService {
 
     private OrderResponseDto buildOrderResponseDto(List<Order> orders) {
         List<OrderDTO> orderDTOList = orders.stream()
-                .map(order -> modelMapper.map(order, OrderDTO.class))
+                .map(orderMapper::toDto)
                 .collect(Collectors.toList());
 
         BigDecimal totalPrice = orders.stream()
@@ -0,0 +1,202 @@
+package com.hamza.fruitsappbackend.modules.product.cache;
+
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductResponse;
+import com.hamza.fruitsappbackend.modules.product.event.CategoryChangedEvent;
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.ehcache.event.CacheEvent;
+import org.ehcache.event.EventFiring;
+import org.ehcache.event.EventOrdering;
+import org.ehcache.event.EventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Catalog pages cached in "allProducts", plus an index of which products and sort key each page
+// holds so a product write only evicts or patches the pages it can actually affect. Pages that
+// Ehcache expires or evicts on its own are dropped from the index through a cache event listener.
+@Component
+public class ProductPageCache {
+
+    public static final String CACHE_NAME = "allProducts";
+
+    private static final Logger logger = LogManager.getLogger(ProductPageCache.class);
+
+    private final Cache cache;
+    // The JCache behind "allProducts", null if the cache is not JCache-backed
+    private final javax.cache.Cache<String, ?> nativeCache;
+    private final Map<String, TrackedPage> pages = new HashMap<>();
+    private final Map<Long, Set<String>> keysByProduct = new HashMap<>();
+    private final Counter patched;
+    private final Counter evicted;
+    private final Counter cleared;
+    private long generation;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public ProductPageCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.patched = invalidations(meterRegistry, "patch");
+        this.evicted = invalidations(meterRegistry, "evict");
+        this.cleared = invalidations(meterRegistry, "clear");
+        Gauge.builder("product.cache.tracked.pages", this, ProductPageCache::trackedPages)
+                .description("Catalog pages currently tracked by the invalidation index")
+                .register(meterRegistry);
+        this.nativeCache = cache.getNativeCache() instanceof javax.cache.Cache<?, ?> jcache
+                ? (javax.cache.Cache<String, ?>) jcache
+                : null;
+        if (nativeCache != null) {
+            nativeCache.unwrap(org.ehcache.Cache.class).getRuntimeConfiguration().registerCacheEventListener(
+                    this::onEntryGone, EventOrdering.UNORDERED, EventFiring.ASYNCHRONOUS,
+                    EnumSet.of(EventType.EXPIRED, EventType.EVICTED, EventType.REMOVED));
+        }
+    }
+
+    public static String key(int pageSize, int pageNumber, String sortBy, String sortDirection) {
+        return pageSize + "-" + pageNumber + "-" + sortBy + "-" + sortDirection;
+    }
+
+    public ProductResponse get(String key) {
+        return cache.get(key, ProductResponse.class);
+    }
+
+    public synchronized long currentGeneration() {
+        return generation;
+    }
+
+    // Skips the put when a product changed while the page was being loaded, so a stale page
+    // cannot be cached after the invalidation that should have removed it.
+    public synchronized void put(String key, String sortBy, ProductResponse page, long loadedAtGeneration) {
+        if (loadedAtGeneration != generation) {
+            return;
+        }
+        cache.put(key, page);
+        untrack(key);
+        List<Long> productIds = page.getItems().stream().map(ProductDTO::getId).toList();
+        pages.put(key, new TrackedPage(sortBy, productIds));
+        for (Long productId : productIds) {
+            keysByProduct.computeIfAbsent(productId, id -> new HashSet<>()).add(key);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        generation++;
+        if (event.type() != ProductChangedEvent.Type.UPDATED) {
+            // Inserts and deletes shift every page and change the totals, nothing to salvage.
+            clear();
+            return;
+        }
+
+        Set<String> changed = event.changedProperties();
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        for (String key : new ArrayList<>(pages.keySet())) {
+            if (changed.contains(pages.get(key).sortBy())) {
+                evict(key);
+            }
+        }
+
+        Set<String> keys = keysByProduct.get(event.productId());
+        if (keys == null) {
+            return;
+        }
+        for (String key : new ArrayList<>(keys)) {
+            if (event.snapshot() == null || !patch(key, event.snapshot())) {
+                evict(key);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() == CategoryChangedEvent.Type.DELETED) {
+            // Deleting a category bulk-deletes its products.
+            generation++;
+            clear();
+        }
+    }
+
+    private boolean patch(String key, ProductDTO snapshot) {
+        ProductResponse page = cache.get(key, ProductResponse.class);
+        if (page == null) {
+            return false;
+        }
+        List<ProductDTO> items = new ArrayList<>(page.getItems().size());
+        for (ProductDTO item : page.getItems()) {
+            items.add(item.getId().equals(snapshot.getId()) ? snapshot : item);
+        }
+        cache.put(key, new ProductResponse(page.getItemsPerPage(), page.getCurrentPage(), page.getTotalItems(),
+                page.getTotalPages(), page.isLastPage(), items));
+        patched.increment();
+        return true;
+    }
+
+    private void evict(String key) {
+        cache.evict(key);
+        untrack(key);
+        evicted.increment();
+    }
+
+    // Events arrive asynchronously, so the key may have been cached again since; only a page that is
+    // really gone from the cache is untracked. containsKey does not count as a hit or miss.
+    private synchronized void onEntryGone(CacheEvent<?, ?> event) {
+        String key = (String) event.getKey();
+        if (pages.containsKey(key) && !nativeCache.containsKey(key)) {
+            untrack(key);
+        }
+    }
+
+    private void untrack(String key) {
+        TrackedPage page = pages.remove(key);
+        if (page == null) {
+            return;
+        }
+        for (Long productId : page.productIds()) {
+            Set<String> keys = keysByProduct.get(productId);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                keysByProduct.remove(productId);
+            }
+        }
+    }
+
+    private void clear() {
+        cache.clear();
+        pages.clear();
+        keysByProduct.clear();
+        cleared.increment();
+        logger.debug("Cleared all cached product pages");
+    }
+
+    private synchronized int trackedPages() {
+        return pages.size();
+    }
+
+    private record TrackedPage(String sortBy, List<Long> productIds) {
+    }
+
+    private static Counter invalidations(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("product.cache.invalidations")
+                .description("Product page cache invalidations by action")
+                .tag("cache", CACHE_NAME)
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+}
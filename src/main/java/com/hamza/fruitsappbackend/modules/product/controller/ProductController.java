@@ -2,19 +2,16 @@ package com.hamza.fruitsappbackend.modules.product.controller;
 import com.hamza.fruitsappbackend.constant.Strings;
 import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
 import com.hamza.fruitsappbackend.modules.product.dto.ProductResponse;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductSuggestionDTO;
 import com.hamza.fruitsappbackend.modules.product.service.ProductService;
 import com.hamza.fruitsappbackend.validation.markers.OnCreate;
 import com.hamza.fruitsappbackend.validation.markers.OnUpdate;
-import com.hamza.fruitsappbackend.websocket.WebSocketProductHandler;
-import jakarta.validation.Valid;
+import com.hamza.fruitsappbackend.websocket.ProductBroadcastHub;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,22 +20,19 @@ import java.util.Optional;
 public class ProductController {
 
     private final ProductService productService;
-    private final List<SseEmitter> emitters = new ArrayList<>();
-    private final WebSocketProductHandler webSocketProductHandler;
+    private final ProductBroadcastHub productBroadcastHub;
 
 
     @Autowired
-    public ProductController(ProductService productService, WebSocketProductHandler webSocketProductHandler) {
+    public ProductController(ProductService productService, ProductBroadcastHub productBroadcastHub) {
         this.productService = productService;
-        this.webSocketProductHandler = webSocketProductHandler;
+        this.productBroadcastHub = productBroadcastHub;
     }
 
     @PostMapping("/add")
     public ResponseEntity<ProductDTO> createProduct(@RequestHeader("Authorization") String token,
                                                     @RequestBody @Validated(OnCreate.class) ProductDTO productDTO) {
         ProductDTO savedProduct = productService.addProduct(productDTO, token);
-        sendProductUpdate(savedProduct);
-        webSocketProductHandler.sendProductUpdate(savedProduct);
         return ResponseEntity.ok(savedProduct);
     }
 
@@ -56,8 +50,13 @@ public class ProductController {
             @RequestParam(name = "minPrice", defaultValue = "0", required = false) double minPrice,
             @RequestParam(name = "maxPrice", defaultValue = "10000", required = false) double maxPrice,
             @RequestParam(name = "itemsPerPage", defaultValue = Strings.DEFAULT_PAGE_SIZE, required = false) int pageSize,
-            @RequestParam(name = "currentPage", defaultValue = Strings.DEFAULT_PAGE_NUMBER, required = false) int pageNumber) {
-        ProductResponse productResponse = productService.getProductsByPriceRange(token, minPrice, maxPrice, pageSize, pageNumber);
+            @RequestParam(name = "currentPage", defaultValue = Strings.DEFAULT_PAGE_NUMBER, required = false) int pageNumber,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "includeTotal", defaultValue = "false", required = false) boolean includeTotal) {
+        // Any cursor parameter (an empty one for the first page) switches to keyset pagination.
+        ProductResponse productResponse = cursor != null
+                ? productService.getProductsByPriceRangeByCursor(token, minPrice, maxPrice, pageSize, cursor, includeTotal)
+                : productService.getProductsByPriceRange(token, minPrice, maxPrice, pageSize, pageNumber);
         return ResponseEntity.ok(productResponse);
     }
 
@@ -76,8 +75,12 @@ public class ProductController {
             @RequestParam(name = "itemsPerPage", defaultValue = Strings.DEFAULT_PAGE_SIZE, required = false) int pageSize,
             @RequestParam(name = "currentPage", defaultValue = Strings.DEFAULT_PAGE_NUMBER, required = false) int pageNumber,
             @RequestParam(name = "sortBy", defaultValue = Strings.DEFAULT_SORT_FIELD, required = false) String sortBy,
-            @RequestParam(name = "sortDir", defaultValue = Strings.DEFAULT_SORT_DIRECTION, required = false) String sortDirection) {
-        ProductResponse products = productService.getAllProducts(token, pageSize, pageNumber, sortBy, sortDirection);
+            @RequestParam(name = "sortDir", defaultValue = Strings.DEFAULT_SORT_DIRECTION, required = false) String sortDirection,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "includeTotal", defaultValue = "false", required = false) boolean includeTotal) {
+        ProductResponse products = cursor != null
+                ? productService.getAllProductsByCursor(token, pageSize, sortBy, sortDirection, cursor, includeTotal)
+                : productService.getAllProducts(token, pageSize, pageNumber, sortBy, sortDirection);
         return ResponseEntity.ok(products);
     }
 
@@ -90,16 +93,12 @@ public class ProductController {
                                                     @RequestBody @Validated(OnUpdate.class) ProductDTO productDTO) {
         productDTO.setId(id);
         ProductDTO updatedProduct = productService.updateProduct(productDTO, token);
-        sendProductUpdate(updatedProduct);
-        webSocketProductHandler.sendProductUpdate(updatedProduct);
         return ResponseEntity.ok(updatedProduct);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProductById(@RequestHeader("Authorization") String token, @PathVariable Long id) {
         productService.deleteProductById(id, token);
-        sendProductUpdate(null);
-        webSocketProductHandler.sendProductUpdate(null);
         return ResponseEntity.noContent().build();
     }
 
@@ -111,38 +110,26 @@ public class ProductController {
 
 
     @GetMapping("/subscribe")
-    public SseEmitter subscribe() {
-        SseEmitter emitter = new SseEmitter(3600000L);
-        this.emitters.add(emitter);
-
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> emitters.remove(emitter));
-
-        return emitter;
+    public SseEmitter subscribe(@RequestParam(name = "topics", required = false) List<String> topics) {
+        return productBroadcastHub.subscribe(3600000L, topics);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductDTO>> searchProducts(
+    public ResponseEntity<ProductResponse> searchProducts(
             @RequestParam("keyword") String keyword,
-            @RequestHeader("Authorization") String token) {
+            @RequestHeader("Authorization") String token,
+            @RequestParam(name = "itemsPerPage", defaultValue = Strings.DEFAULT_PAGE_SIZE, required = false) int pageSize,
+            @RequestParam(name = "currentPage", defaultValue = Strings.DEFAULT_PAGE_NUMBER, required = false) int pageNumber) {
 
-        List<ProductDTO> productDTOs = productService.searchProducts(keyword, token);
-        return ResponseEntity.ok(productDTOs);
+        ProductResponse productResponse = productService.searchProducts(keyword, token, pageSize, pageNumber);
+        return ResponseEntity.ok(productResponse);
     }
 
-    private void sendProductUpdate(@Valid ProductDTO productDTO) {
-        List<SseEmitter> deadEmitters = new ArrayList<>();
-
-        for (SseEmitter emitter : emitters) {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("product-update")
-                        .data(productDTO, MediaType.APPLICATION_JSON));
-            } catch (IOException e) {
-                deadEmitters.add(emitter);
-            }
-        }
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggestProducts(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(name = "limit", defaultValue = "8", required = false) int limit) {
 
-        emitters.removeAll(deadEmitters);
+        return ResponseEntity.ok(productService.suggestProducts(prefix, limit));
     }
 }
@@ -68,6 +68,31 @@ public class ProductDTO {
     private Integer counterOneStars = 0;
 
 
+    public ProductDTO(ProductDTO other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.price = other.price;
+        this.quantityInCart = other.quantityInCart;
+        this.stockQuantity = other.stockQuantity;
+        this.imageUrl = other.imageUrl;
+        this.categoryId = other.categoryId;
+        this.productWeight = other.productWeight;
+        this.caloriesPer100Grams = other.caloriesPer100Grams;
+        this.expirationDate = other.expirationDate;
+        this.addedAt = other.addedAt;
+        this.isFavorite = other.isFavorite;
+        this.isInCart = other.isInCart;
+        this.orderCount = other.orderCount;
+        this.likeCount = other.likeCount;
+        this.totalRating = other.totalRating;
+        this.counterFiveStars = other.counterFiveStars;
+        this.counterFourStars = other.counterFourStars;
+        this.counterThreeStars = other.counterThreeStars;
+        this.counterTwoStars = other.counterTwoStars;
+        this.counterOneStars = other.counterOneStars;
+    }
+
     public void setIsInCart(boolean isInCart) {
         this.isInCart = isInCart;
         this.likeCount = isInCart ? likeCount + 1 : Math.max(likeCount - 1, 0);
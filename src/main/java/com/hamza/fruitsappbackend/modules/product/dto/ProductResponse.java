@@ -1,5 +1,6 @@
 package com.hamza.fruitsappbackend.modules.product.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,4 +17,12 @@ public class ProductResponse {
     private int totalPages;
     private boolean isLastPage;
     private List<ProductDTO> items;
+
+    // Only set in cursor mode; pass it back as the cursor parameter to fetch the next page.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public ProductResponse(int itemsPerPage, int currentPage, long totalItems, int totalPages, boolean isLastPage, List<ProductDTO> items) {
+        this(itemsPerPage, currentPage, totalItems, totalPages, isLastPage, items, null);
+    }
 }
@@ -0,0 +1,19 @@
+package com.hamza.fruitsappbackend.modules.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSuggestionDTO {
+
+    private String text;
+
+    private String type;
+
+    private Long id;
+}
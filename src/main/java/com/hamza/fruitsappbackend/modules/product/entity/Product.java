@@ -45,13 +45,14 @@ public class Product {
     @Column(nullable = false)
     private Double price;
 
-    @Column(name = "stock_quantity", nullable = false)
+    // Stock and order count are moved in SQL by ProductStockRepository, never by saving the entity
+    @Column(name = "stock_quantity", nullable = false, updatable = false)
     private Integer stockQuantity;
 
     @Column(name = "image_url", length = 1024)
     private String imageUrl;
 
-    @Column(name = "order_count", nullable = false)
+    @Column(name = "order_count", nullable = false, updatable = false)
     private Long orderCount = 0L;
 
     @Column(name = "product_weight", nullable = false)
@@ -69,22 +70,29 @@ public class Product {
     @Column(name = "expiration_date", nullable = false)
     private LocalDate expirationDate;
 
-    @Column(name = "total_rating", nullable = false)
+    // Rating aggregates are maintained in SQL by RatingAggregator, never by saving the entity
+    @Column(name = "total_rating", nullable = false, updatable = false)
     private Double totalRating = 0.0;
 
-    @Column(name = "counter_five_stars", nullable = false)
+    @Column(name = "rating_sum", nullable = false, updatable = false)
+    private double ratingSum = 0;
+
+    @Column(name = "rating_count", nullable = false, updatable = false)
+    private int ratingCount = 0;
+
+    @Column(name = "counter_five_stars", nullable = false, updatable = false)
     private int counterFiveStars = 0;
 
-    @Column(name = "counter_four_stars", nullable = false)
+    @Column(name = "counter_four_stars", nullable = false, updatable = false)
     private int counterFourStars = 0;
 
-    @Column(name = "counter_three_stars", nullable = false)
+    @Column(name = "counter_three_stars", nullable = false, updatable = false)
     private int counterThreeStars = 0;
 
-    @Column(name = "counter_two_stars", nullable = false)
+    @Column(name = "counter_two_stars", nullable = false, updatable = false)
     private int counterTwoStars = 0;
 
-    @Column(name = "counter_one_stars", nullable = false)
+    @Column(name = "counter_one_stars", nullable = false, updatable = false)
     private int counterOneStars = 0;
 
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -0,0 +1,16 @@
+package com.hamza.fruitsappbackend.modules.product.event;
+
+public record CategoryChangedEvent(Type type, Long categoryId, String name) {
+
+    public enum Type {
+        SAVED, DELETED
+    }
+
+    public static CategoryChangedEvent saved(Long categoryId, String name) {
+        return new CategoryChangedEvent(Type.SAVED, categoryId, name);
+    }
+
+    public static CategoryChangedEvent deleted(Long categoryId) {
+        return new CategoryChangedEvent(Type.DELETED, categoryId, null);
+    }
+}
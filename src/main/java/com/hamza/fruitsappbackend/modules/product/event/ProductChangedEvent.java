@@ -0,0 +1,67 @@
+package com.hamza.fruitsappbackend.modules.product.event;
+
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Published after product writes. The snapshot is the user-independent catalog view of the
+// product (its last state for deletions); it is null for bulk updates that did not reload the row.
+public record ProductChangedEvent(Type type, Long productId, ProductDTO snapshot, Set<String> changedProperties) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, ALL_DELETED
+    }
+
+    // Keyed by entity property name so they line up with the sortBy values used for paging.
+    private static final Map<String, Function<ProductDTO, Object>> PROPERTIES = new LinkedHashMap<>();
+
+    static {
+        PROPERTIES.put("name", ProductDTO::getName);
+        PROPERTIES.put("description", ProductDTO::getDescription);
+        PROPERTIES.put("price", ProductDTO::getPrice);
+        PROPERTIES.put("quantityInCart", ProductDTO::getQuantityInCart);
+        PROPERTIES.put("stockQuantity", ProductDTO::getStockQuantity);
+        PROPERTIES.put("imageUrl", ProductDTO::getImageUrl);
+        PROPERTIES.put("category", ProductDTO::getCategoryId);
+        PROPERTIES.put("productWeight", ProductDTO::getProductWeight);
+        PROPERTIES.put("caloriesPer100Grams", ProductDTO::getCaloriesPer100Grams);
+        PROPERTIES.put("expirationDate", ProductDTO::getExpirationDate);
+        PROPERTIES.put("createdAt", ProductDTO::getAddedAt);
+        PROPERTIES.put("orderCount", ProductDTO::getOrderCount);
+        PROPERTIES.put("totalRating", ProductDTO::getTotalRating);
+        PROPERTIES.put("counterFiveStars", ProductDTO::getCounterFiveStars);
+        PROPERTIES.put("counterFourStars", ProductDTO::getCounterFourStars);
+        PROPERTIES.put("counterThreeStars", ProductDTO::getCounterThreeStars);
+        PROPERTIES.put("counterTwoStars", ProductDTO::getCounterTwoStars);
+        PROPERTIES.put("counterOneStars", ProductDTO::getCounterOneStars);
+    }
+
+    public static ProductChangedEvent created(ProductDTO snapshot) {
+        return new ProductChangedEvent(Type.CREATED, snapshot.getId(), snapshot, PROPERTIES.keySet());
+    }
+
+    public static ProductChangedEvent updated(ProductDTO before, ProductDTO after) {
+        Set<String> changed = PROPERTIES.entrySet().stream()
+                .filter(property -> !Objects.equals(property.getValue().apply(before), property.getValue().apply(after)))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toUnmodifiableSet());
+        return new ProductChangedEvent(Type.UPDATED, after.getId(), after, changed);
+    }
+
+    public static ProductChangedEvent updated(Long productId, Set<String> changedProperties) {
+        return new ProductChangedEvent(Type.UPDATED, productId, null, Set.copyOf(changedProperties));
+    }
+
+    public static ProductChangedEvent deleted(ProductDTO snapshot) {
+        return new ProductChangedEvent(Type.DELETED, snapshot.getId(), snapshot, PROPERTIES.keySet());
+    }
+
+    public static ProductChangedEvent allDeleted() {
+        return new ProductChangedEvent(Type.ALL_DELETED, null, null, PROPERTIES.keySet());
+    }
+}
@@ -0,0 +1,18 @@
+package com.hamza.fruitsappbackend.modules.product.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.product.dto.CategoryDTO;
+import com.hamza.fruitsappbackend.modules.product.entity.Category;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MappingConfig.class)
+public interface CategoryMapper {
+
+    CategoryDTO toDto(Category category);
+
+    @Mapping(target = "products", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    Category toEntity(CategoryDTO categoryDTO);
+}
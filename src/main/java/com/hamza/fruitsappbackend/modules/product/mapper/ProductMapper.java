@@ -0,0 +1,22 @@
+package com.hamza.fruitsappbackend.modules.product.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MappingConfig.class)
+public interface ProductMapper {
+
+    // category.id is read from the proxy's identifier and never initializes the category.
+    @Mapping(target = "categoryId", source = "category.id")
+    @Mapping(target = "addedAt", source = "createdAt")
+    @Mapping(target = "quantityInCart", ignore = true)
+    @Mapping(target = "favorite", ignore = true)
+    @Mapping(target = "inCart", ignore = true)
+    @Mapping(target = "isFavorite", ignore = true)
+    @Mapping(target = "isInCart", ignore = true)
+    @Mapping(target = "likeCount", ignore = true)
+    ProductDTO toDto(Product product);
+}
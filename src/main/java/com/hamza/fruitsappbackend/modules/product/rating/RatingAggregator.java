@@ -0,0 +1,139 @@
+package com.hamza.fruitsappbackend.modules.product.rating;
+
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductRatingRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Keeps a product's rating aggregates up to date as reviews come and go, one atomic UPDATE per
+// review write instead of reloading every review of the product. A periodic reconciliation walks
+// the products in id chunks, finds those whose aggregates no longer match their reviews (bulk
+// deletes, writes that bypassed the aggregator, rows from before the running sum existed) and
+// recomputes just those. The walk runs on its own thread, so a large catalog never holds up the
+// other scheduled jobs sharing the scheduler thread.
+@Component
+public class RatingAggregator {
+
+    private static final Logger logger = LogManager.getLogger(RatingAggregator.class);
+
+    private static final String[] STAR_PROPERTIES = {
+            "counterOneStars", "counterTwoStars", "counterThreeStars", "counterFourStars", "counterFiveStars"
+    };
+
+    private static final Set<String> ALL_RATING_PROPERTIES = Set.of("totalRating",
+            "counterOneStars", "counterTwoStars", "counterThreeStars", "counterFourStars", "counterFiveStars");
+
+    private final ProductRatingRepository productRatingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter repaired;
+    private final int chunkSize;
+    private final ExecutorService executor;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+
+    @Autowired
+    public RatingAggregator(ProductRatingRepository productRatingRepository, ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.rating.reconcile.chunk-size:500}") int chunkSize) {
+        this.productRatingRepository = productRatingRepository;
+        this.eventPublisher = eventPublisher;
+        this.repaired = Counter.builder("product.rating.reconciled")
+                .description("Products whose rating aggregates had drifted and were recomputed")
+                .register(meterRegistry);
+        this.chunkSize = chunkSize;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rating-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void reviewAdded(Long productId, double rating) {
+        apply(productId, RatingDelta.added(rating));
+    }
+
+    public void reviewRemoved(Long productId, double rating) {
+        apply(productId, RatingDelta.removed(rating));
+    }
+
+    public void ratingChanged(Long productId, double oldRating, double newRating) {
+        apply(productId, RatingDelta.changed(oldRating, newRating));
+    }
+
+    // Full recompute of one product from its reviews, for writes whose ratings are not known
+    public void recompute(Long productId) {
+        productRatingRepository.recompute(productId);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(productId, ALL_RATING_PROPERTIES));
+    }
+
+    @Scheduled(initialDelayString = "${app.rating.reconcile.initial-delay-ms:600000}",
+            fixedDelayString = "${app.rating.reconcile.interval-ms:21600000}")
+    public void scheduleReconcile() {
+        if (reconciling.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    reconcile();
+                } catch (RuntimeException e) {
+                    logger.error("Rating reconciliation failed", e);
+                } finally {
+                    reconciling.set(false);
+                }
+            });
+        }
+    }
+
+    public void reconcile() {
+        int checked = 0;
+        int drifted = 0;
+        long afterId = 0;
+        List<Long> ids;
+        while (!(ids = productRatingRepository.findIdsAfter(afterId, chunkSize)).isEmpty()) {
+            long fromId = ids.get(0);
+            afterId = ids.get(ids.size() - 1);
+            for (Long productId : productRatingRepository.findDrifted(fromId, afterId)) {
+                recompute(productId);
+                drifted++;
+            }
+            checked += ids.size();
+        }
+        repaired.increment(drifted);
+        if (drifted > 0) {
+            logger.info("Recomputed rating aggregates of {} out of {} products", drifted, checked);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void apply(Long productId, RatingDelta delta) {
+        if (delta.isZero()) {
+            return;
+        }
+        productRatingRepository.apply(productId, delta);
+
+        Set<String> changed = new LinkedHashSet<>();
+        changed.add("totalRating");
+        for (int i = 0; i < STAR_PROPERTIES.length; i++) {
+            if (delta.starDeltas()[i] != 0) {
+                changed.add(STAR_PROPERTIES[i]);
+            }
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.updated(productId, changed));
+    }
+}
@@ -0,0 +1,44 @@
+package com.hamza.fruitsappbackend.modules.product.rating;
+
+// Change to a product's rating aggregates: running sum, review count and one counter per star
+// bucket (index 0 is one star). Ratings that are not whole stars only move the sum and count.
+public record RatingDelta(double sumDelta, int countDelta, int[] starDeltas) {
+
+    public static RatingDelta added(double rating) {
+        return new RatingDelta(rating, 1, bucket(rating, 1));
+    }
+
+    public static RatingDelta removed(double rating) {
+        return new RatingDelta(-rating, -1, bucket(rating, -1));
+    }
+
+    // A rating edit moves the review from one bucket to the other; the count stays the same.
+    public static RatingDelta changed(double oldRating, double newRating) {
+        int[] stars = bucket(newRating, 1);
+        int[] removed = bucket(oldRating, -1);
+        for (int i = 0; i < stars.length; i++) {
+            stars[i] += removed[i];
+        }
+        return new RatingDelta(newRating - oldRating, 0, stars);
+    }
+
+    public boolean isZero() {
+        if (sumDelta != 0 || countDelta != 0) {
+            return false;
+        }
+        for (int stars : starDeltas) {
+            if (stars != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] bucket(double rating, int delta) {
+        int[] stars = new int[5];
+        if (rating == Math.rint(rating) && rating >= 1 && rating <= 5) {
+            stars[(int) rating - 1] = delta;
+        }
+        return stars;
+    }
+}
@@ -0,0 +1,83 @@
+package com.hamza.fruitsappbackend.modules.product.repository;
+
+import com.hamza.fruitsappbackend.modules.product.rating.RatingDelta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+// Rating aggregates on products (running sum and count, average and star buckets) written with
+// plain SQL so concurrent reviews never read-modify-write the Product entity.
+@Repository
+public class ProductRatingRepository {
+
+    // total_rating comes first and only reads the old column values: MySQL evaluates SET
+    // assignments left to right against already-updated columns, standard SQL does not.
+    private static final String APPLY_SQL = "UPDATE products SET "
+            + "total_rating = CASE WHEN rating_count + ? > 0 THEN (rating_sum + ?) / (rating_count + ?) ELSE 0 END, "
+            + "rating_sum = rating_sum + ?, rating_count = rating_count + ?, "
+            + "counter_one_stars = counter_one_stars + ?, counter_two_stars = counter_two_stars + ?, "
+            + "counter_three_stars = counter_three_stars + ?, counter_four_stars = counter_four_stars + ?, "
+            + "counter_five_stars = counter_five_stars + ? WHERE id = ?";
+
+    private static final String RECOMPUTE_SQL = "UPDATE products SET "
+            + "total_rating = COALESCE((SELECT AVG(r.rating) FROM reviews r WHERE r.product_id = products.id), 0), "
+            + "rating_sum = COALESCE((SELECT SUM(r.rating) FROM reviews r WHERE r.product_id = products.id), 0), "
+            + "rating_count = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = products.id), "
+            + stars("counter_one_stars", 1) + ", " + stars("counter_two_stars", 2) + ", "
+            + stars("counter_three_stars", 3) + ", " + stars("counter_four_stars", 4) + ", "
+            + stars("counter_five_stars", 5) + " WHERE id = ?";
+
+    // Products of an id range whose stored aggregates disagree with their reviews
+    private static final String DRIFTED_SQL = "SELECT p.id FROM products p LEFT JOIN ("
+            + "SELECT product_id, COUNT(*) AS rating_count, SUM(rating) AS rating_sum, "
+            + "SUM(CASE WHEN rating = 1 THEN 1 ELSE 0 END) AS one_stars, "
+            + "SUM(CASE WHEN rating = 2 THEN 1 ELSE 0 END) AS two_stars, "
+            + "SUM(CASE WHEN rating = 3 THEN 1 ELSE 0 END) AS three_stars, "
+            + "SUM(CASE WHEN rating = 4 THEN 1 ELSE 0 END) AS four_stars, "
+            + "SUM(CASE WHEN rating = 5 THEN 1 ELSE 0 END) AS five_stars "
+            + "FROM reviews WHERE product_id >= ? AND product_id <= ? GROUP BY product_id) r ON r.product_id = p.id "
+            + "WHERE p.id >= ? AND p.id <= ? AND ("
+            + "p.rating_count <> COALESCE(r.rating_count, 0) "
+            + "OR ABS(p.rating_sum - COALESCE(r.rating_sum, 0)) > 0.000001 "
+            + "OR p.counter_one_stars <> COALESCE(r.one_stars, 0) "
+            + "OR p.counter_two_stars <> COALESCE(r.two_stars, 0) "
+            + "OR p.counter_three_stars <> COALESCE(r.three_stars, 0) "
+            + "OR p.counter_four_stars <> COALESCE(r.four_stars, 0) "
+            + "OR p.counter_five_stars <> COALESCE(r.five_stars, 0))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductRatingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int apply(Long productId, RatingDelta delta) {
+        int[] stars = delta.starDeltas();
+        return jdbcTemplate.update(APPLY_SQL,
+                delta.countDelta(), delta.sumDelta(), delta.countDelta(),
+                delta.sumDelta(), delta.countDelta(),
+                stars[0], stars[1], stars[2], stars[3], stars[4],
+                productId);
+    }
+
+    public int recompute(Long productId) {
+        return jdbcTemplate.update(RECOMPUTE_SQL, productId);
+    }
+
+    // The next chunk of product ids after afterId, in ascending order
+    public List<Long> findIdsAfter(long afterId, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM products WHERE id > ? ORDER BY id LIMIT ?",
+                Long.class, afterId, limit);
+    }
+
+    public List<Long> findDrifted(long fromId, long toId) {
+        return jdbcTemplate.queryForList(DRIFTED_SQL, Long.class, fromId, toId, fromId, toId);
+    }
+
+    private static String stars(String column, int stars) {
+        return column + " = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = products.id AND r.rating = " + stars + ")";
+    }
+}
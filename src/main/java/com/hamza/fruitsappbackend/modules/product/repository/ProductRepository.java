@@ -4,6 +4,7 @@ import com.hamza.fruitsappbackend.modules.product.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,15 +12,12 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
 
     List<Product> findByCategoryId(Long categoryId);
 
-    @Query("SELECT product FROM Product product WHERE LOWER(product.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Product> searchByName(String keyword);
-
-    @Query("SELECT product FROM Product product WHERE LOWER(product.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Product> searchByDescription(String keyword);
+    @Query("SELECT product FROM Product product LEFT JOIN FETCH product.category")
+    List<Product> findAllWithCategory();
 
 
     @Query("SELECT product FROM Product product WHERE product.price BETWEEN :minPrice AND :maxPrice")
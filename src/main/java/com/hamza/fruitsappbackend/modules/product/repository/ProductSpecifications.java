@@ -0,0 +1,33 @@
+package com.hamza.fruitsappbackend.modules.product.repository;
+
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> priceBetween(double minPrice, double maxPrice) {
+        return (root, query, cb) -> cb.between(root.get("price"), minPrice, maxPrice);
+    }
+
+    // Keyset predicate: rows strictly after (value, id) in the given direction. Ties on the sort
+    // key are broken by id, which is also the secondary sort.
+    public static <T extends Comparable<? super T>> Specification<Product> after(String sortBy, Sort.Direction direction, T value, Long id) {
+        return (root, query, cb) -> {
+            if (sortBy.equals("id")) {
+                return direction.isAscending() ? cb.greaterThan(root.get("id"), id) : cb.lessThan(root.get("id"), id);
+            }
+            if (direction.isAscending()) {
+                return cb.or(
+                        cb.greaterThan(root.get(sortBy), value),
+                        cb.and(cb.equal(root.get(sortBy), value), cb.greaterThan(root.get("id"), id)));
+            }
+            return cb.or(
+                    cb.lessThan(root.get(sortBy), value),
+                    cb.and(cb.equal(root.get(sortBy), value), cb.lessThan(root.get("id"), id)));
+        };
+    }
+}
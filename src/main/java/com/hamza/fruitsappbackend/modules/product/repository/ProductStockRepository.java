@@ -0,0 +1,79 @@
+package com.hamza.fruitsappbackend.modules.product.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+// Stock and order counters written with plain SQL so concurrent checkouts never read-modify-write
+// the Product entity. Rows are always touched in ascending id order to avoid lock-order deadlocks.
+@Repository
+public class ProductStockRepository {
+
+    private static final String RESERVE_SQL = "UPDATE products SET stock_quantity = stock_quantity - ?, "
+            + "order_count = order_count + 1 WHERE id = ? AND stock_quantity >= ?";
+
+    private static final String APPLY_SQL = "UPDATE products SET stock_quantity = GREATEST(stock_quantity - ?, 0), "
+            + "order_count = order_count + ? WHERE id = ?";
+
+    private static final String RELEASE_ORDERS_SQL = "UPDATE products SET order_count = order_count - ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductStockRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // One conditional decrement per product in a single batch; a 0 in the result means that
+    // product did not have enough stock and nothing was changed for it.
+    public int[] reserve(List<Map.Entry<Long, Integer>> quantities) {
+        return jdbcTemplate.batchUpdate(RESERVE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Map.Entry<Long, Integer> line = quantities.get(i);
+                statement.setInt(1, line.getValue());
+                statement.setLong(2, line.getKey());
+                statement.setInt(3, line.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return quantities.size();
+            }
+        });
+    }
+
+    // Write-behind of reservations already accepted in memory: quantity and order count per product.
+    public void apply(List<Map.Entry<Long, int[]>> deltas) {
+        jdbcTemplate.batchUpdate(APPLY_SQL, deltas, deltas.size(), (statement, delta) -> {
+            statement.setInt(1, delta.getValue()[0]);
+            statement.setInt(2, delta.getValue()[1]);
+            statement.setLong(3, delta.getKey());
+        });
+    }
+
+    // Cancelled, failed or returned orders: order count per product, in ascending product id order.
+    public void releaseOrders(List<Map.Entry<Long, Integer>> orderCounts) {
+        jdbcTemplate.batchUpdate(RELEASE_ORDERS_SQL, orderCounts, orderCounts.size(), (statement, line) -> {
+            statement.setInt(1, line.getValue());
+            statement.setLong(2, line.getKey());
+        });
+    }
+
+    // An admin setting the stock outright; the entity never writes this column.
+    public void setStockQuantity(Long productId, int stockQuantity) {
+        jdbcTemplate.update("UPDATE products SET stock_quantity = ? WHERE id = ?", stockQuantity, productId);
+    }
+
+    public Integer findStockQuantity(Long productId) {
+        List<Integer> stock = jdbcTemplate.queryForList(
+                "SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+        return stock.isEmpty() ? null : stock.get(0);
+    }
+}
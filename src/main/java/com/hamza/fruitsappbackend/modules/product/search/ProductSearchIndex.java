@@ -0,0 +1,319 @@
+package com.hamza.fruitsappbackend.modules.product.search;
+
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
+
+// In-memory inverted index over product name, description and category name. Fed by
+// ProductSearchListener, so search itself never hits the database.
+@Component
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double CATEGORY_WEIGHT = 2.0;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+
+    private static final double EXACT_MATCH = 1.0;
+    private static final double PREFIX_MATCH = 0.6;
+    private static final double FUZZY_MATCH = 0.4;
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, IndexedProduct> products = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Double>> productPostings = new TreeMap<>();
+    private final NavigableMap<String, Set<Long>> categoryPostings = new TreeMap<>();
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<Long, Set<Long>> productsByCategory = new HashMap<>();
+
+    public void rebuild(List<ProductDTO> snapshots, Map<Long, String> categories) {
+        lock.writeLock().lock();
+        try {
+            products.clear();
+            productPostings.clear();
+            categoryPostings.clear();
+            categoryNames.clear();
+            productsByCategory.clear();
+            categories.forEach(this::putCategory);
+            snapshots.forEach(this::putProduct);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public ProductSearchResult search(String query, int pageNumber, int pageSize) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return new ProductSearchResult(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Hit> hits = new HashMap<>();
+            for (String term : terms) {
+                // Best score per product for this term, so one term can't count twice for a product.
+                Map<Long, Double> termScores = new HashMap<>();
+                forEachMatch(productPostings, term, (postings, quality) ->
+                        postings.forEach((productId, weight) -> termScores.merge(productId, weight * quality, Math::max)));
+                forEachMatch(categoryPostings, term, (categoryIds, quality) -> {
+                    for (Long categoryId : categoryIds) {
+                        for (Long productId : productsByCategory.getOrDefault(categoryId, Set.of())) {
+                            termScores.merge(productId, CATEGORY_WEIGHT * quality, Math::max);
+                        }
+                    }
+                });
+                termScores.forEach((productId, score) -> hits.computeIfAbsent(productId, Hit::new).add(score));
+            }
+
+            List<Hit> ranked = new ArrayList<>(hits.values());
+            ranked.sort(Comparator.comparingInt(Hit::matchedTerms).reversed()
+                    .thenComparing(Comparator.comparingDouble(Hit::score).reversed())
+                    .thenComparing(hit -> -orderCount(hit.productId()))
+                    .thenComparing(Hit::productId));
+
+            int from = (int) Math.min((long) pageNumber * pageSize, ranked.size());
+            int to = Math.min(from + pageSize, ranked.size());
+            List<ProductDTO> items = new ArrayList<>(to - from);
+            for (Hit hit : ranked.subList(from, to)) {
+                items.add(products.get(hit.productId()).snapshot());
+            }
+            return new ProductSearchResult(items, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void upsert(ProductDTO snapshot) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(snapshot.getId());
+            putProduct(snapshot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeProduct(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAllProducts() {
+        lock.writeLock().lock();
+        try {
+            products.clear();
+            productPostings.clear();
+            productsByCategory.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void saveCategory(Long categoryId, String name) {
+        lock.writeLock().lock();
+        try {
+            removeCategory(categoryId);
+            putCategory(categoryId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Deleting a category bulk-deletes its products, so they leave the index with it.
+    public void deleteCategory(Long categoryId) {
+        lock.writeLock().lock();
+        try {
+            removeCategory(categoryId);
+            for (Long productId : new ArrayList<>(productsByCategory.getOrDefault(categoryId, Set.of()))) {
+                removeProduct(productId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putProduct(ProductDTO snapshot) {
+        Map<String, Double> tokenWeights = new HashMap<>();
+        for (String token : tokenize(snapshot.getName())) {
+            tokenWeights.merge(token, NAME_WEIGHT, Math::max);
+        }
+        for (String token : tokenize(snapshot.getDescription())) {
+            tokenWeights.merge(token, DESCRIPTION_WEIGHT, Math::max);
+        }
+        tokenWeights.forEach((token, weight) ->
+                productPostings.computeIfAbsent(token, t -> new HashMap<>()).put(snapshot.getId(), weight));
+        if (snapshot.getCategoryId() != null) {
+            productsByCategory.computeIfAbsent(snapshot.getCategoryId(), id -> new HashSet<>()).add(snapshot.getId());
+        }
+        products.put(snapshot.getId(), new IndexedProduct(snapshot, tokenWeights.keySet()));
+    }
+
+    private void removeProduct(Long productId) {
+        IndexedProduct indexed = products.remove(productId);
+        if (indexed == null) {
+            return;
+        }
+        for (String token : indexed.tokens()) {
+            Map<Long, Double> postings = productPostings.get(token);
+            if (postings != null && postings.remove(productId) != null && postings.isEmpty()) {
+                productPostings.remove(token);
+            }
+        }
+        Long categoryId = indexed.snapshot().getCategoryId();
+        if (categoryId != null) {
+            Set<Long> inCategory = productsByCategory.get(categoryId);
+            if (inCategory != null && inCategory.remove(productId) && inCategory.isEmpty()) {
+                productsByCategory.remove(categoryId);
+            }
+        }
+    }
+
+    private void putCategory(Long categoryId, String name) {
+        categoryNames.put(categoryId, name);
+        for (String token : tokenize(name)) {
+            categoryPostings.computeIfAbsent(token, t -> new HashSet<>()).add(categoryId);
+        }
+    }
+
+    private void removeCategory(Long categoryId) {
+        String name = categoryNames.remove(categoryId);
+        if (name == null) {
+            return;
+        }
+        for (String token : tokenize(name)) {
+            Set<Long> categoryIds = categoryPostings.get(token);
+            if (categoryIds != null && categoryIds.remove(categoryId) && categoryIds.isEmpty()) {
+                categoryPostings.remove(token);
+            }
+        }
+    }
+
+    // Exact token, then tokens the term is a prefix of, then tokens within a small edit distance.
+    // Typo candidates are limited to tokens sharing the first character to keep the scan short.
+    private static <V> void forEachMatch(NavigableMap<String, V> vocabulary, String term, BiConsumer<V, Double> consumer) {
+        V exact = vocabulary.get(term);
+        if (exact != null) {
+            consumer.accept(exact, EXACT_MATCH);
+        }
+
+        if (term.length() >= MIN_PREFIX_LENGTH) {
+            vocabulary.subMap(term, false, term + Character.MAX_VALUE, false)
+                    .values().forEach(value -> consumer.accept(value, PREFIX_MATCH));
+        }
+
+        int maxEdits = term.length() >= 8 ? 2 : term.length() >= 4 ? 1 : 0;
+        if (maxEdits == 0) {
+            return;
+        }
+        String first = term.substring(0, 1);
+        for (Map.Entry<String, V> entry : vocabulary.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+            String token = entry.getKey();
+            if (token.startsWith(term) || Math.abs(token.length() - term.length()) > maxEdits) {
+                continue;
+            }
+            if (editDistance(term, token, maxEdits) <= maxEdits) {
+                consumer.accept(entry.getValue(), FUZZY_MATCH);
+            }
+        }
+    }
+
+    // Optimal string alignment distance (Levenshtein plus adjacent transpositions), abandoned
+    // as soon as a whole row exceeds the allowed number of edits.
+    static int editDistance(String a, String b, int maxEdits) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private long orderCount(Long productId) {
+        Long orderCount = products.get(productId).snapshot().getOrderCount();
+        return orderCount == null ? 0 : orderCount;
+    }
+
+    private record IndexedProduct(ProductDTO snapshot, Set<String> tokens) {
+    }
+
+    private static final class Hit {
+        private final Long productId;
+        private double score;
+        private int matchedTerms;
+
+        private Hit(Long productId) {
+            this.productId = productId;
+        }
+
+        private void add(double termScore) {
+            score += termScore;
+            matchedTerms++;
+        }
+
+        private Long productId() {
+            return productId;
+        }
+
+        private double score() {
+            return score;
+        }
+
+        private int matchedTerms() {
+            return matchedTerms;
+        }
+    }
+}
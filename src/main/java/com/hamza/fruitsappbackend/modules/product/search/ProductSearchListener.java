@@ -0,0 +1,144 @@
+package com.hamza.fruitsappbackend.modules.product.search;
+
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.entity.Category;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.modules.product.event.CategoryChangedEvent;
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
+import com.hamza.fruitsappbackend.modules.product.repository.CategoryRepository;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
+import com.hamza.fruitsappbackend.modules.product.service.ProductCatalogService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Loads the catalog once at startup for both in-memory search structures and keeps them current
+// from change events. Updates without a snapshot only move counters (stock, order count, ratings),
+// never indexed text; their products are reloaded together, with one query per transaction.
+@Component
+public class ProductSearchListener {
+
+    private static final Logger logger = LogManager.getLogger(ProductSearchListener.class);
+
+    // Transaction resource key for the ids of products to reload after commit
+    private static final Object PENDING_RELOADS = new Object();
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductCatalogService productCatalogService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestTrie productSuggestTrie;
+
+    @Autowired
+    public ProductSearchListener(ProductRepository productRepository, CategoryRepository categoryRepository,
+                                 ProductCatalogService productCatalogService, ProductSearchIndex productSearchIndex,
+                                 ProductSuggestTrie productSuggestTrie) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productCatalogService = productCatalogService;
+        this.productSearchIndex = productSearchIndex;
+        this.productSuggestTrie = productSuggestTrie;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        Map<Long, String> categories = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categories.put(category.getId(), category.getName());
+        }
+        List<Product> all = productRepository.findAllWithCategory();
+        List<ProductDTO> snapshots = new ArrayList<>(all.size());
+        for (Product product : all) {
+            snapshots.add(productCatalogService.toCatalogDto(product));
+        }
+
+        productSearchIndex.rebuild(snapshots, categories);
+        productSuggestTrie.rebuild(snapshots, categories);
+        logger.info("Product search index and suggest trie built with {} products in {} ms",
+                snapshots.size(), System.currentTimeMillis() - startTime);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> {
+                if (event.snapshot() != null) {
+                    upsert(event.snapshot());
+                }
+            }
+            case DELETED -> {
+                productSearchIndex.remove(event.productId());
+                productSuggestTrie.remove(event.productId());
+            }
+            case ALL_DELETED -> {
+                productSearchIndex.removeAllProducts();
+                productSuggestTrie.removeAllProducts();
+            }
+        }
+    }
+
+    // Runs when the event is published, so the ids of one transaction can be gathered before it commits.
+    @EventListener
+    @SuppressWarnings("unchecked")
+    public void onCountersChanged(ProductChangedEvent event) {
+        if (event.type() != ProductChangedEvent.Type.UPDATED || event.snapshot() != null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload(Set.of(event.productId()));
+            return;
+        }
+        Set<Long> productIds = (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_RELOADS);
+        if (productIds == null) {
+            Set<Long> pending = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(PENDING_RELOADS, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_RELOADS);
+                    if (status == STATUS_COMMITTED) {
+                        reload(pending);
+                    }
+                }
+            });
+            productIds = pending;
+        }
+        productIds.add(event.productId());
+    }
+
+    private void reload(Set<Long> productIds) {
+        for (Product product : productRepository.findAllById(productIds)) {
+            upsert(productCatalogService.toCatalogDto(product));
+        }
+    }
+
+    private void upsert(ProductDTO snapshot) {
+        productSearchIndex.upsert(snapshot);
+        productSuggestTrie.upsert(snapshot);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.type() == CategoryChangedEvent.Type.SAVED) {
+            productSearchIndex.saveCategory(event.categoryId(), event.name());
+            productSuggestTrie.saveCategory(event.categoryId(), event.name());
+        } else {
+            productSearchIndex.deleteCategory(event.categoryId());
+            productSuggestTrie.deleteCategory(event.categoryId());
+        }
+    }
+}
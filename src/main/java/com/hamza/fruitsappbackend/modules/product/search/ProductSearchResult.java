@@ -0,0 +1,9 @@
+package com.hamza.fruitsappbackend.modules.product.search;
+
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+
+import java.util.List;
+
+// Items are the index's shared catalog snapshots; copy them before adding per-user data.
+public record ProductSearchResult(List<ProductDTO> items, long totalItems) {
+}
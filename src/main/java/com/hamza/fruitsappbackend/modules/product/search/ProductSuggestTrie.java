@@ -0,0 +1,396 @@
+package com.hamza.fruitsappbackend.modules.product.search;
+
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductSuggestionDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Prefix trie over product and category names for typeahead. Every name is inserted under its
+// full text and under each word start, so "apple" also finds "Red Apple". Nodes keep the best
+// weight in their subtree, which lets suggest() pull the top-k in weight order without walking
+// every completion. Children are sorted parallel arrays rather than maps to keep nodes small.
+@Component
+public class ProductSuggestTrie {
+
+    public static final String PRODUCT = "PRODUCT";
+    public static final String CATEGORY = "CATEGORY";
+
+    // One star of average rating counts as much as ten orders.
+    private static final long RATING_WEIGHT = 10;
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+    private final Map<Long, Entry> productEntries = new HashMap<>();
+    private final Map<Long, Long> productCategories = new HashMap<>();
+    private final Map<Long, Entry> categoryEntries = new HashMap<>();
+    private final Map<Long, String> categoryNames = new HashMap<>();
+    private final Map<Long, Long> categoryWeights = new HashMap<>();
+
+    public void rebuild(List<ProductDTO> snapshots, Map<Long, String> categories) {
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            productEntries.clear();
+            productCategories.clear();
+            categoryEntries.clear();
+            categoryNames.clear();
+            categoryWeights.clear();
+            categoryNames.putAll(categories);
+            for (ProductDTO snapshot : snapshots) {
+                putProduct(snapshot);
+            }
+            categories.keySet().forEach(this::refreshCategory);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+
+            // Best-first over the subtree: a node is expanded only once its maxWeight is the highest
+            // remaining, so the walk stops as soon as the k best distinct entries have been emitted.
+            PriorityQueue<Object> frontier = new PriorityQueue<>(ProductSuggestTrie::compareCandidates);
+            Set<Entry> emitted = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<ProductSuggestionDTO> suggestions = new ArrayList<>(limit);
+            frontier.add(node);
+            while (!frontier.isEmpty() && suggestions.size() < limit) {
+                Object next = frontier.poll();
+                if (next instanceof Entry entry) {
+                    if (emitted.add(entry)) {
+                        suggestions.add(new ProductSuggestionDTO(entry.text, entry.type, entry.id));
+                    }
+                } else {
+                    Node current = (Node) next;
+                    Collections.addAll(frontier, current.entries);
+                    Collections.addAll(frontier, current.children);
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void upsert(ProductDTO snapshot) {
+        lock.writeLock().lock();
+        try {
+            Long oldCategoryId = removeProduct(snapshot.getId());
+            putProduct(snapshot);
+            refreshCategory(oldCategoryId);
+            refreshCategory(snapshot.getCategoryId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            refreshCategory(removeProduct(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAllProducts() {
+        lock.writeLock().lock();
+        try {
+            for (Long productId : new ArrayList<>(productEntries.keySet())) {
+                removeProduct(productId);
+            }
+            for (Long categoryId : new ArrayList<>(categoryEntries.keySet())) {
+                refreshCategory(categoryId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void saveCategory(Long categoryId, String name) {
+        lock.writeLock().lock();
+        try {
+            categoryNames.put(categoryId, name);
+            refreshCategory(categoryId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Deleting a category bulk-deletes its products, so their suggestions go with it.
+    public void deleteCategory(Long categoryId) {
+        lock.writeLock().lock();
+        try {
+            List<Long> inCategory = new ArrayList<>();
+            productCategories.forEach((productId, productCategoryId) -> {
+                if (categoryId.equals(productCategoryId)) {
+                    inCategory.add(productId);
+                }
+            });
+            inCategory.forEach(this::removeProduct);
+            categoryNames.remove(categoryId);
+            categoryWeights.remove(categoryId);
+            Entry entry = categoryEntries.remove(categoryId);
+            if (entry != null) {
+                removeEntry(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putProduct(ProductDTO snapshot) {
+        long weight = weight(snapshot);
+        if (snapshot.getCategoryId() != null) {
+            productCategories.put(snapshot.getId(), snapshot.getCategoryId());
+            categoryWeights.merge(snapshot.getCategoryId(), weight, Long::sum);
+        }
+        Entry entry = new Entry(PRODUCT, snapshot.getId(), snapshot.getName(), weight);
+        productEntries.put(snapshot.getId(), entry);
+        insertEntry(entry);
+    }
+
+    // Returns the category the product was in, so the caller can re-weight it.
+    private Long removeProduct(Long productId) {
+        Entry entry = productEntries.remove(productId);
+        if (entry != null) {
+            removeEntry(entry);
+        }
+        Long categoryId = productCategories.remove(productId);
+        if (categoryId != null && entry != null) {
+            categoryWeights.computeIfPresent(categoryId, (id, weight) -> weight - entry.weight);
+        }
+        return categoryId;
+    }
+
+    // A category ranks by the combined weight of its products, so it is re-inserted whenever that changes.
+    private void refreshCategory(Long categoryId) {
+        if (categoryId == null) {
+            return;
+        }
+        String name = categoryNames.get(categoryId);
+        long weight = categoryWeights.getOrDefault(categoryId, 0L);
+        Entry current = categoryEntries.get(categoryId);
+        if (current != null && current.weight == weight && current.text.equals(name)) {
+            return;
+        }
+        if (current != null) {
+            categoryEntries.remove(categoryId);
+            removeEntry(current);
+        }
+        if (name != null && !name.isBlank()) {
+            Entry entry = new Entry(CATEGORY, categoryId, name, weight);
+            categoryEntries.put(categoryId, entry);
+            insertEntry(entry);
+        }
+    }
+
+    private void insertEntry(Entry entry) {
+        String text = normalize(entry.text);
+        for (int start : wordStarts(text)) {
+            Node node = root;
+            node.maxWeight = Math.max(node.maxWeight, entry.weight);
+            for (int i = start; i < text.length(); i++) {
+                node = node.childOrCreate(text.charAt(i));
+                node.maxWeight = Math.max(node.maxWeight, entry.weight);
+            }
+            node.addEntry(entry);
+        }
+    }
+
+    private void removeEntry(Entry entry) {
+        String text = normalize(entry.text);
+        for (int start : wordStarts(text)) {
+            removeKey(root, text, start, entry);
+        }
+    }
+
+    // Walks down the key, then on the way back recomputes maxWeight and drops nodes left empty.
+    private static boolean removeKey(Node node, String key, int index, Entry entry) {
+        if (index == key.length()) {
+            node.removeEntry(entry);
+        } else {
+            char label = key.charAt(index);
+            Node child = node.child(label);
+            if (child != null && removeKey(child, key, index + 1, entry)) {
+                node.removeChild(label);
+            }
+        }
+        node.recomputeMaxWeight();
+        return node.entries.length == 0 && node.children.length == 0;
+    }
+
+    private static int[] wordStarts(String text) {
+        int[] starts = new int[text.length()];
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (i == 0 || (!Character.isLetterOrDigit(text.charAt(i - 1)) && Character.isLetterOrDigit(text.charAt(i)))) {
+                starts[count++] = i;
+            }
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    static long weight(ProductDTO snapshot) {
+        long orderCount = snapshot.getOrderCount() == null ? 0 : snapshot.getOrderCount();
+        double totalRating = snapshot.getTotalRating() == null ? 0 : snapshot.getTotalRating();
+        return orderCount + Math.round(totalRating * RATING_WEIGHT);
+    }
+
+    private static long candidateWeight(Object candidate) {
+        return candidate instanceof Entry entry ? entry.weight : ((Node) candidate).maxWeight;
+    }
+
+    // Heavier first; on a tie an entry beats a node so finished suggestions are emitted before
+    // expanding further, and shorter texts beat longer ones.
+    private static int compareCandidates(Object left, Object right) {
+        int byWeight = Long.compare(candidateWeight(right), candidateWeight(left));
+        if (byWeight != 0) {
+            return byWeight;
+        }
+        if (left instanceof Entry leftEntry && right instanceof Entry rightEntry) {
+            int byLength = Integer.compare(leftEntry.text.length(), rightEntry.text.length());
+            return byLength != 0 ? byLength : leftEntry.text.compareTo(rightEntry.text);
+        }
+        return left instanceof Entry ? -1 : right instanceof Entry ? 1 : 0;
+    }
+
+    private static final class Entry {
+        private final String type;
+        private final Long id;
+        private final String text;
+        private final long weight;
+
+        private Entry(String type, Long id, String text, long weight) {
+            this.type = type;
+            this.id = id;
+            this.text = text;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private Entry[] entries = NO_ENTRIES;
+        private long maxWeight = Long.MIN_VALUE;
+
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            Node child = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = child;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return child;
+        }
+
+        private void removeChild(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index < 0) {
+                return;
+            }
+            if (labels.length == 1) {
+                labels = NO_LABELS;
+                children = NO_CHILDREN;
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(labels, index + 1, newLabels, index, labels.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        private void addEntry(Entry entry) {
+            for (Entry existing : entries) {
+                if (existing == entry) {
+                    return;
+                }
+            }
+            entries = Arrays.copyOf(entries, entries.length + 1);
+            entries[entries.length - 1] = entry;
+        }
+
+        private void removeEntry(Entry entry) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] == entry) {
+                    if (entries.length == 1) {
+                        entries = NO_ENTRIES;
+                    } else {
+                        Entry[] remaining = new Entry[entries.length - 1];
+                        System.arraycopy(entries, 0, remaining, 0, i);
+                        System.arraycopy(entries, i + 1, remaining, i, entries.length - i - 1);
+                        entries = remaining;
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void recomputeMaxWeight() {
+            long max = Long.MIN_VALUE;
+            for (Entry entry : entries) {
+                max = Math.max(max, entry.weight);
+            }
+            for (Node child : children) {
+                max = Math.max(max, child.maxWeight);
+            }
+            maxWeight = max;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.hamza.fruitsappbackend.modules.product.service;
+
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductResponse;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+
+// User-independent product read model. Per-user flags are applied on top by ProductService.
+public interface ProductCatalogService {
+
+    ProductResponse getCatalogPage(int pageSize, int pageNumber, String sortBy, String sortDirection);
+
+    ProductDTO toCatalogDto(Product product);
+}
@@ -2,6 +2,7 @@ package com.hamza.fruitsappbackend.modules.product.service;
 
 import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
 import com.hamza.fruitsappbackend.modules.product.dto.ProductResponse;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductSuggestionDTO;
 
 import java.util.List;
 import java.util.Optional;
@@ -24,7 +25,13 @@ public interface ProductService {
 
     void deleteAllProducts(String token);
 
-    List<ProductDTO> searchProducts(String keyword, String token);
+    ProductResponse searchProducts(String keyword, String token, int pageSize, int pageNumber);
+
+    List<ProductSuggestionDTO> suggestProducts(String prefix, int limit);
 
     ProductResponse getProductsByPriceRange(String token, double minPrice, double maxPrice, int pageSize, int pageNumber);
+
+    ProductResponse getAllProductsByCursor(String token, int pageSize, String sortBy, String sortDirection, String cursor, boolean includeTotal);
+
+    ProductResponse getProductsByPriceRangeByCursor(String token, double minPrice, double maxPrice, int pageSize, String cursor, boolean includeTotal);
 }
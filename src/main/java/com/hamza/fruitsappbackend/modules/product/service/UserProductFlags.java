@@ -0,0 +1,22 @@
+package com.hamza.fruitsappbackend.modules.product.service;
+
+import com.hamza.fruitsappbackend.utils.LongHashSet;
+
+public class UserProductFlags {
+
+    private final LongHashSet wishlistProductIds;
+    private final LongHashSet cartProductIds;
+
+    public UserProductFlags(LongHashSet wishlistProductIds, LongHashSet cartProductIds) {
+        this.wishlistProductIds = wishlistProductIds;
+        this.cartProductIds = cartProductIds;
+    }
+
+    public boolean isFavorite(Long productId) {
+        return wishlistProductIds.contains(productId);
+    }
+
+    public boolean isInCart(Long productId) {
+        return cartProductIds.contains(productId);
+    }
+}
@@ -0,0 +1,6 @@
+package com.hamza.fruitsappbackend.modules.product.service;
+
+public interface UserProductFlagsService {
+
+    UserProductFlags getFlagsForUser(Long userId);
+}
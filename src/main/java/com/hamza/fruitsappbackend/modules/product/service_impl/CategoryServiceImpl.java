@@ -2,13 +2,15 @@ package com.hamza.fruitsappbackend.modules.product.service_impl;
 
 import com.hamza.fruitsappbackend.modules.product.dto.CategoryDTO;
 import com.hamza.fruitsappbackend.modules.product.entity.Category;
+import com.hamza.fruitsappbackend.modules.product.event.CategoryChangedEvent;
 import com.hamza.fruitsappbackend.modules.product.exception.CategoryNotFoundException;
+import com.hamza.fruitsappbackend.modules.product.mapper.CategoryMapper;
 import com.hamza.fruitsappbackend.modules.product.repository.CategoryRepository;
 import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
 import com.hamza.fruitsappbackend.modules.product.service.CategoryService;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -20,37 +22,40 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final CategoryMapper categoryMapper;
     private final AuthorizationUtils authorizationUtils;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public CategoryServiceImpl(CategoryRepository categoryRepository, ProductRepository productRepository, ModelMapper modelMapper,
-                               AuthorizationUtils authorizationUtils) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, ProductRepository productRepository, CategoryMapper categoryMapper,
+                               AuthorizationUtils authorizationUtils, ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
-        this.modelMapper = modelMapper;
+        this.categoryMapper = categoryMapper;
         this.authorizationUtils = authorizationUtils;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public CategoryDTO saveCategory(CategoryDTO categoryDTO, String token) {
         authorizationUtils.checkAdminRole(token);
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         Category savedCategory = categoryRepository.save(category);
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        eventPublisher.publishEvent(CategoryChangedEvent.saved(savedCategory.getId(), savedCategory.getName()));
+        return categoryMapper.toDto(savedCategory);
     }
 
     @Override
     public CategoryDTO getCategoryById(Long id) {
         return categoryRepository.findById(id)
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
+                .map(categoryMapper::toDto)
                 .orElseThrow(() -> new CategoryNotFoundException("id", id.toString()));
     }
 
     @Override
     public List<CategoryDTO> getAllCategories() {
         return categoryRepository.findAll().stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
+                .map(categoryMapper::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -64,7 +69,8 @@ public class CategoryServiceImpl implements CategoryService {
         category.setDescription(categoryDTO.getDescription());
 
         Category updatedCategory = categoryRepository.save(category);
-        return modelMapper.map(updatedCategory, CategoryDTO.class);
+        eventPublisher.publishEvent(CategoryChangedEvent.saved(updatedCategory.getId(), updatedCategory.getName()));
+        return categoryMapper.toDto(updatedCategory);
     }
 
     @Override
@@ -81,5 +87,6 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(CategoryChangedEvent.deleted(id));
     }
 }
@@ -0,0 +1,71 @@
+package com.hamza.fruitsappbackend.modules.product.service_impl;
+
+import com.hamza.fruitsappbackend.modules.product.cache.ProductPageCache;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductResponse;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.modules.product.mapper.ProductMapper;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
+import com.hamza.fruitsappbackend.modules.product.service.ProductCatalogService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class ProductCatalogServiceImpl implements ProductCatalogService {
+
+    private static final Logger logger = LogManager.getLogger(ProductCatalogServiceImpl.class);
+
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final ProductPageCache productPageCache;
+
+    @Autowired
+    public ProductCatalogServiceImpl(ProductRepository productRepository, ProductMapper productMapper, ProductPageCache productPageCache) {
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.productPageCache = productPageCache;
+    }
+
+    @Override
+    public ProductResponse getCatalogPage(int pageSize, int pageNumber, String sortBy, String sortDirection) {
+        String key = ProductPageCache.key(pageSize, pageNumber, sortBy, sortDirection);
+        ProductResponse cached = productPageCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = productPageCache.currentGeneration();
+        Sort sort = sortDirection.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
+        Pageable pageable = PageRequest.of(pageNumber, pageSize, sort);
+        long startTime = System.currentTimeMillis();
+        Page<Product> productPage = productRepository.findAll(pageable);
+        long endTime = System.currentTimeMillis();
+        logger.info("Product retrieval query executed in: {} ms", endTime - startTime);
+        List<ProductDTO> content = productPage.getContent().stream()
+                .map(this::toCatalogDto).toList();
+
+        ProductResponse response = new ProductResponse(
+                productPage.getSize(),
+                productPage.getNumber(),
+                productPage.getTotalElements(),
+                productPage.getTotalPages(),
+                productPage.isLast(),
+                content
+        );
+        productPageCache.put(key, sortBy, response, generation);
+        return response;
+    }
+
+    @Override
+    public ProductDTO toCatalogDto(Product product) {
+        return productMapper.toDto(product);
+    }
+}
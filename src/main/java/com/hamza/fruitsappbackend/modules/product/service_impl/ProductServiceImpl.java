@@ -1,36 +1,50 @@
 package com.hamza.fruitsappbackend.modules.product.service_impl;
 
+import com.hamza.fruitsappbackend.exception.global.BadRequestException;
 import com.hamza.fruitsappbackend.modules.cart.repository.CartItemRepository;
 import com.hamza.fruitsappbackend.modules.cart.repository.CartRepository;
 import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
 import com.hamza.fruitsappbackend.modules.product.entity.Category;
 import com.hamza.fruitsappbackend.modules.product.entity.Product;
-import com.hamza.fruitsappbackend.modules.review.entity.Review;
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
 import com.hamza.fruitsappbackend.modules.product.exception.ProductNotFoundException;
 import com.hamza.fruitsappbackend.modules.product.exception.CategoryNotFoundException;
+import com.hamza.fruitsappbackend.modules.product.rating.RatingAggregator;
 import com.hamza.fruitsappbackend.modules.product.repository.CategoryRepository;
 import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductSpecifications;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductStockRepository;
+import com.hamza.fruitsappbackend.modules.product.search.ProductSearchIndex;
+import com.hamza.fruitsappbackend.modules.product.search.ProductSearchResult;
+import com.hamza.fruitsappbackend.modules.product.search.ProductSuggestTrie;
+import com.hamza.fruitsappbackend.modules.product.service.ProductCatalogService;
 import com.hamza.fruitsappbackend.modules.product.service.ProductService;
+import com.hamza.fruitsappbackend.modules.product.service.UserProductFlags;
+import com.hamza.fruitsappbackend.modules.product.service.UserProductFlagsService;
 import com.hamza.fruitsappbackend.modules.review.repository.ReviewRepository;
-import com.hamza.fruitsappbackend.modules.user.entity.User;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
+import com.hamza.fruitsappbackend.utils.CursorCodec;
 import com.hamza.fruitsappbackend.modules.product.dto.ProductResponse;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductSuggestionDTO;
 import com.hamza.fruitsappbackend.modules.wishlist.repository.WishlistRepository;
 import jakarta.transaction.Transactional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,88 +53,108 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ReviewRepository reviewRepository;
-    private final ModelMapper modelMapper;
     private final WishlistRepository wishlistRepository;
     private final CartItemRepository cartItemRepository;
     private final AuthorizationUtils authorizationUtils;
+    private final UserProductFlagsService userProductFlagsService;
+    private final ProductCatalogService productCatalogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestTrie productSuggestTrie;
+    private final RatingAggregator ratingAggregator;
+    private final ProductStockRepository productStockRepository;
+    private static final int MAX_SUGGESTIONS = 20;
+    // Sort keys backed by an index (primary key, idx_product_price, idx_product_total_rating, idx_product_created_at).
+    private static final Set<String> KEYSET_SORT_FIELDS = Set.of("id", "price", "totalRating", "createdAt");
     private static final Logger logger = LogManager.getLogger(ProductServiceImpl.class);
 
     @Autowired
     public ProductServiceImpl(ProductRepository productRepository, CategoryRepository categoryRepository,
-                              ReviewRepository reviewRepository, ModelMapper modelMapper, CartRepository cartRepository, WishlistRepository wishlistRepository,
-                              CartItemRepository cartItemRepository, AuthorizationUtils authorizationUtils) {
+                              ReviewRepository reviewRepository, CartRepository cartRepository, WishlistRepository wishlistRepository,
+                              CartItemRepository cartItemRepository, AuthorizationUtils authorizationUtils,
+                              UserProductFlagsService userProductFlagsService, ProductCatalogService productCatalogService,
+                              ApplicationEventPublisher eventPublisher, ProductSearchIndex productSearchIndex,
+                              ProductSuggestTrie productSuggestTrie, RatingAggregator ratingAggregator,
+                              ProductStockRepository productStockRepository) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.reviewRepository = reviewRepository;
-        this.modelMapper = modelMapper;
         this.wishlistRepository = wishlistRepository;
         this.cartItemRepository = cartItemRepository;
         this.authorizationUtils = authorizationUtils;
+        this.userProductFlagsService = userProductFlagsService;
+        this.productCatalogService = productCatalogService;
+        this.eventPublisher = eventPublisher;
+        this.productSearchIndex = productSearchIndex;
+        this.productSuggestTrie = productSuggestTrie;
+        this.ratingAggregator = ratingAggregator;
+        this.productStockRepository = productStockRepository;
     }
 
     @Override
-    @CacheEvict(value = "allProducts", allEntries = true)
     public ProductDTO addProduct(ProductDTO productDTO, String token) {
         authorizationUtils.checkAdminRole(token);
         Product product = convertToEntity(productDTO);
         setCategory(productDTO, product);
         Product savedProduct = productRepository.save(product);
-        return convertToDto(savedProduct, token);
+        eventPublisher.publishEvent(ProductChangedEvent.created(productCatalogService.toCatalogDto(savedProduct)));
+        return convertToDto(savedProduct, getFlags(token));
     }
 
     @Override
     public Optional<ProductDTO> getProductById(String token, Long id) {
         return productRepository.findById(id)
-                .map(p -> convertToDto(p, token));
+                .map(p -> convertToDto(p, getFlags(token)));
     }
 
     @Override
     public List<ProductDTO> getProductsByCategoryId(String token, Long categoryId) {
+        UserProductFlags flags = getFlags(token);
         return productRepository.findByCategoryId(categoryId).stream()
-                .map(p -> convertToDto(p, token)).collect(Collectors.toList());
+                .map(p -> convertToDto(p, flags)).collect(Collectors.toList());
     }
 
     @Override
-    @Cacheable(value = "allProducts", key = "T(String).valueOf(#pageSize) + '-' + T(String).valueOf(#pageNumber) + '-' + #sortBy + '-' + #sortDirection")
     public ProductResponse getAllProducts(String token, int pageSize, int pageNumber, String sortBy, String sortDirection) {
-        Sort sort = sortDirection.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.by(sortBy).ascending() : Sort.by(sortBy).descending();
-        Pageable pageable = PageRequest.of(pageNumber, pageSize, sort);
-        long startTime = System.currentTimeMillis();
-        Page<Product> productPage = productRepository.findAll(pageable);
-        long endTime = System.currentTimeMillis();
-        long executionTime = endTime - startTime;
-        logger.info("Product retrieval query executed in: {} ms", executionTime);
-        List<ProductDTO> content = productPage.getContent().stream()
-                .map(contentItem -> convertToDto(contentItem, token)).toList();
+        // The cached catalog page is shared by every user, so flags go onto copies of its items.
+        ProductResponse catalogPage = productCatalogService.getCatalogPage(pageSize, pageNumber, sortBy, sortDirection);
+        UserProductFlags flags = getFlags(token);
+        List<ProductDTO> content = catalogPage.getItems().stream()
+                .map(item -> applyFlags(new ProductDTO(item), flags)).toList();
 
         return new ProductResponse(
-                productPage.getSize(),
-                productPage.getNumber(),
-                productPage.getTotalElements(),
-                productPage.getTotalPages(),
-                productPage.isLast(),
+                catalogPage.getItemsPerPage(),
+                catalogPage.getCurrentPage(),
+                catalogPage.getTotalItems(),
+                catalogPage.getTotalPages(),
+                catalogPage.isLastPage(),
                 content
         );
     }
 
     @Override
-    @CacheEvict(value = "allProducts", allEntries = true)
+    @Transactional
     public ProductDTO updateProduct(ProductDTO productDTO, String token) {
         authorizationUtils.checkAdminRole(token);
         Product existingProduct = findProductById(productDTO.getId());
+        ProductDTO before = productCatalogService.toCatalogDto(existingProduct);
 
         updateProductDetails(productDTO, existingProduct);
         setCategory(productDTO, existingProduct);
         Product updatedProduct = productRepository.save(existingProduct);
-        return convertToDto(updatedProduct, token);
+        if (productDTO.getStockQuantity() != null) {
+            productStockRepository.setStockQuantity(updatedProduct.getId(), productDTO.getStockQuantity());
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, productCatalogService.toCatalogDto(updatedProduct)));
+        return convertToDto(updatedProduct, getFlags(token));
     }
 
     @Override
     @Transactional
-    @CacheEvict(value = "allProducts", allEntries = true)
     public void deleteProductById(Long id, String token) {
         authorizationUtils.checkAdminRole(token);
         Product product = findProductById(id);
+        ProductDTO snapshot = productCatalogService.toCatalogDto(product);
         if(!product.getCartItems().isEmpty()) {
             cartItemRepository.deleteAllByProductId(product.getId());
         }
@@ -131,6 +165,7 @@ public class ProductServiceImpl implements ProductService {
             wishlistRepository.deleteAllByProductId(product.getId());
         }
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(snapshot));
     }
 
     private void setCategory(ProductDTO productDTO, Product product) {
@@ -157,23 +192,17 @@ public class ProductServiceImpl implements ProductService {
         product.setExpirationDate(Optional.ofNullable(productDTO.getExpirationDate()).orElse(product.getExpirationDate()));
     }
 
-    private ProductDTO convertToDto(Product product, String token) {
-        ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
-
-        User user = authorizationUtils.getUserFromToken(token);
-
-        // Determine if the product is in the user's wishlist
-        boolean isFavorite = user.getWishlistItems().stream()
-                .anyMatch(wishlistItem -> wishlistItem.getProduct().getId().equals(product.getId()));
-        productDTO.setIsFavorite(isFavorite);
+    private UserProductFlags getFlags(String token) {
+        return userProductFlagsService.getFlagsForUser(authorizationUtils.getUserIdFromToken(token));
+    }
 
-        // Determine if the product is in the user's cart
-        boolean isInCart = user.getCarts().stream()
-                .flatMap(cart -> cart.getCartItems().stream())
-                .anyMatch(cartItem -> cartItem.getProduct().getId().equals(product.getId()));
-        productDTO.setIsInCart(isInCart);
+    private ProductDTO convertToDto(Product product, UserProductFlags flags) {
+        return applyFlags(productCatalogService.toCatalogDto(product), flags);
+    }
 
-        productDTO.setAddedAt(product.getCreatedAt());
+    private ProductDTO applyFlags(ProductDTO productDTO, UserProductFlags flags) {
+        productDTO.setIsFavorite(flags.isFavorite(productDTO.getId()));
+        productDTO.setIsInCart(flags.isInCart(productDTO.getId()));
         return productDTO;
     }
 
@@ -195,47 +224,47 @@ public class ProductServiceImpl implements ProductService {
     }
 
     public void updateProductTotalRating(Long productId) {
-        List<Review> reviews = reviewRepository.findByProductId(productId);
-
-        double totalRating = reviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        Product product = findProductById(productId);
-        product.setTotalRating(totalRating);
-        product.setCounterFiveStars((int) reviews.stream().filter(r -> r.getRating() == 5).count());
-        product.setCounterFourStars((int) reviews.stream().filter(r -> r.getRating() == 4).count());
-        product.setCounterThreeStars((int) reviews.stream().filter(r -> r.getRating() == 3).count());
-        product.setCounterTwoStars((int) reviews.stream().filter(r -> r.getRating() == 2).count());
-        product.setCounterOneStars((int) reviews.stream().filter(r -> r.getRating() == 1).count());
-        productRepository.save(product);
+        ratingAggregator.recompute(productId);
     }
 
     @Override
-    @CacheEvict(value = "allProducts", allEntries = true)
     public void deleteAllProducts(String token) {
         authorizationUtils.checkAdminRole(token);
         productRepository.deleteAll();
+        eventPublisher.publishEvent(ProductChangedEvent.allDeleted());
     }
 
     @Override
-    public List<ProductDTO> searchProducts(String keyword, String token) {
-        List<Product> products = productRepository.searchByName(keyword);
-
-        if (products.isEmpty()) {
-            products = productRepository.searchByDescription(keyword);
+    public ProductResponse searchProducts(String keyword, String token, int pageSize, int pageNumber) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("Page number must be 0 or greater");
         }
 
-        return products.stream()
-                .map(product -> convertToDto(product, token))
-                .collect(Collectors.toList());
+        ProductSearchResult result = productSearchIndex.search(keyword, pageNumber, pageSize);
+        UserProductFlags flags = getFlags(token);
+        List<ProductDTO> content = result.items().stream()
+                .map(item -> applyFlags(new ProductDTO(item), flags))
+                .toList();
+
+        int totalPages = (int) ((result.totalItems() + pageSize - 1) / pageSize);
+        return new ProductResponse(pageSize, pageNumber, result.totalItems(), totalPages, pageNumber >= totalPages - 1, content);
+    }
+
+    @Override
+    public List<ProductSuggestionDTO> suggestProducts(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than 0");
+        }
+        return productSuggestTrie.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
     }
 
     @Override
     public ProductResponse getProductsByPriceRange(String token, double minPrice, double maxPrice, int pageSize, int pageNumber) {
         // Check user authorization
-        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserFromToken(token).getId());
+        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserIdFromToken(token));
 
         // Validate pageSize and pageNumber to prevent out-of-bounds access
         if (pageSize <= 0) {
@@ -252,8 +281,9 @@ public class ProductServiceImpl implements ProductService {
         Page<Product> productPage = productRepository.findByPriceRange(minPrice, maxPrice, pageable);
 
         // Convert the retrieved products to DTOs
+        UserProductFlags flags = getFlags(token);
         List<ProductDTO> content = productPage.getContent().stream()
-                .map(product -> convertToDto(product, token))
+                .map(product -> convertToDto(product, flags))
                 .collect(Collectors.toList());
 
         // Construct and return the ProductResponse with pagination details
@@ -267,4 +297,79 @@ public class ProductServiceImpl implements ProductService {
         );
     }
 
+    @Override
+    public ProductResponse getAllProductsByCursor(String token, int pageSize, String sortBy, String sortDirection, String cursor, boolean includeTotal) {
+        if (!KEYSET_SORT_FIELDS.contains(sortBy)) {
+            throw new BadRequestException("Cursor pagination supports sorting by " + String.join(", ", KEYSET_SORT_FIELDS));
+        }
+        Sort.Direction direction = sortDirection.equalsIgnoreCase(Sort.Direction.ASC.name()) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return findByCursor(token, null, pageSize, sortBy, direction, cursor, includeTotal);
+    }
+
+    @Override
+    public ProductResponse getProductsByPriceRangeByCursor(String token, double minPrice, double maxPrice, int pageSize, String cursor, boolean includeTotal) {
+        authorizationUtils.checkUserOrAdminRole(token, authorizationUtils.getUserIdFromToken(token));
+        return findByCursor(token, ProductSpecifications.priceBetween(minPrice, maxPrice), pageSize, "price", Sort.Direction.ASC, cursor, includeTotal);
+    }
+
+    private ProductResponse findByCursor(String token, Specification<Product> filter, int pageSize, String sortBy,
+                                         Sort.Direction direction, String cursor, boolean includeTotal) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+
+        Specification<Product> specification = Specification.where(filter);
+        if (StringUtils.hasText(cursor)) {
+            specification = specification.and(decodeCursor(cursor, sortBy, direction));
+        }
+        Sort sort = sortBy.equals("id") ? Sort.by(direction, "id") : Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+
+        // One extra row tells us whether there is a next page without running a count query.
+        List<Product> rows = productRepository.findBy(specification, query -> query.sortBy(sort).limit(pageSize + 1).all());
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> products = hasMore ? rows.subList(0, pageSize) : rows;
+
+        UserProductFlags flags = getFlags(token);
+        List<ProductDTO> content = products.stream()
+                .map(product -> convertToDto(product, flags))
+                .toList();
+        String nextCursor = hasMore ? encodeCursor(products.get(products.size() - 1), sortBy, direction) : null;
+
+        // Totals are only computed on request; -1 means "not counted".
+        long totalItems = -1;
+        int totalPages = -1;
+        if (includeTotal) {
+            totalItems = productRepository.count(Specification.where(filter));
+            totalPages = (int) ((totalItems + pageSize - 1) / pageSize);
+        }
+
+        return new ProductResponse(pageSize, 0, totalItems, totalPages, !hasMore, content, nextCursor);
+    }
+
+    private String encodeCursor(Product last, String sortBy, Sort.Direction direction) {
+        Object value = switch (sortBy) {
+            case "price" -> last.getPrice();
+            case "totalRating" -> last.getTotalRating();
+            case "createdAt" -> last.getCreatedAt();
+            default -> last.getId();
+        };
+        return CursorCodec.encode(sortBy, direction.name(), String.valueOf(value), last.getId().toString());
+    }
+
+    private Specification<Product> decodeCursor(String cursor, String sortBy, Sort.Direction direction) {
+        String[] parts = CursorCodec.decode(cursor, 4);
+        if (!parts[0].equals(sortBy) || !parts[1].equals(direction.name())) {
+            throw new BadRequestException("Cursor does not match the requested sort order");
+        }
+        try {
+            Long id = Long.valueOf(parts[3]);
+            return switch (sortBy) {
+                case "price", "totalRating" -> ProductSpecifications.after(sortBy, direction, Double.valueOf(parts[2]), id);
+                case "createdAt" -> ProductSpecifications.after(sortBy, direction, LocalDateTime.parse(parts[2]), id);
+                default -> ProductSpecifications.after("id", direction, id, id);
+            };
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
 }
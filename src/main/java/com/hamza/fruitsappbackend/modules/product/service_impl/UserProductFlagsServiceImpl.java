@@ -0,0 +1,30 @@
+package com.hamza.fruitsappbackend.modules.product.service_impl;
+
+import com.hamza.fruitsappbackend.constant.CartStatus;
+import com.hamza.fruitsappbackend.modules.cart.repository.CartItemRepository;
+import com.hamza.fruitsappbackend.modules.product.service.UserProductFlags;
+import com.hamza.fruitsappbackend.modules.product.service.UserProductFlagsService;
+import com.hamza.fruitsappbackend.modules.wishlist.repository.WishlistRepository;
+import com.hamza.fruitsappbackend.utils.LongHashSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class UserProductFlagsServiceImpl implements UserProductFlagsService {
+
+    private final WishlistRepository wishlistRepository;
+    private final CartItemRepository cartItemRepository;
+
+    @Autowired
+    public UserProductFlagsServiceImpl(WishlistRepository wishlistRepository, CartItemRepository cartItemRepository) {
+        this.wishlistRepository = wishlistRepository;
+        this.cartItemRepository = cartItemRepository;
+    }
+
+    @Override
+    public UserProductFlags getFlagsForUser(Long userId) {
+        LongHashSet wishlistProductIds = LongHashSet.of(wishlistRepository.findProductIdsByUserId(userId));
+        LongHashSet cartProductIds = LongHashSet.of(cartItemRepository.findProductIdsByUserIdAndCartStatus(userId, CartStatus.ACTIVE));
+        return new UserProductFlags(wishlistProductIds, cartProductIds);
+    }
+}
@@ -0,0 +1,324 @@
+package com.hamza.fruitsappbackend.modules.product.stock;
+
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductStockRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// In-memory stock used when app.stock.ledger.enabled=true. Each product's available quantity is
+// split over a few CAS stripes so concurrent checkouts of the same product rarely touch the same
+// counter; committed reservations are written to the database in batches by flush().
+// Reservations accepted since the last flush are lost if the process dies before it runs.
+// A product's stock is reloaded from the database after it is edited; the reload subtracts every
+// unit not yet written back, including holds of checkouts still in flight.
+@Component
+public class StockLedger {
+
+    private static final Logger logger = LogManager.getLogger(StockLedger.class);
+
+    private static final int STRIPES = Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2));
+    private static final int TAKE_ATTEMPTS = 3;
+
+    private final ProductStockRepository productStockRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, Stock> stocks = new ConcurrentHashMap<>();
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Per product: units held or committed but not yet flushed (low 32 bits) and the epoch of the
+    // current Stock (high 32 bits, unique per Stock instance). Counting a hold and loading a new Stock both go through
+    // this one value, so a load either sees a hold or the hold is moved to the new Stock.
+    private final Map<Long, AtomicLong> reserved = new ConcurrentHashMap<>();
+    private final AtomicInteger epochs = new AtomicInteger();
+    // Held while loading a product and while flushing, so a load never sees the pending delta
+    // drained but not yet written.
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @Autowired
+    public StockLedger(ProductStockRepository productStockRepository, ApplicationEventPublisher eventPublisher) {
+        this.productStockRepository = productStockRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Takes every quantity or none; returns the id of the first product that ran short, or null.
+    Long reserve(Map<Long, Integer> quantities, List<Hold> holds) {
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Hold hold = hold(line.getKey(), line.getValue());
+            if (hold == null) {
+                release(holds);
+                holds.clear();
+                return line.getKey();
+            }
+            holds.add(hold);
+        }
+        return null;
+    }
+
+    private Hold hold(Long productId, int quantity) {
+        while (true) {
+            Stock stock = stock(productId);
+            if (stock == null || !stock.take(quantity)) {
+                return null;
+            }
+            if (count(productId, stock, quantity)) {
+                return new Hold(productId, quantity);
+            }
+            // The stock was reloaded while we took from it; the new one does not know about these units.
+            stock.give(quantity);
+        }
+    }
+
+    private boolean count(Long productId, Stock stock, int quantity) {
+        AtomicLong state = reserved(productId);
+        long current;
+        do {
+            current = state.get();
+            if (epoch(current) != stock.epoch) {
+                return false;
+            }
+        } while (!state.compareAndSet(current, current + quantity));
+        return true;
+    }
+
+    void commit(List<Hold> holds) {
+        for (Hold hold : holds) {
+            Pending delta = pending.computeIfAbsent(hold.productId(), id -> new Pending());
+            delta.quantity.addAndGet(hold.quantity());
+            delta.orders.incrementAndGet();
+        }
+    }
+
+    void release(List<Hold> holds) {
+        holds.forEach(this::release);
+    }
+
+    // The units go back to whichever Stock is current: it is either the one they were taken from or
+    // one loaded since, which subtracted them. Without a current Stock the next load will not
+    // subtract them once they are uncounted.
+    private void release(Hold hold) {
+        AtomicLong state = reserved.get(hold.productId());
+        if (state == null) {
+            return;
+        }
+        int givenAtEpoch = -1;
+        while (true) {
+            long current = state.get();
+            Stock stock = stocks.get(hold.productId());
+            if (stock != null && stock.epoch != epoch(current)) {
+                // A load has published its Stock but not yet its epoch.
+                Thread.onSpinWait();
+                continue;
+            }
+            if (stock != null && givenAtEpoch != stock.epoch) {
+                stock.give(hold.quantity());
+                givenAtEpoch = stock.epoch;
+            }
+            if (state.compareAndSet(current, current - hold.quantity())) {
+                return;
+            }
+        }
+    }
+
+    public int available(Long productId) {
+        Stock stock = stock(productId);
+        return stock == null ? 0 : stock.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.ledger.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, int[]>> deltas = new ArrayList<>();
+        flushLock.lock();
+        try {
+            for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+                int quantity = entry.getValue().quantity.getAndSet(0);
+                int orders = entry.getValue().orders.getAndSet(0);
+                if (quantity != 0 || orders != 0) {
+                    deltas.add(Map.entry(entry.getKey(), new int[]{quantity, orders}));
+                }
+            }
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                productStockRepository.apply(deltas);
+                for (Map.Entry<Long, int[]> delta : deltas) {
+                    AtomicLong state = reserved.get(delta.getKey());
+                    if (state != null) {
+                        state.addAndGet(-delta.getValue()[0]);
+                    }
+                }
+            } catch (RuntimeException e) {
+                for (Map.Entry<Long, int[]> delta : deltas) {
+                    Pending restored = pending.computeIfAbsent(delta.getKey(), id -> new Pending());
+                    restored.quantity.addAndGet(delta.getValue()[0]);
+                    restored.orders.addAndGet(delta.getValue()[1]);
+                }
+                logger.error("Stock write-behind of {} products failed, will retry", deltas.size(), e);
+                return;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        for (Map.Entry<Long, int[]> delta : deltas) {
+            eventPublisher.publishEvent(ProductChangedEvent.updated(delta.getKey(), Set.of("stockQuantity", "orderCount")));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Stock edited through the product API replaces the in-memory count on next use. Our own
+    // write-behind events carry no snapshot and are ignored.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        switch (event.type()) {
+            case UPDATED -> {
+                if (event.snapshot() != null && event.changedProperties().contains("stockQuantity")) {
+                    stocks.remove(event.productId());
+                }
+            }
+            case CREATED -> stocks.remove(event.productId());
+            case DELETED -> {
+                stocks.remove(event.productId());
+                pending.remove(event.productId());
+            }
+            case ALL_DELETED -> {
+                stocks.clear();
+                pending.clear();
+            }
+        }
+    }
+
+    private Stock stock(Long productId) {
+        Stock stock = stocks.get(productId);
+        if (stock != null) {
+            return stock;
+        }
+        flushLock.lock();
+        try {
+            stock = stocks.get(productId);
+            if (stock == null) {
+                Integer stored = productStockRepository.findStockQuantity(productId);
+                if (stored == null) {
+                    return null;
+                }
+                stock = load(productId, stored);
+            }
+            return stock;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // The Stock is published before its epoch, so holds counted against the old epoch in between
+    // make the CAS fail and the Stock is rebuilt from the new count.
+    private Stock load(Long productId, int stored) {
+        AtomicLong state = reserved(productId);
+        while (true) {
+            long current = state.get();
+            int epoch = epochs.incrementAndGet();
+            Stock stock = new Stock(stored - units(current), epoch);
+            stocks.put(productId, stock);
+            if (state.compareAndSet(current, ((long) epoch << 32) | units(current))) {
+                return stock;
+            }
+        }
+    }
+
+    private AtomicLong reserved(Long productId) {
+        return reserved.computeIfAbsent(productId, id -> new AtomicLong());
+    }
+
+    private static int epoch(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int units(long state) {
+        return (int) state;
+    }
+
+    record Hold(Long productId, int quantity) {
+    }
+
+    static final class Stock {
+
+        private final AtomicIntegerArray stripes = new AtomicIntegerArray(STRIPES);
+        private final int epoch;
+
+        Stock(int available, int epoch) {
+            this.epoch = epoch;
+            available = Math.max(available, 0);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes.set(i, available / STRIPES + (i < available % STRIPES ? 1 : 0));
+            }
+        }
+
+        // Drains stripes starting from a random one. Units picked up on a failed attempt are put
+        // back, so a concurrent buyer can briefly see too little; retrying while the total still
+        // covers the request keeps that from refusing the last units.
+        boolean take(int quantity) {
+            for (int attempt = 0; attempt < TAKE_ATTEMPTS; attempt++) {
+                int start = ThreadLocalRandom.current().nextInt(STRIPES);
+                int taken = 0;
+                for (int i = 0; i < STRIPES && taken < quantity; i++) {
+                    int index = (start + i) & (STRIPES - 1);
+                    int value;
+                    int part;
+                    do {
+                        value = stripes.get(index);
+                        part = Math.min(value, quantity - taken);
+                    } while (part > 0 && !stripes.compareAndSet(index, value, value - part));
+                    taken += part;
+                }
+                if (taken == quantity) {
+                    return true;
+                }
+                give(taken);
+                if (sum() < quantity) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        void give(int quantity) {
+            if (quantity > 0) {
+                stripes.addAndGet(ThreadLocalRandom.current().nextInt(STRIPES), quantity);
+            }
+        }
+
+        int sum() {
+            int sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += stripes.get(i);
+            }
+            return sum;
+        }
+    }
+
+    private static final class Pending {
+        private final AtomicInteger quantity = new AtomicInteger();
+        private final AtomicInteger orders = new AtomicInteger();
+    }
+}
@@ -0,0 +1,102 @@
+package com.hamza.fruitsappbackend.modules.product.stock;
+
+import com.hamza.fruitsappbackend.modules.cart.exception.InsufficientStockException;
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductStockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Takes stock for an order without loading or locking Product entities. By default every product
+// is decremented by a conditional UPDATE (stock_quantity >= quantity) sent as one JDBC batch, so
+// row locks are only held from that statement to commit. With app.stock.ledger.enabled the
+// quantities come from StockLedger instead and reach the database on its write-behind flush.
+@Component
+public class StockReservationEngine {
+
+    private final ProductStockRepository productStockRepository;
+    private final StockLedger stockLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter conflicts;
+    private final boolean ledgerEnabled;
+
+    @Autowired
+    public StockReservationEngine(ProductStockRepository productStockRepository, StockLedger stockLedger,
+                                  ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                                  @Value("${app.stock.ledger.enabled:false}") boolean ledgerEnabled) {
+        this.productStockRepository = productStockRepository;
+        this.stockLedger = stockLedger;
+        this.eventPublisher = eventPublisher;
+        this.conflicts = Counter.builder("product.stock.conflicts")
+                .description("Checkouts refused because a product did not have enough stock left")
+                .register(meterRegistry);
+        this.ledgerEnabled = ledgerEnabled;
+    }
+
+    // Reserves every quantity (product id -> units) or throws InsufficientStockException and
+    // leaves all stock untouched once the surrounding transaction rolls back.
+    @Transactional
+    public void reserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+        if (ordered.isEmpty()) {
+            return;
+        }
+        if (ledgerEnabled) {
+            reserveFromLedger(ordered);
+        } else {
+            reserveInDatabase(ordered);
+        }
+    }
+
+    private void reserveInDatabase(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        int[] updated = productStockRepository.reserve(lines);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw conflict(lines.get(i).getKey());
+            }
+        }
+        for (Long productId : quantities.keySet()) {
+            eventPublisher.publishEvent(ProductChangedEvent.updated(productId, Set.of("stockQuantity", "orderCount")));
+        }
+    }
+
+    private void reserveFromLedger(Map<Long, Integer> quantities) {
+        List<StockLedger.Hold> holds = new ArrayList<>(quantities.size());
+        Long shortProductId = stockLedger.reserve(quantities, holds);
+        if (shortProductId != null) {
+            throw conflict(shortProductId);
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stockLedger.commit(holds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    stockLedger.commit(holds);
+                } else {
+                    stockLedger.release(holds);
+                }
+            }
+        });
+    }
+
+    private InsufficientStockException conflict(Long productId) {
+        conflicts.increment();
+        return new InsufficientStockException("Insufficient stock for product with id: " + productId);
+    }
+}
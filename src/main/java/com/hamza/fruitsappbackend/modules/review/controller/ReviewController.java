@@ -1,5 +1,6 @@
 package com.hamza.fruitsappbackend.modules.review.controller;
 
+import com.hamza.fruitsappbackend.constant.Strings;
 import com.hamza.fruitsappbackend.modules.review.dto.ReviewDTO;
 import com.hamza.fruitsappbackend.modules.review.dto.ReviewsResponse;
 import com.hamza.fruitsappbackend.modules.review.service.ReviewService;
@@ -34,8 +35,16 @@ public class ReviewController {
     }
 
     @GetMapping("/product/{productId}")
-    public ResponseEntity<ReviewsResponse> getReviewsByProductId(@PathVariable Long productId, @RequestHeader("Authorization") String token) {
-        ReviewsResponse reviews = reviewService.getReviewsForProduct(productId, token);
+    public ResponseEntity<ReviewsResponse> getReviewsByProductId(
+            @PathVariable Long productId,
+            @RequestHeader("Authorization") String token,
+            @RequestParam(name = "itemsPerPage", defaultValue = Strings.DEFAULT_PAGE_SIZE, required = false) int pageSize,
+            @RequestParam(name = "sortBy", defaultValue = "createdAt", required = false) String sortBy,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        // Any cursor parameter (an empty one for the first page) switches to the paginated feed.
+        ReviewsResponse reviews = cursor != null
+                ? reviewService.getReviewsForProductByCursor(productId, token, pageSize, sortBy, cursor)
+                : reviewService.getReviewsForProduct(productId, token);
         return ResponseEntity.ok(reviews);
     }
 
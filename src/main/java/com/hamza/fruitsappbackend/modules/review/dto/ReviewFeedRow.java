@@ -0,0 +1,9 @@
+package com.hamza.fruitsappbackend.modules.review.dto;
+
+import java.time.LocalDateTime;
+
+// A review as the product feed shows it, with its author's name and image selected in the same
+// query. No User entity is loaded, so none of its eager associations are either.
+public record ReviewFeedRow(Long id, Long userId, String authorName, String authorImage, String comment,
+                            double rating, int likeCount, LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
@@ -1,5 +1,6 @@
 package com.hamza.fruitsappbackend.modules.review.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import java.util.List;
 @Getter
@@ -10,4 +11,8 @@ import java.util.List;
 public class ReviewsResponse {
     private AllReviewsCustomResponse userReview;
     private List<AllReviewsCustomResponse> otherReviews;
+
+    // Only set in cursor mode; pass it back as the cursor parameter to fetch the next page.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
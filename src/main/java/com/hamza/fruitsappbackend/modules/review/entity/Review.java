@@ -20,6 +20,8 @@ import java.util.List;
 @Table(name = "reviews", indexes = {
         @Index(name = "idx_user_id", columnList = "user_id"),
         @Index(name = "idx_product_id", columnList = "product_id"),
+        @Index(name = "idx_review_product_created", columnList = "product_id, created_at"),
+        @Index(name = "idx_review_product_likes", columnList = "product_id, like_count"),
         @Index(name = "idx_created_at", columnList = "created_at"),
         @Index(name = "idx_updated_at", columnList = "updated_at")
 }, uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "product_id"}))
@@ -35,7 +37,8 @@ public class Review {
     @Column(nullable = false)
     private String comment;
 
-    @Column(name = "like_count", nullable = false)
+    // Maintained in SQL by ReviewLikeCounter, never by saving the entity
+    @Column(name = "like_count", nullable = false, updatable = false)
     private int likeCount = 0;
 
     @Column(name = "created_at", nullable = false, updatable = false)
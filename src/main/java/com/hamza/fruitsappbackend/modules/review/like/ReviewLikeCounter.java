@@ -0,0 +1,113 @@
+package com.hamza.fruitsappbackend.modules.review.like;
+
+import com.hamza.fruitsappbackend.modules.review.repository.ReviewLikeCountRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Likes accepted since the last flush, one LongAdder per review so a viral review's likes are
+// spread over the adder's cells instead of all updating one counter (or one row). flush() moves
+// them to reviews.like_count with one batched UPDATE per interval; readers add pending(reviewId)
+// to the persisted count. Likes not yet flushed are lost if the process dies, the like rows
+// themselves are not.
+@Component
+public class ReviewLikeCounter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewLikeCounter.class);
+
+    private final ReviewLikeCountRepository reviewLikeCountRepository;
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    // Adders dropped by the previous flush because they were drained. A like that picked one up
+    // just before it was dropped still lands in it, so they are read once more on the next flush.
+    private List<Map.Entry<Long, LongAdder>> retired = List.of();
+
+    @Autowired
+    public ReviewLikeCounter(ReviewLikeCountRepository reviewLikeCountRepository) {
+        this.reviewLikeCountRepository = reviewLikeCountRepository;
+    }
+
+    // Counts the like once the transaction that inserted its row commits
+    public void liked(Long reviewId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment(reviewId, 1);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                increment(reviewId, 1);
+            }
+        });
+    }
+
+    public long pending(Long reviewId) {
+        LongAdder adder = pending.get(reviewId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public int withPending(Long reviewId, int persistedLikes) {
+        return (int) (persistedLikes + pending(reviewId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.review.likes.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<Map.Entry<Long, LongAdder>> sources = new ArrayList<>(retired);
+        List<Map.Entry<Long, LongAdder>> drained = new ArrayList<>();
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            if (entry.getValue().sum() == 0 && pending.remove(entry.getKey(), entry.getValue())) {
+                drained.add(Map.entry(entry.getKey(), entry.getValue()));
+            } else {
+                sources.add(entry);
+            }
+        }
+
+        Map<Long, Long> deltas = new TreeMap<>();
+        Map<LongAdder, Long> taken = new IdentityHashMap<>();
+        for (Map.Entry<Long, LongAdder> source : sources) {
+            long likes = source.getValue().sum();
+            if (likes != 0) {
+                taken.put(source.getValue(), likes);
+                deltas.merge(source.getKey(), likes, Long::sum);
+            }
+        }
+
+        if (!deltas.isEmpty()) {
+            try {
+                reviewLikeCountRepository.addLikes(new ArrayList<>(deltas.entrySet()));
+            } catch (RuntimeException e) {
+                // Nothing was taken out of the adders; keep the retired ones for the next attempt too.
+                drained.addAll(retired);
+                retired = drained;
+                logger.error("Flushing likes of {} reviews failed, will retry", deltas.size(), e);
+                return;
+            }
+            // Subtract what was written rather than sumThenReset, which can drop increments racing with it.
+            taken.forEach((adder, likes) -> adder.add(-likes));
+        }
+        retired = drained;
+    }
+
+    // The second pass picks up likes that landed in adders retired by the first.
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        flush();
+    }
+
+    private void increment(Long reviewId, long likes) {
+        pending.computeIfAbsent(reviewId, id -> new LongAdder()).add(likes);
+    }
+}
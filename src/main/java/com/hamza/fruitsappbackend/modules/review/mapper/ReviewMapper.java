@@ -0,0 +1,30 @@
+package com.hamza.fruitsappbackend.modules.review.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.review.dto.ReviewDTO;
+import com.hamza.fruitsappbackend.modules.review.dto.ReviewImageDto;
+import com.hamza.fruitsappbackend.modules.review.entity.Review;
+import com.hamza.fruitsappbackend.modules.review.entity.ReviewImage;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+@Mapper(config = MappingConfig.class)
+public interface ReviewMapper {
+
+    // Images are a lazy collection; callers that need them map them with toImageDtos.
+    @Mapping(target = "productId", source = "product.id")
+    @Mapping(target = "imageDtos", ignore = true)
+    ReviewDTO toDto(Review review);
+
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "product", ignore = true)
+    @Mapping(target = "likes", ignore = true)
+    @Mapping(target = "reviewImages", ignore = true)
+    Review toEntity(ReviewDTO reviewDTO);
+
+    ReviewImageDto toImageDto(ReviewImage reviewImage);
+
+    List<ReviewImageDto> toImageDtos(List<ReviewImage> reviewImages);
+}
@@ -0,0 +1,42 @@
+package com.hamza.fruitsappbackend.modules.review.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+
+// Review likes written with plain SQL: the like row is inserted without checking for it first and
+// like_count only ever moves by a delta, so concurrent likes neither lose updates nor read the row.
+@Repository
+public class ReviewLikeCountRepository {
+
+    private static final String ADD_LIKES_SQL = "UPDATE reviews SET like_count = like_count + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ReviewLikeCountRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // False when the user already liked the review (unique user_id, review_id)
+    public boolean insertLike(Long userId, Long reviewId) {
+        try {
+            return jdbcTemplate.update("INSERT INTO user_review_likes (user_id, review_id) VALUES (?, ?)",
+                    userId, reviewId) == 1;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // Deltas in ascending review id order, one batch, so concurrent flushes lock rows in the same order
+    public void addLikes(List<Map.Entry<Long, Long>> deltas) {
+        jdbcTemplate.batchUpdate(ADD_LIKES_SQL, deltas, deltas.size(), (statement, delta) -> {
+            statement.setLong(1, delta.getValue());
+            statement.setLong(2, delta.getKey());
+        });
+    }
+}
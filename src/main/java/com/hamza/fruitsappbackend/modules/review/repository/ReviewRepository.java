@@ -1,10 +1,18 @@
 package com.hamza.fruitsappbackend.modules.review.repository;
 import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.modules.review.dto.ReviewFeedRow;
 import com.hamza.fruitsappbackend.modules.review.entity.Review;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
@@ -17,4 +25,36 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     boolean existsByProductIdAndUserId(Long productId, Long userId);
 
     void deleteAllByProductId(Long id);
+
+    String FEED_ROW = "SELECT new com.hamza.fruitsappbackend.modules.review.dto.ReviewFeedRow(" +
+            "review.id, author.id, author.name, author.imageUrl, review.comment, review.rating, review.likeCount, " +
+            "review.createdAt, review.updatedAt) FROM Review review JOIN review.user author ";
+
+    // Review feed of a product, newest first, after the (createdAt, id) of the previous page's last review
+    @Query(FEED_ROW +
+            "WHERE review.product.id = :productId AND author.id <> :excludedUserId " +
+            "AND (review.createdAt < :createdAt OR (review.createdAt = :createdAt AND review.id < :id)) " +
+            "ORDER BY review.createdAt DESC, review.id DESC")
+    List<ReviewFeedRow> findFeedByCreatedAt(@Param("productId") Long productId, @Param("excludedUserId") Long excludedUserId,
+                                            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    // Review feed of a product, most liked first, after the (likeCount, id) of the previous page's last review
+    @Query(FEED_ROW +
+            "WHERE review.product.id = :productId AND author.id <> :excludedUserId " +
+            "AND (review.likeCount < :likeCount OR (review.likeCount = :likeCount AND review.id < :id)) " +
+            "ORDER BY review.likeCount DESC, review.id DESC")
+    List<ReviewFeedRow> findFeedByLikeCount(@Param("productId") Long productId, @Param("excludedUserId") Long excludedUserId,
+                                            @Param("likeCount") int likeCount, @Param("id") Long id, Limit limit);
+
+    @Query(FEED_ROW + "WHERE review.product.id = :productId")
+    List<ReviewFeedRow> findFeedByProductId(@Param("productId") Long productId);
+
+    @Query(FEED_ROW + "WHERE review.product.id = :productId AND author.id = :userId")
+    Optional<ReviewFeedRow> findFeedRowByProductIdAndUserId(@Param("productId") Long productId,
+                                                            @Param("userId") Long userId);
+
+    // The images of a page of feed rows, in one query. Kept apart from the feed queries: fetching a
+    // collection under a row limit is paged in memory.
+    @Query("SELECT DISTINCT review FROM Review review LEFT JOIN FETCH review.reviewImages WHERE review.id IN :ids")
+    List<Review> fetchImages(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
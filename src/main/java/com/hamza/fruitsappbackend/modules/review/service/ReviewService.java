@@ -15,6 +15,7 @@ public interface ReviewService {
     void deleteReviewById(Long id, String token);
     ReviewDTO likeReview(Long reviewId, String token);
     ReviewsResponse getReviewsForProduct(Long productId, String token);
+    ReviewsResponse getReviewsForProductByCursor(Long productId, String token, int pageSize, String sortBy, String cursor);
 
     void deleteReviewsByUserIdAndProductId(Long userId, Long productId, String token);
 }
@@ -3,68 +3,82 @@ package com.hamza.fruitsappbackend.modules.review.service_impl;
 import com.hamza.fruitsappbackend.exception.global.BadRequestException;
 import com.hamza.fruitsappbackend.modules.review.dto.AllReviewsCustomResponse;
 import com.hamza.fruitsappbackend.modules.review.dto.ReviewDTO;
+import com.hamza.fruitsappbackend.modules.review.dto.ReviewFeedRow;
 import com.hamza.fruitsappbackend.modules.review.dto.ReviewImageDto;
 import com.hamza.fruitsappbackend.modules.product.exception.ProductNotFoundException;
 import com.hamza.fruitsappbackend.modules.review.dto.ReviewsResponse;
 import com.hamza.fruitsappbackend.modules.review.exception.ReviewNotFoundException;
+import com.hamza.fruitsappbackend.modules.review.like.ReviewLikeCounter;
+import com.hamza.fruitsappbackend.modules.review.mapper.ReviewMapper;
 import com.hamza.fruitsappbackend.modules.product.entity.Product;
 import com.hamza.fruitsappbackend.modules.review.entity.Review;
 import com.hamza.fruitsappbackend.modules.review.entity.ReviewImage;
-import com.hamza.fruitsappbackend.modules.user.entity.UserReviewLike;
 import com.hamza.fruitsappbackend.modules.user.exception.UserNotFoundException;
+import com.hamza.fruitsappbackend.modules.product.rating.RatingAggregator;
 import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
+import com.hamza.fruitsappbackend.modules.review.repository.ReviewLikeCountRepository;
 import com.hamza.fruitsappbackend.modules.review.repository.ReviewRepository;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
-import com.hamza.fruitsappbackend.modules.user.repository.UserReviewLikeRepository;
-import com.hamza.fruitsappbackend.security.JwtTokenProvider;
 import com.hamza.fruitsappbackend.modules.product.service.ProductService;
 import com.hamza.fruitsappbackend.modules.review.service.ReviewService;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
+import com.hamza.fruitsappbackend.utils.CursorCodec;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ReviewServiceImpl implements ReviewService {
 
+    // Both backed by an index starting with product_id (idx_review_product_created, idx_review_product_likes).
+    private static final Set<String> FEED_SORT_FIELDS = Set.of("createdAt", "likeCount");
+
     private final ReviewRepository reviewRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
-    private final JwtTokenProvider jwtTokenProvider;
-    private final UserReviewLikeRepository userReviewLikeRepository;
+    private final ReviewMapper reviewMapper;
+    private final ReviewLikeCountRepository reviewLikeCountRepository;
+    private final ReviewLikeCounter reviewLikeCounter;
     private final ProductService productService;
     private final ProductRepository productRepository;
     private final AuthorizationUtils authorizationUtils;
+    private final RatingAggregator ratingAggregator;
 
     @Autowired
     public ReviewServiceImpl(ReviewRepository reviewRepository, UserRepository userRepository,
-                             ModelMapper modelMapper, JwtTokenProvider jwtTokenProvider,
-                             UserReviewLikeRepository userReviewLikeRepository, ProductService productService,
-                             ProductRepository productRepository, AuthorizationUtils authorizationUtils) {
+                             ReviewMapper reviewMapper,
+                             ReviewLikeCountRepository reviewLikeCountRepository, ReviewLikeCounter reviewLikeCounter,
+                             ProductService productService,
+                             ProductRepository productRepository, AuthorizationUtils authorizationUtils,
+                             RatingAggregator ratingAggregator) {
         this.reviewRepository = reviewRepository;
         this.userRepository = userRepository;
-        this.modelMapper = modelMapper;
-        this.jwtTokenProvider = jwtTokenProvider;
-        this.userReviewLikeRepository = userReviewLikeRepository;
+        this.reviewMapper = reviewMapper;
+        this.reviewLikeCountRepository = reviewLikeCountRepository;
+        this.reviewLikeCounter = reviewLikeCounter;
         this.productService = productService;
         this.productRepository = productRepository;
         this.authorizationUtils = authorizationUtils;
+        this.ratingAggregator = ratingAggregator;
     }
 
     @Override
+    @Transactional
     public ReviewDTO addReview(ReviewDTO reviewDTO, String token) {
-        String username = jwtTokenProvider.getUserNameFromToken(token);
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UserNotFoundException("email", username));
+        User user = authorizationUtils.getUserFromToken(token);
 
-        Review review = modelMapper.map(reviewDTO, Review.class);
+        Review review = reviewMapper.toEntity(reviewDTO);
 
         Product product = productRepository.findById(reviewDTO.getProductId())
                 .orElseThrow(() -> new ProductNotFoundException("product_id", reviewDTO.getProductId().toString()));
@@ -84,36 +98,33 @@ public class ReviewServiceImpl implements ReviewService {
         Review savedReview = reviewRepository.save(review);
 
 
-        productService.updateProductTotalRating(product.getId());
+        ratingAggregator.reviewAdded(product.getId(), savedReview.getRating());
 
 
-        ReviewDTO savedReviewDTO = modelMapper.map(savedReview, ReviewDTO.class);
-        List<ReviewImageDto> imageDtos = savedReview.getReviewImages().stream()
-                .map(image -> modelMapper.map(image, ReviewImageDto.class))
-                .collect(Collectors.toList());
-        savedReviewDTO.setImageDtos(imageDtos);
+        ReviewDTO savedReviewDTO = toDto(savedReview);
+        savedReviewDTO.setImageDtos(reviewMapper.toImageDtos(savedReview.getReviewImages()));
 
         return savedReviewDTO;
     }
 
     @Override
+    @Transactional
     public ReviewDTO updateReview(ReviewDTO reviewDTO, String token) {
         Review existingReview = reviewRepository.findById(reviewDTO.getId())
                 .orElseThrow(() -> new ReviewNotFoundException("id", reviewDTO.getId().toString()));
 
-        String username = jwtTokenProvider.getUserNameFromToken(token);
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new UserNotFoundException("email", username));
+        User user = authorizationUtils.getUserFromToken(token);
 
 
         authorizationUtils.checkUserOrAdminRole(token, user.getId());
 
-        if (!existingReview.getUser().equals(user) && user.getRoles().stream()
+        if (!existingReview.getUser().getId().equals(user.getId()) && user.getRoles().stream()
                 .noneMatch(role -> role.getName().equals("ROLE_ADMIN"))) {
             throw new AccessDeniedException("You do not have permission to update this review");
         }
 
 
+        double previousRating = existingReview.getRating();
         existingReview.setRating(reviewDTO.getRating());
         existingReview.setComment(reviewDTO.getComment());
 
@@ -129,84 +140,75 @@ public class ReviewServiceImpl implements ReviewService {
         Review updatedReview = reviewRepository.save(existingReview);
 
 
-        productService.updateProductTotalRating(updatedReview.getProduct().getId());
+        ratingAggregator.ratingChanged(updatedReview.getProduct().getId(), previousRating, updatedReview.getRating());
 
 
-        ReviewDTO updatedReviewDTO = modelMapper.map(updatedReview, ReviewDTO.class);
-        List<ReviewImageDto> imageDtos = updatedReview.getReviewImages().stream()
-                .map(image -> modelMapper.map(image, ReviewImageDto.class))
-                .collect(Collectors.toList());
-        updatedReviewDTO.setImageDtos(imageDtos);
+        ReviewDTO updatedReviewDTO = toDto(updatedReview);
+        updatedReviewDTO.setImageDtos(reviewMapper.toImageDtos(updatedReview.getReviewImages()));
         return updatedReviewDTO;
     }
 
     @Override
     public ReviewDTO getReviewById(Long id) {
         return reviewRepository.findById(id)
-                .map(review -> modelMapper.map(review, ReviewDTO.class))
+                .map(this::toDto)
                 .orElseThrow(() -> new ReviewNotFoundException("id", id.toString()));
     }
 
     @Override
     public List<ReviewDTO> getReviewsByProductId(Long productId) {
         return reviewRepository.findByProductId(productId).stream()
-                .map(review -> modelMapper.map(review, ReviewDTO.class))
+                .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<ReviewDTO> getReviewsByUserId(Long userId) {
         return reviewRepository.findByUserId(userId).stream()
-                .map(review -> modelMapper.map(review, ReviewDTO.class))
+                .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<ReviewDTO> getAllReviews() {
         return reviewRepository.findAll().stream()
-                .map(review -> modelMapper.map(review, ReviewDTO.class))
+                .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional
     public void deleteReviewById(Long id, String token) {
         Review review = reviewRepository.findById(id)
                 .orElseThrow(() -> new ReviewNotFoundException("id", id.toString()));
 
-        String username = jwtTokenProvider.getUserNameFromToken(token);
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new AccessDeniedException("User not found"));
+        User user = authorizationUtils.getUserFromToken(token);
 
         authorizationUtils.checkUserOrAdminRole(token, user.getId());
 
         reviewRepository.deleteById(id);
 
-        productService.updateProductTotalRating(review.getProduct().getId());
+        ratingAggregator.reviewRemoved(review.getProduct().getId(), review.getRating());
     }
 
+    // Liking twice is a no-op. The like row is inserted straight away; like_count catches up on
+    // ReviewLikeCounter's next flush, and responses add the pending likes in the meantime.
     @Override
+    @Transactional
     public ReviewDTO likeReview(Long reviewId, String token) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ReviewNotFoundException("id", reviewId.toString()));
 
-        String username = jwtTokenProvider.getUserNameFromToken(token);
-        User user = userRepository.findByEmail(username)
-                .orElseThrow(() -> new AccessDeniedException("User not found"));
-        authorizationUtils.checkUserOrAdminRole(token, user.getId());
-        userReviewLikeRepository.findByUserIdAndReviewId(user.getId(), reviewId)
-                .ifPresent(like -> {
-                    throw new IllegalStateException("User has already liked this review");
-                });
-
-        UserReviewLike like = new UserReviewLike();
-        like.setUser(user);
-        like.setReview(review);
-        userReviewLikeRepository.save(like);
-
-        review.setLikeCount(review.getLikeCount() + 1);
-        Review updatedReview = reviewRepository.save(review);
+        Long userId = authorizationUtils.getUserIdFromToken(token);
+        authorizationUtils.checkUserOrAdminRole(token, userId);
 
-        return modelMapper.map(updatedReview, ReviewDTO.class);
+        ReviewDTO reviewDTO = toDto(review);
+        if (reviewLikeCountRepository.insertLike(userId, reviewId)) {
+            reviewLikeCounter.liked(reviewId);
+            // Counted once the transaction commits, but already part of this response
+            reviewDTO.setLikeCount(reviewDTO.getLikeCount() + 1);
+        }
+        return reviewDTO;
     }
 
     @Override
@@ -218,6 +220,8 @@ public class ReviewServiceImpl implements ReviewService {
                 .orElseThrow(() -> new ProductNotFoundException("product_id", productId.toString()));
         authorizationUtils.checkUserOrAdminRole(token, user.getId());
         reviewRepository.deleteReviewByProductAndUser(product, user);
+        // The recompute is plain SQL and would not flush the pending delete by itself
+        reviewRepository.flush();
         productService.updateProductTotalRating(productId);
     }
 
@@ -231,26 +235,17 @@ public class ReviewServiceImpl implements ReviewService {
     }
 
     public ReviewsResponse getReviewsForProduct(Long productId, String token) {
-        User currentUser =  authorizationUtils.getUserFromToken(token);
-        String currentUsername = currentUser.getName();
-        authorizationUtils.checkUserOrAdminRole(token, currentUser.getId());
-        List<Review> allReviews = reviewRepository.findByProductId(productId);
+        Long currentUserId = authorizationUtils.getUserIdFromToken(token);
+        authorizationUtils.checkUserOrAdminRole(token, currentUserId);
+        List<ReviewFeedRow> allReviews = reviewRepository.findFeedByProductId(productId);
+        Map<Long, List<ReviewImage>> images = imagesOf(allReviews);
         AllReviewsCustomResponse userReview = null;
         List<AllReviewsCustomResponse> otherReviews = new ArrayList<>();
 
-        for (Review review : allReviews) {
-            AllReviewsCustomResponse response = AllReviewsCustomResponse.builder()
-                    .username(review.getUser().getName())
-                    .userImage(review.getUser().getImageUrl())
-                    .message(review.getComment())
-                    .totalLikes(review.getLikeCount())
-                    .rating((int) review.getRating())
-                    .reviewImages(review.getReviewImages())
-                    .createdAt(review.getCreatedAt())
-                    .updatedAt(review.getUpdatedAt())
-                    .build();
-
-            if (review.getUser().getName().equals(currentUsername)) {
+        for (ReviewFeedRow review : allReviews) {
+            AllReviewsCustomResponse response = toFeedItem(review, images.get(review.id()));
+
+            if (review.userId().equals(currentUserId)) {
                 userReview = response;
             } else {
                 otherReviews.add(response);
@@ -263,4 +258,97 @@ public class ReviewServiceImpl implements ReviewService {
                 .build();
     }
 
+    // One page of a product's reviews by other users, newest or most liked first. The page and its
+    // authors' names and images come from one keyset query, the review images from a second; the
+    // caller's own review is looked up by (product, user) and only returned with the first page.
+    @Override
+    @Transactional
+    public ReviewsResponse getReviewsForProductByCursor(Long productId, String token, int pageSize, String sortBy, String cursor) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+        if (!FEED_SORT_FIELDS.contains(sortBy)) {
+            throw new BadRequestException("Review feed supports sorting by " + String.join(", ", FEED_SORT_FIELDS));
+        }
+        Long currentUserId = authorizationUtils.getUserIdFromToken(token);
+        authorizationUtils.checkUserOrAdminRole(token, currentUserId);
+
+        boolean firstPage = !StringUtils.hasText(cursor);
+        FeedCursor after = firstPage ? FeedCursor.START : decodeFeedCursor(cursor, sortBy);
+        // One extra row tells us whether there is a next page without running a count query.
+        Limit limit = Limit.of(pageSize + 1);
+        List<ReviewFeedRow> rows = sortBy.equals("likeCount")
+                ? reviewRepository.findFeedByLikeCount(productId, currentUserId, after.likeCount(), after.id(), limit)
+                : reviewRepository.findFeedByCreatedAt(productId, currentUserId, after.createdAt(), after.id(), limit);
+        boolean hasMore = rows.size() > pageSize;
+        List<ReviewFeedRow> reviews = hasMore ? rows.subList(0, pageSize) : rows;
+
+        Map<Long, List<ReviewImage>> images = imagesOf(reviews);
+        List<AllReviewsCustomResponse> otherReviews = reviews.stream()
+                .map(review -> toFeedItem(review, images.get(review.id())))
+                .toList();
+        AllReviewsCustomResponse userReview = firstPage
+                ? reviewRepository.findFeedRowByProductIdAndUserId(productId, currentUserId)
+                        .map(review -> toFeedItem(review, imagesOf(List.of(review)).get(review.id())))
+                        .orElse(null)
+                : null;
+
+        return ReviewsResponse.builder()
+                .userReview(userReview)
+                .otherReviews(otherReviews)
+                .nextCursor(hasMore ? encodeFeedCursor(reviews.get(reviews.size() - 1), sortBy) : null)
+                .build();
+    }
+
+    private ReviewDTO toDto(Review review) {
+        ReviewDTO reviewDTO = reviewMapper.toDto(review);
+        reviewDTO.setLikeCount(reviewLikeCounter.withPending(review.getId(), review.getLikeCount()));
+        return reviewDTO;
+    }
+
+    private Map<Long, List<ReviewImage>> imagesOf(List<ReviewFeedRow> reviews) {
+        if (reviews.isEmpty()) {
+            return Map.of();
+        }
+        return reviewRepository.fetchImages(reviews.stream().map(ReviewFeedRow::id).toList()).stream()
+                .collect(Collectors.toMap(Review::getId, Review::getReviewImages));
+    }
+
+    private AllReviewsCustomResponse toFeedItem(ReviewFeedRow review, List<ReviewImage> images) {
+        return AllReviewsCustomResponse.builder()
+                .username(review.authorName())
+                .userImage(review.authorImage())
+                .message(review.comment())
+                .totalLikes(reviewLikeCounter.withPending(review.id(), review.likeCount()))
+                .rating((int) review.rating())
+                .reviewImages(images)
+                .createdAt(review.createdAt())
+                .updatedAt(review.updatedAt())
+                .build();
+    }
+
+    private String encodeFeedCursor(ReviewFeedRow last, String sortBy) {
+        String value = sortBy.equals("likeCount") ? String.valueOf(last.likeCount()) : last.createdAt().toString();
+        return CursorCodec.encode(sortBy, value, last.id().toString());
+    }
+
+    private FeedCursor decodeFeedCursor(String cursor, String sortBy) {
+        String[] parts = CursorCodec.decode(cursor, 3);
+        if (!parts[0].equals(sortBy)) {
+            throw new BadRequestException("Cursor does not match the requested sort order");
+        }
+        try {
+            Long id = Long.valueOf(parts[2]);
+            return sortBy.equals("likeCount")
+                    ? new FeedCursor(null, Integer.parseInt(parts[1]), id)
+                    : new FeedCursor(LocalDateTime.parse(parts[1]), 0, id);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    // Position after which the next page starts; START sorts after every stored review.
+    private record FeedCursor(LocalDateTime createdAt, int likeCount, Long id) {
+        private static final FeedCursor START = new FeedCursor(LocalDateTime.of(9999, 12, 31, 23, 59), Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
 }
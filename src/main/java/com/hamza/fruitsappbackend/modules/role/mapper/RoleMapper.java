@@ -0,0 +1,17 @@
+package com.hamza.fruitsappbackend.modules.role.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.role.dto.RoleDto;
+import com.hamza.fruitsappbackend.modules.role.entity.Role;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MappingConfig.class)
+public interface RoleMapper {
+
+    RoleDto toDto(Role role);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "users", ignore = true)
+    Role toEntity(RoleDto roleDto);
+}
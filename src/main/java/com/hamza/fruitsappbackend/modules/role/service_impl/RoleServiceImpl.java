@@ -6,13 +6,13 @@ import com.hamza.fruitsappbackend.modules.user.entity.User;
 import com.hamza.fruitsappbackend.exception.global.CustomResponseStatusException;
 import com.hamza.fruitsappbackend.modules.role.exception.RoleNotFoundException;
 import com.hamza.fruitsappbackend.modules.role.exception.RoleDeletionException;
+import com.hamza.fruitsappbackend.modules.role.mapper.RoleMapper;
 import com.hamza.fruitsappbackend.modules.role.repository.RoleRepository;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.modules.role.service.RoleService;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
@@ -25,7 +25,7 @@ public class RoleServiceImpl implements RoleService {
 
     private final RoleRepository roleRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final RoleMapper roleMapper;
     private final AuthorizationUtils authorizationUtils;
 
     @Override
@@ -35,7 +35,7 @@ public class RoleServiceImpl implements RoleService {
         authorizationUtils.checkAdminRole(token);
 
         // تحويل RoleDto إلى كيان Role
-        Role role = modelMapper.map(roleDto, Role.class);
+        Role role = roleMapper.toEntity(roleDto);
 
         // التحقق من وجود اسم الدور بالفعل
         if (roleRepository.existsByName("ROLE_" + role.getName().toUpperCase())) {
@@ -51,7 +51,7 @@ public class RoleServiceImpl implements RoleService {
             throw new CustomResponseStatusException("Duplicate role entry not allowed: " + role.getName());
         }
 
-        return modelMapper.map(role, RoleDto.class);
+        return roleMapper.toDto(role);
     }
 
     @Override
@@ -68,7 +68,7 @@ public class RoleServiceImpl implements RoleService {
 
         // حفظ التحديث
         Role updatedRole = roleRepository.save(existingRole);
-        return modelMapper.map(updatedRole, RoleDto.class);
+        return roleMapper.toDto(updatedRole);
     }
 
     @Override
@@ -94,13 +94,13 @@ public class RoleServiceImpl implements RoleService {
     public RoleDto getRoleById(Long id) {
         Role role = roleRepository.findById(id)
                 .orElseThrow(() -> new RoleNotFoundException("id", id.toString()));
-        return modelMapper.map(role, RoleDto.class);
+        return roleMapper.toDto(role);
     }
 
     @Override
     public List<RoleDto> getAllRoles() {
         return roleRepository.findAll().stream()
-                .map(role -> modelMapper.map(role, RoleDto.class))
+                .map(roleMapper::toDto)
                 .toList();
     }
 
@@ -112,7 +112,7 @@ public class RoleServiceImpl implements RoleService {
 
         Set<Role> roles = user.getRoles();
         return roles.stream()
-                .map(role -> modelMapper.map(role, RoleDto.class))
+                .map(roleMapper::toDto)
                 .toList();
     }
 }
@@ -15,7 +15,7 @@ import java.util.Date;
         @Index(name = "idx_otp", columnList = "otp"),
         @Index(name = "idx_expiration_time", columnList = "expirationTime"),
         @Index(name = "idx_user_id", columnList = "user_id")
-})
+}, uniqueConstraints = @UniqueConstraint(name = "uk_account_verification_otp", columnNames = "otp"))
 public class AccountVerification {
 
     @Id
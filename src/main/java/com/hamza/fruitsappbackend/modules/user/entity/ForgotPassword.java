@@ -11,6 +11,7 @@ import java.util.Date;
 @Getter
 @Setter
 @Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_forgot_password_otp", columnNames = "otp"))
 public class ForgotPassword {
 
     @Id
@@ -11,6 +11,7 @@ import java.util.Date;
 @Getter
 @Setter
 @Builder
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_reset_email_otp", columnNames = "otp"))
 public class ResetEmail {
 
     @Id
@@ -0,0 +1,248 @@
+package com.hamza.fruitsappbackend.modules.user.mail;
+
+import com.hamza.fruitsappbackend.constant.MailStatus;
+import com.hamza.fruitsappbackend.modules.user.entity.OutboxMail;
+import com.hamza.fruitsappbackend.modules.user.repository.OutboxMailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Delivers the mail outbox. Workers (at most app.mail.outbox.threads) claim due messages in
+// batches and send each batch over a single SMTP connection, so the handshake is paid once per
+// batch rather than once per message. A message that cannot be sent is retried with exponential
+// backoff until app.mail.outbox.max-attempts, then left FAILED. Workers start right after a
+// message is committed (wake) and on every poll, which also picks up retries and messages whose
+// claim expired because their instance went away mid-send; delivery is therefore at least once.
+@Component
+public class MailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailOutboxDispatcher.class);
+
+    private static final List<MailStatus> DUE_STATUSES = List.of(MailStatus.PENDING, MailStatus.SENDING);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final OutboxMailRepository outboxMailRepository;
+    private final JavaMailSender mailSender;
+    private final String from;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffInitialMillis;
+    private final long backoffMaxMillis;
+    private final long claimMillis;
+    private final ExecutorService executor;
+    private final Semaphore workers;
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer deliveryDelay;
+
+    @Autowired
+    public MailOutboxDispatcher(OutboxMailRepository outboxMailRepository, JavaMailSender mailSender,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.mail.from:hamza.damra@students.alquds.edu}") String from,
+                                @Value("${app.mail.outbox.threads:2}") int threads,
+                                @Value("${app.mail.outbox.batch-size:20}") int batchSize,
+                                @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${app.mail.outbox.backoff-initial-ms:30000}") long backoffInitialMillis,
+                                @Value("${app.mail.outbox.backoff-max-ms:3600000}") long backoffMaxMillis,
+                                @Value("${app.mail.outbox.claim-ms:300000}") long claimMillis) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailSender = mailSender;
+        this.from = from;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoffInitialMillis = backoffInitialMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+        this.claimMillis = claimMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mail-outbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers = new Semaphore(threads);
+        this.sent = messages(meterRegistry, "sent");
+        this.retried = messages(meterRegistry, "retried");
+        this.failed = messages(meterRegistry, "failed");
+        this.deliveryDelay = Timer.builder("mail.outbox.delivery.delay")
+                .description("Time from a message entering the outbox to its delivery")
+                .register(meterRegistry);
+        Gauge.builder("mail.outbox.pending", pending, AtomicLong::get)
+                .description("Messages waiting for delivery or a retry, as of the last poll")
+                .register(meterRegistry);
+    }
+
+    // Starts a worker unless all of them are busy; a busy worker keeps claiming until nothing is due.
+    public void wake() {
+        if (!workers.tryAcquire()) {
+            return;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            workers.release();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.mail.outbox.poll-interval-ms:10000}",
+            fixedDelayString = "${app.mail.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        pending.set(outboxMailRepository.countByStatus(MailStatus.PENDING));
+        wake();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void drain() {
+        try {
+            while (dispatchBatch()) {
+                // keep going while there is work
+            }
+        } catch (RuntimeException e) {
+            logger.error("Mail outbox dispatch failed", e);
+        } finally {
+            workers.release();
+        }
+    }
+
+    private boolean dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> due = outboxMailRepository.findDueIds(DUE_STATUSES, now, Limit.of(batchSize));
+        if (due.isEmpty()) {
+            return false;
+        }
+        String token = UUID.randomUUID().toString();
+        if (outboxMailRepository.claim(due, DUE_STATUSES, MailStatus.SENDING, token,
+                now.plus(Duration.ofMillis(claimMillis)), now) == 0) {
+            // another worker got there first and is sending them
+            return false;
+        }
+        send(outboxMailRepository.findAllByClaimToken(token), token);
+        return true;
+    }
+
+    private void send(List<OutboxMail> batch, String token) {
+        Map<Object, OutboxMail> byMessage = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (OutboxMail mail : batch) {
+            try {
+                MimeMessage message = toMimeMessage(mail);
+                byMessage.put(message, mail);
+                messages.add(message);
+            } catch (MessagingException e) {
+                // A message that cannot even be built will not do better on the next attempt
+                attemptFailed(mail, token, e, true);
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        try {
+            // JavaMailSenderImpl sends the whole array over one connected Transport
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages().isEmpty() ? allFailed(messages, e) : e.getFailedMessages();
+        } catch (MailException e) {
+            failures = allFailed(messages, e);
+        }
+
+        LocalDateTime sentAt = LocalDateTime.now();
+        List<Long> sentIds = new ArrayList<>();
+        for (MimeMessage message : messages) {
+            OutboxMail mail = byMessage.get(message);
+            Exception failure = failures.get(message);
+            if (failure == null) {
+                sentIds.add(mail.getId());
+                deliveryDelay.record(Duration.between(mail.getCreatedAt(), sentAt));
+            } else {
+                attemptFailed(mail, token, failure, false);
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            outboxMailRepository.markSent(sentIds, token, MailStatus.SENT, sentAt);
+            sent.increment(sentIds.size());
+        }
+    }
+
+    private void attemptFailed(OutboxMail mail, String token, Exception failure, boolean permanent) {
+        int attempts = mail.getAttempts() + 1;
+        String error = failure.getMessage() == null ? failure.getClass().getName() : failure.getMessage();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+        if (permanent || attempts >= maxAttempts) {
+            outboxMailRepository.markAttemptFailed(mail.getId(), token, MailStatus.FAILED, attempts,
+                    LocalDateTime.now(), error);
+            failed.increment();
+            logger.error("Giving up on email {} to {} after {} attempts: {}", mail.getId(), mail.getRecipient(), attempts, error);
+        } else {
+            outboxMailRepository.markAttemptFailed(mail.getId(), token, MailStatus.PENDING, attempts,
+                    LocalDateTime.now().plus(Duration.ofMillis(backoff(attempts))), error);
+            retried.increment();
+            logger.warn("Email {} to {} failed (attempt {}), retrying later: {}", mail.getId(), mail.getRecipient(), attempts, error);
+        }
+    }
+
+    // initial, 2 x initial, 4 x initial ... capped at the maximum
+    private long backoff(int attempts) {
+        return Math.min(backoffInitialMillis << Math.min(attempts - 1, 20), backoffMaxMillis);
+    }
+
+    private MimeMessage toMimeMessage(OutboxMail mail) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setTo(mail.getRecipient());
+        helper.setFrom(from);
+        helper.setSubject(mail.getSubject());
+        helper.setText(mail.getBody(), true);
+        return message;
+    }
+
+    private static Map<Object, Exception> allFailed(List<MimeMessage> messages, Exception failure) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        messages.forEach(message -> failures.put(message, failure));
+        return failures;
+    }
+
+    private static Counter messages(MeterRegistry meterRegistry, String status) {
+        return Counter.builder("mail.outbox.messages")
+                .description("Outbox delivery attempts by outcome: sent, retried later or failed for good")
+                .tag("status", status)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.hamza.fruitsappbackend.modules.user.mapper;
+
+import com.hamza.fruitsappbackend.configuration.MappingConfig;
+import com.hamza.fruitsappbackend.modules.role.mapper.RoleMapper;
+import com.hamza.fruitsappbackend.modules.user.dto.UserDTO;
+import com.hamza.fruitsappbackend.modules.user.entity.User;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper(config = MappingConfig.class, uses = RoleMapper.class)
+public interface UserMapper {
+
+    // Roles are fetched eagerly with the user; the other collections are lazy and left null
+    // (and omitted from the JSON) instead of loading the user's whole history.
+    @Mapping(target = "addresses", ignore = true)
+    @Mapping(target = "carts", ignore = true)
+    @Mapping(target = "orders", ignore = true)
+    @Mapping(target = "reviews", ignore = true)
+    UserDTO toDto(User user);
+
+    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "addresses", ignore = true)
+    @Mapping(target = "carts", ignore = true)
+    @Mapping(target = "orders", ignore = true)
+    @Mapping(target = "reviews", ignore = true)
+    @Mapping(target = "accountVerification", ignore = true)
+    @Mapping(target = "forgotPassword", ignore = true)
+    @Mapping(target = "likes", ignore = true)
+    @Mapping(target = "wishlistItems", ignore = true)
+    User toEntity(UserDTO userDTO);
+}
@@ -0,0 +1,367 @@
+package com.hamza.fruitsappbackend.modules.user.otp;
+
+import com.hamza.fruitsappbackend.exception.global.CustomResponseStatusException;
+import com.hamza.fruitsappbackend.modules.user.entity.AccountVerification;
+import com.hamza.fruitsappbackend.modules.user.entity.ForgotPassword;
+import com.hamza.fruitsappbackend.modules.user.entity.ResetEmail;
+import com.hamza.fruitsappbackend.modules.user.entity.User;
+import com.hamza.fruitsappbackend.modules.user.repository.AccountVerificationRepository;
+import com.hamza.fruitsappbackend.modules.user.repository.ForgotPasswordRepository;
+import com.hamza.fruitsappbackend.modules.user.repository.ResetEmailRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// One store for the codes of account verification, forgot-password and reset-email. Live codes
+// are kept in memory, indexed by code and by user for each purpose, so issuing or checking a code
+// never scans or joins a table, and a hashed timing wheel ticked every app.otp.tick-ms expires
+// them in O(1). A code is unique among the live codes of its purpose and a user's new code
+// replaces their previous one, so the code alone identifies the user.
+// With app.otp.write-through (the default) codes are also written to their tables as before, and
+// the tables are what counts: a unique key on the code keeps it unique across instances, a code
+// issued by another instance is found there, and a code is accepted only by deleting its row, so
+// it works once even across instances. Memory then only saves the lookup before that delete.
+@Component
+public class OtpEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(OtpEngine.class);
+
+    // Four digits, as the apps expect
+    private static final int MIN_CODE = 1000;
+    private static final int CODE_RANGE = 9000;
+
+    private final AccountVerificationRepository accountVerificationRepository;
+    private final ForgotPasswordRepository forgotPasswordRepository;
+    private final ResetEmailRepository resetEmailRepository;
+    private final long ttlMillis;
+    private final boolean writeThrough;
+    private final Map<OtpPurpose, Codes> codes = new EnumMap<>(OtpPurpose.class);
+    private final TimingWheel<Entry> wheel;
+    private final SecureRandom random = new SecureRandom();
+    private final Counter expired;
+
+    @Autowired
+    public OtpEngine(AccountVerificationRepository accountVerificationRepository,
+                     ForgotPasswordRepository forgotPasswordRepository, ResetEmailRepository resetEmailRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.otp.ttl-ms:3600000}") long ttlMillis,
+                     @Value("${app.otp.write-through:true}") boolean writeThrough,
+                     @Value("${app.otp.tick-ms:1000}") long tickMillis,
+                     @Value("${app.otp.wheel-size:4096}") int wheelSize) {
+        this.accountVerificationRepository = accountVerificationRepository;
+        this.forgotPasswordRepository = forgotPasswordRepository;
+        this.resetEmailRepository = resetEmailRepository;
+        this.ttlMillis = ttlMillis;
+        this.writeThrough = writeThrough;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        for (OtpPurpose purpose : OtpPurpose.values()) {
+            Codes store = new Codes();
+            codes.put(purpose, store);
+            Gauge.builder("otp.codes.active", store.byCode, Map::size)
+                    .description("Codes issued and not yet used or expired")
+                    .tag("purpose", purpose.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        this.expired = Counter.builder("otp.codes.expired")
+                .description("Codes that expired without being used")
+                .register(meterRegistry);
+    }
+
+    // Issues a new code for the user, replacing their previous one for the same purpose. Written
+    // through in the caller's transaction; memory only takes the code once that commits, until
+    // then the code is just reserved so this instance does not hand it out twice.
+    public int issue(OtpPurpose purpose, User user) {
+        Codes store = codes.get(purpose);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        int code = reserve(purpose, store);
+        Entry entry = new Entry(purpose, user.getId(), code, expiresAt);
+        try {
+            if (writeThrough) {
+                persist(purpose, user, code, new Date(expiresAt));
+            }
+        } catch (RuntimeException e) {
+            store.reserved.remove(code);
+            throw e;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        register(entry);
+                    }
+                    store.reserved.remove(code);
+                }
+            });
+        } else {
+            register(entry);
+            store.reserved.remove(code);
+        }
+        return code;
+    }
+
+    public Optional<Long> findUserId(OtpPurpose purpose, Integer otp) {
+        if (otp == null) {
+            return Optional.empty();
+        }
+        if (writeThrough) {
+            // Memory would not know a code that was used up or replaced on another instance
+            return findStoredUserId(purpose, otp);
+        }
+        Entry entry = codes.get(purpose).byCode.get(otp);
+        return entry != null && !entry.isExpired(System.currentTimeMillis())
+                ? Optional.of(entry.userId)
+                : Optional.empty();
+    }
+
+    // Uses up a code: returns its user the first time, empty afterwards or once it expired.
+    public Optional<Long> consume(OtpPurpose purpose, Integer otp) {
+        if (otp == null) {
+            return Optional.empty();
+        }
+        Codes store = codes.get(purpose);
+        Entry entry = store.byCode.get(otp);
+        if (entry != null && !entry.isExpired(System.currentTimeMillis()) && store.byCode.remove(otp, entry)) {
+            store.byUser.remove(entry.userId, entry);
+            cancel(entry);
+            if (writeThrough && deleteStored(purpose, entry.userId, otp) == 0) {
+                // Used on another instance, or replaced there by a newer code
+                return Optional.empty();
+            }
+            return Optional.of(entry.userId);
+        }
+        if (!writeThrough) {
+            return Optional.empty();
+        }
+        // Issued by another instance, or before this one started
+        return findStoredUserId(purpose, otp)
+                .filter(userId -> deleteStored(purpose, userId, otp) > 0);
+    }
+
+    @Scheduled(fixedRateString = "${app.otp.tick-ms:1000}")
+    public void expire() {
+        long now = System.currentTimeMillis();
+        Map<OtpPurpose, List<Long>> expiredUsers = new EnumMap<>(OtpPurpose.class);
+        wheel.advance(now, entry -> {
+            Codes store = codes.get(entry.purpose);
+            store.byCode.remove(entry.code, entry);
+            if (store.byUser.remove(entry.userId, entry)) {
+                expiredUsers.computeIfAbsent(entry.purpose, purpose -> new ArrayList<>()).add(entry.userId);
+                expired.increment();
+            }
+        });
+        if (writeThrough) {
+            // Only rows that are still expired, a row re-issued in the meantime has a later time
+            expiredUsers.forEach((purpose, userIds) -> deleteExpired(purpose, userIds, new Date(now)));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        if (!writeThrough) {
+            return;
+        }
+        Date now = new Date();
+        dropDuplicates();
+        int restored = 0;
+        for (AccountVerification row : accountVerificationRepository.findAllByExpirationTimeAfter(now)) {
+            restored += restore(OtpPurpose.ACCOUNT_VERIFICATION, row.getUser().getId(), row.getOtp(), row.getExpirationTime());
+        }
+        for (ForgotPassword row : forgotPasswordRepository.findAllByExpirationTimeAfter(now)) {
+            restored += restore(OtpPurpose.FORGOT_PASSWORD, row.getUser().getId(), row.getOtp(), row.getExpirationTime());
+        }
+        for (ResetEmail row : resetEmailRepository.findAllByExpirationTimeAfter(now)) {
+            restored += restore(OtpPurpose.RESET_EMAIL, row.getUser().getId(), row.getOtp(), row.getExpirationTime());
+        }
+        logger.info("Restored {} unexpired OTPs", restored);
+    }
+
+    private int restore(OtpPurpose purpose, Long userId, Integer otp, Date expirationTime) {
+        register(new Entry(purpose, userId, otp, expirationTime.getTime()));
+        return 1;
+    }
+
+    // A code shared by several rows (written before codes were unique) cannot tell its users
+    // apart, so those rows are dropped and their users have to ask for a new code. Once they are
+    // gone the unique keys can be created on the next start.
+    private void dropDuplicates() {
+        int dropped = 0;
+        List<Integer> duplicates = accountVerificationRepository.findDuplicateOtps();
+        if (!duplicates.isEmpty()) {
+            dropped += accountVerificationRepository.deleteByOtpIn(duplicates);
+        }
+        duplicates = forgotPasswordRepository.findDuplicateOtps();
+        if (!duplicates.isEmpty()) {
+            dropped += forgotPasswordRepository.deleteByOtpIn(duplicates);
+        }
+        duplicates = resetEmailRepository.findDuplicateOtps();
+        if (!duplicates.isEmpty()) {
+            dropped += resetEmailRepository.deleteByOtpIn(duplicates);
+        }
+        if (dropped > 0) {
+            logger.warn("Dropped {} OTPs whose code was shared with another user", dropped);
+        }
+    }
+
+    // Probes from a random code to the next free one, so allocation always succeeds while any of
+    // the codes is free; an expired code still waiting for its tick counts as free. With
+    // write-through a code must also be free in the table, where another instance may hold it.
+    private int reserve(OtpPurpose purpose, Codes store) {
+        long now = System.currentTimeMillis();
+        int start = random.nextInt(CODE_RANGE);
+        for (int i = 0; i < CODE_RANGE; i++) {
+            int code = MIN_CODE + (start + i) % CODE_RANGE;
+            Entry existing = store.byCode.get(code);
+            if ((existing != null && !existing.isExpired(now)) || !store.reserved.add(code)) {
+                continue;
+            }
+            if (writeThrough && !isFreeInStore(purpose, code, new Date(now))) {
+                store.reserved.remove(code);
+                continue;
+            }
+            return code;
+        }
+        throw new CustomResponseStatusException("No verification code is available right now, please try again shortly");
+    }
+
+    private void register(Entry entry) {
+        Codes store = codes.get(entry.purpose);
+        entry.timeout = wheel.schedule(entry, entry.expiresAtMillis);
+        // Whatever held the code here had expired, or it would not have been issued again
+        Entry existing = store.byCode.put(entry.code, entry);
+        if (existing != null) {
+            store.byUser.remove(existing.userId, existing);
+            cancel(existing);
+        }
+        Entry previous = store.byUser.put(entry.userId, entry);
+        if (previous != null && previous != existing) {
+            store.byCode.remove(previous.code, previous);
+            cancel(previous);
+        }
+    }
+
+    private void cancel(Entry entry) {
+        TimingWheel.Timeout<Entry> timeout = entry.timeout;
+        if (timeout != null) {
+            wheel.cancel(timeout);
+        }
+    }
+
+    private void persist(OtpPurpose purpose, User user, int otp, Date expirationTime) {
+        switch (purpose) {
+            case ACCOUNT_VERIFICATION -> accountVerificationRepository.save(accountVerificationRepository.findByUser(user)
+                    .map(existing -> {
+                        existing.setOtp(otp);
+                        existing.setExpirationTime(expirationTime);
+                        return existing;
+                    })
+                    .orElseGet(() -> AccountVerification.builder().user(user).otp(otp).expirationTime(expirationTime).build()));
+            case FORGOT_PASSWORD -> forgotPasswordRepository.save(forgotPasswordRepository.findByUser(user)
+                    .map(existing -> {
+                        existing.setOtp(otp);
+                        existing.setExpirationTime(expirationTime);
+                        return existing;
+                    })
+                    .orElseGet(() -> ForgotPassword.builder().user(user).otp(otp).expirationTime(expirationTime).build()));
+            case RESET_EMAIL -> resetEmailRepository.save(resetEmailRepository.findByUser(user)
+                    .map(existing -> {
+                        existing.setOtp(otp);
+                        existing.setExpirationTime(expirationTime);
+                        return existing;
+                    })
+                    .orElseGet(() -> ResetEmail.builder().user(user).otp(otp).expirationTime(expirationTime).build()));
+        }
+    }
+
+    // Frees the code if only an expired row still holds it, then checks no live row does
+    private boolean isFreeInStore(OtpPurpose purpose, int otp, Date now) {
+        switch (purpose) {
+            case ACCOUNT_VERIFICATION -> {
+                accountVerificationRepository.deleteExpiredByOtp(otp, now);
+                return !accountVerificationRepository.existsByOtpAndExpirationTimeAfter(otp, now);
+            }
+            case FORGOT_PASSWORD -> {
+                forgotPasswordRepository.deleteExpiredByOtp(otp, now);
+                return !forgotPasswordRepository.existsByOtpAndExpirationTimeAfter(otp, now);
+            }
+            default -> {
+                resetEmailRepository.deleteExpiredByOtp(otp, now);
+                return !resetEmailRepository.existsByOtpAndExpirationTimeAfter(otp, now);
+            }
+        }
+    }
+
+    private Optional<Long> findStoredUserId(OtpPurpose purpose, Integer otp) {
+        Date now = new Date();
+        return switch (purpose) {
+            case ACCOUNT_VERIFICATION -> accountVerificationRepository.findByOtpAndExpirationTimeAfter(otp, now)
+                    .map(row -> row.getUser().getId());
+            case FORGOT_PASSWORD -> forgotPasswordRepository.findByOtpAndExpirationTimeAfter(otp, now)
+                    .map(row -> row.getUser().getId());
+            case RESET_EMAIL -> resetEmailRepository.findByOtpAndExpirationTimeAfter(otp, now)
+                    .map(row -> row.getUser().getId());
+        };
+    }
+
+    private int deleteStored(OtpPurpose purpose, Long userId, Integer otp) {
+        return switch (purpose) {
+            case ACCOUNT_VERIFICATION -> accountVerificationRepository.deleteByUserIdAndOtp(userId, otp);
+            case FORGOT_PASSWORD -> forgotPasswordRepository.deleteByUserIdAndOtp(userId, otp);
+            case RESET_EMAIL -> resetEmailRepository.deleteByUserIdAndOtp(userId, otp);
+        };
+    }
+
+    private void deleteExpired(OtpPurpose purpose, List<Long> userIds, Date now) {
+        switch (purpose) {
+            case ACCOUNT_VERIFICATION -> accountVerificationRepository.deleteExpiredByUserIds(userIds, now);
+            case FORGOT_PASSWORD -> forgotPasswordRepository.deleteExpiredByUserIds(userIds, now);
+            case RESET_EMAIL -> resetEmailRepository.deleteExpiredByUserIds(userIds, now);
+        }
+    }
+
+    private static final class Codes {
+        private final Map<Integer, Entry> byCode = new ConcurrentHashMap<>();
+        private final Map<Long, Entry> byUser = new ConcurrentHashMap<>();
+        // Codes issued in a transaction that has not finished yet
+        private final Set<Integer> reserved = ConcurrentHashMap.newKeySet();
+    }
+
+    private static final class Entry {
+        private final OtpPurpose purpose;
+        private final Long userId;
+        private final int code;
+        private final long expiresAtMillis;
+        private volatile TimingWheel.Timeout<Entry> timeout;
+
+        private Entry(OtpPurpose purpose, Long userId, int code, long expiresAtMillis) {
+            this.purpose = purpose;
+            this.userId = userId;
+            this.code = code;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+}
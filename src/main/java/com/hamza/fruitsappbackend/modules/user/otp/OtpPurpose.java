@@ -0,0 +1,7 @@
+package com.hamza.fruitsappbackend.modules.user.otp;
+
+public enum OtpPurpose {
+    ACCOUNT_VERIFICATION,
+    FORGOT_PASSWORD,
+    RESET_EMAIL
+}
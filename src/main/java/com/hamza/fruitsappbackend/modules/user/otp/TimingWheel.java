@@ -0,0 +1,76 @@
+package com.hamza.fruitsappbackend.modules.user.otp;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Hashed timing wheel: a ring of buckets, one per tick, where a timeout sits in the bucket of its
+// deadline tick modulo the ring size. Scheduling and cancelling are O(1) and each tick only looks
+// at one bucket; a timeout more than a full turn away stays put until the turn its tick comes up.
+// Deadlines are rounded up to the tick, so a timeout may fire up to one tick late (a turn late if
+// it was scheduled into the bucket being processed at that moment).
+// schedule/cancel may be called from any thread, advance from one thread at a time.
+public class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<Set<Timeout<T>>> buckets;
+    // first tick not yet processed
+    private volatile long currentTick;
+
+    public TimingWheel(long tickMillis, int size, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(ConcurrentHashMap.newKeySet());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    public Timeout<T> schedule(T value, long deadlineMillis) {
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick);
+        Timeout<T> timeout = new Timeout<>(value, tick);
+        bucket(tick).add(timeout);
+        return timeout;
+    }
+
+    public void cancel(Timeout<T> timeout) {
+        bucket(timeout.tick).remove(timeout);
+    }
+
+    // Hands every timeout due by nowMillis to expired. After a long pause each bucket is still
+    // visited only once.
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long targetTick = nowMillis / tickMillis;
+        long lastTick = Math.min(targetTick, currentTick + buckets.size() - 1);
+        for (long tick = currentTick; tick <= lastTick; tick++) {
+            Iterator<Timeout<T>> timeouts = bucket(tick).iterator();
+            while (timeouts.hasNext()) {
+                Timeout<T> timeout = timeouts.next();
+                if (timeout.tick <= targetTick) {
+                    timeouts.remove();
+                    expired.accept(timeout.value);
+                }
+            }
+        }
+        if (targetTick >= currentTick) {
+            currentTick = targetTick + 1;
+        }
+    }
+
+    private Set<Timeout<T>> bucket(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+
+    public static final class Timeout<T> {
+        private final T value;
+        private final long tick;
+
+        private Timeout(T value, long tick) {
+            this.value = value;
+            this.tick = tick;
+        }
+    }
+}
@@ -3,15 +3,50 @@ package com.hamza.fruitsappbackend.modules.user.repository;
 import com.hamza.fruitsappbackend.modules.user.entity.AccountVerification;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface AccountVerificationRepository extends JpaRepository<AccountVerification, Integer> {
 
     Optional<AccountVerification> findByUser(User user);
 
+    // At most one row: codes are unique (uk_account_verification_otp)
     Optional<AccountVerification> findByOtpAndExpirationTimeAfter(Integer otp, Date date);
 
-    void deleteByExpirationTimeBefore(Date now);
+    boolean existsByOtpAndExpirationTimeAfter(Integer otp, Date date);
+
+    List<AccountVerification> findAllByExpirationTimeAfter(Date date);
+
+    // Removes the code only if it is still the user's, which makes using it a one-time operation
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AccountVerification v WHERE v.user.id = :userId AND v.otp = :otp")
+    int deleteByUserIdAndOtp(@Param("userId") Long userId, @Param("otp") Integer otp);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AccountVerification v WHERE v.user.id IN :userIds AND v.expirationTime <= :now")
+    int deleteExpiredByUserIds(@Param("userIds") Collection<Long> userIds, @Param("now") Date now);
+
+    // Frees a code still held by an expired row, so it can be issued again
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AccountVerification v WHERE v.otp = :otp AND v.expirationTime <= :now")
+    int deleteExpiredByOtp(@Param("otp") Integer otp, @Param("now") Date now);
+
+    // Only rows written before codes were unique can share a code
+    @Query("SELECT v.otp FROM AccountVerification v GROUP BY v.otp HAVING COUNT(v) > 1")
+    List<Integer> findDuplicateOtps();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AccountVerification v WHERE v.otp IN :otps")
+    int deleteByOtpIn(@Param("otps") Collection<Integer> otps);
 }
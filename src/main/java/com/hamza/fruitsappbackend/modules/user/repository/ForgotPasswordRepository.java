@@ -3,8 +3,14 @@ package com.hamza.fruitsappbackend.modules.user.repository;
 import com.hamza.fruitsappbackend.modules.user.entity.ForgotPassword;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface ForgotPasswordRepository extends JpaRepository<ForgotPassword, Long> {
@@ -13,6 +19,35 @@ public interface ForgotPasswordRepository extends JpaRepository<ForgotPassword,
 
     Optional<ForgotPassword> findByUserAndOtpAndExpirationTimeAfter(User user, Integer otp, Date date);
 
-    // Add this method to find by OTP and check expiration
+    // At most one row: codes are unique (uk_forgot_password_otp)
     Optional<ForgotPassword> findByOtpAndExpirationTimeAfter(Integer otp, Date date);
+
+    boolean existsByOtpAndExpirationTimeAfter(Integer otp, Date date);
+
+    List<ForgotPassword> findAllByExpirationTimeAfter(Date date);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ForgotPassword f WHERE f.user.id = :userId AND f.otp = :otp")
+    int deleteByUserIdAndOtp(@Param("userId") Long userId, @Param("otp") Integer otp);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ForgotPassword f WHERE f.user.id IN :userIds AND f.expirationTime <= :now")
+    int deleteExpiredByUserIds(@Param("userIds") Collection<Long> userIds, @Param("now") Date now);
+
+    // Frees a code still held by an expired row, so it can be issued again
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ForgotPassword f WHERE f.otp = :otp AND f.expirationTime <= :now")
+    int deleteExpiredByOtp(@Param("otp") Integer otp, @Param("now") Date now);
+
+    // Only rows written before codes were unique can share a code
+    @Query("SELECT f.otp FROM ForgotPassword f GROUP BY f.otp HAVING COUNT(f) > 1")
+    List<Integer> findDuplicateOtps();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ForgotPassword f WHERE f.otp IN :otps")
+    int deleteByOtpIn(@Param("otps") Collection<Integer> otps);
 }
@@ -0,0 +1,49 @@
+package com.hamza.fruitsappbackend.modules.user.repository;
+
+import com.hamza.fruitsappbackend.constant.MailStatus;
+import com.hamza.fruitsappbackend.modules.user.entity.OutboxMail;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMailRepository extends JpaRepository<OutboxMail, Long> {
+
+    // Due messages: PENDING ones whose attempt time has come and SENDING ones whose claim expired
+    @Query("SELECT m.id FROM OutboxMail m WHERE m.status IN :statuses AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt")
+    List<Long> findDueIds(@Param("statuses") Collection<MailStatus> statuses, @Param("now") LocalDateTime now, Limit limit);
+
+    // Conditional on the row still being due, so a message is claimed by one dispatcher only
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMail m SET m.status = :sending, m.claimToken = :token, m.nextAttemptAt = :claimedUntil "
+            + "WHERE m.id IN :ids AND m.status IN :statuses AND m.nextAttemptAt <= :now")
+    int claim(@Param("ids") Collection<Long> ids, @Param("statuses") Collection<MailStatus> statuses,
+              @Param("sending") MailStatus sending, @Param("token") String token,
+              @Param("claimedUntil") LocalDateTime claimedUntil, @Param("now") LocalDateTime now);
+
+    List<OutboxMail> findAllByClaimToken(String claimToken);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMail m SET m.status = :sent, m.sentAt = :sentAt, m.claimToken = NULL, m.lastError = NULL "
+            + "WHERE m.id IN :ids AND m.claimToken = :token")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("token") String token,
+                 @Param("sent") MailStatus sent, @Param("sentAt") LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMail m SET m.status = :status, m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt, "
+            + "m.lastError = :error, m.claimToken = NULL WHERE m.id = :id AND m.claimToken = :token")
+    int markAttemptFailed(@Param("id") Long id, @Param("token") String token, @Param("status") MailStatus status,
+                          @Param("attempts") int attempts, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                          @Param("error") String error);
+
+    long countByStatus(MailStatus status);
+}
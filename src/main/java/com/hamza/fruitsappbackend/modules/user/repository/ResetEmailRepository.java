@@ -3,8 +3,14 @@ package com.hamza.fruitsappbackend.modules.user.repository;
 import com.hamza.fruitsappbackend.modules.user.entity.ResetEmail;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 public interface ResetEmailRepository extends JpaRepository<ResetEmail, Integer> {
@@ -13,6 +19,35 @@ public interface ResetEmailRepository extends JpaRepository<ResetEmail, Integer>
 
     Optional<ResetEmail> findByUserAndOtpAndExpirationTimeAfter(User user, Integer otp, Date date);
 
+    // At most one row: codes are unique (uk_reset_email_otp)
     Optional<ResetEmail> findByOtpAndExpirationTimeAfter(Integer otp, Date date);
 
+    boolean existsByOtpAndExpirationTimeAfter(Integer otp, Date date);
+
+    List<ResetEmail> findAllByExpirationTimeAfter(Date date);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ResetEmail r WHERE r.user.id = :userId AND r.otp = :otp")
+    int deleteByUserIdAndOtp(@Param("userId") Long userId, @Param("otp") Integer otp);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ResetEmail r WHERE r.user.id IN :userIds AND r.expirationTime <= :now")
+    int deleteExpiredByUserIds(@Param("userIds") Collection<Long> userIds, @Param("now") Date now);
+
+    // Frees a code still held by an expired row, so it can be issued again
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ResetEmail r WHERE r.otp = :otp AND r.expirationTime <= :now")
+    int deleteExpiredByOtp(@Param("otp") Integer otp, @Param("now") Date now);
+
+    // Only rows written before codes were unique can share a code
+    @Query("SELECT r.otp FROM ResetEmail r GROUP BY r.otp HAVING COUNT(r) > 1")
+    List<Integer> findDuplicateOtps();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ResetEmail r WHERE r.otp IN :otps")
+    int deleteByOtpIn(@Param("otps") Collection<Integer> otps);
 }
@@ -2,7 +2,6 @@ package com.hamza.fruitsappbackend.modules.user.repository;
 
 import com.hamza.fruitsappbackend.modules.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -14,9 +13,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE u.accountVerification.otp = :otp")
-    Optional<User> findByOtp(Integer otp);
-
     User getUserById(Long userId);
 
 }
@@ -5,6 +5,7 @@ import com.hamza.fruitsappbackend.modules.user.dto.MailBody;
 
 public interface EmailService {
 
+    // Queues the email for delivery once the current transaction commits
     void sendEmail(MailBody mailBody);
 
 }
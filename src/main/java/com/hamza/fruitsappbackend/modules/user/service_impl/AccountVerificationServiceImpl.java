@@ -1,55 +1,40 @@
 package com.hamza.fruitsappbackend.modules.user.service_impl;
 
 import com.hamza.fruitsappbackend.modules.user.dto.MailBody;
-import com.hamza.fruitsappbackend.modules.user.entity.AccountVerification;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
 import com.hamza.fruitsappbackend.exception.global.BadRequestException;
-import com.hamza.fruitsappbackend.modules.user.repository.AccountVerificationRepository;
+import com.hamza.fruitsappbackend.modules.user.exception.UserNotFoundException;
+import com.hamza.fruitsappbackend.modules.user.otp.OtpEngine;
+import com.hamza.fruitsappbackend.modules.user.otp.OtpPurpose;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.modules.user.service.AccountVerificationService;
 import com.hamza.fruitsappbackend.modules.user.service.EmailService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-
-import java.util.Date;
-import java.util.Optional;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AccountVerificationServiceImpl implements AccountVerificationService {
 
     private final UserRepository userRepository;
     private final EmailService mailService;
-    private final AccountVerificationRepository accountVerificationRepository;
+    private final OtpEngine otpEngine;
 
     @Autowired
-    public AccountVerificationServiceImpl(UserRepository userRepository, EmailService mailService, AccountVerificationRepository accountVerificationRepository) {
+    public AccountVerificationServiceImpl(UserRepository userRepository, EmailService mailService, OtpEngine otpEngine) {
         this.userRepository = userRepository;
         this.mailService = mailService;
-        this.accountVerificationRepository = accountVerificationRepository;
+        this.otpEngine = otpEngine;
     }
 
     @Override
+    @Transactional
     public void sendVerificationEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Please provide a valid email"));
 
-        Integer otp = generateOtp();
-
-        // التحقق مما إذا كان المستخدم لديه تحقق موجود مسبقًا
-        AccountVerification accountVerification = accountVerificationRepository.findByUser(user)
-                .map(existingVerification -> {
-                    existingVerification.setOtp(otp);
-                    existingVerification.setExpirationTime(new Date(System.currentTimeMillis() + (60 * 60 * 1000)));
-                    return existingVerification;
-                })
-                .orElse(AccountVerification.builder()
-                        .user(user)
-                        .otp(otp)
-                        .expirationTime(new Date(System.currentTimeMillis() + (60 * 60 * 1000)))
-                        .build());
-
-        accountVerificationRepository.save(accountVerification);
+        Integer otp = otpEngine.issue(OtpPurpose.ACCOUNT_VERIFICATION, user);
 
         // إنشاء محتوى البريد الإلكتروني
         String htmlBody = createEmailBody(otp);
@@ -64,27 +49,18 @@ public class AccountVerificationServiceImpl implements AccountVerificationServic
 
     @Override
     public String verifyAccount(Integer otp) {
-        Optional<AccountVerification> verificationOptional = accountVerificationRepository
-                .findByOtpAndExpirationTimeAfter(otp, new Date());
+        Long userId = otpEngine.consume(OtpPurpose.ACCOUNT_VERIFICATION, otp)
+                .orElseThrow(() -> new BadRequestException("Invalid OTP or expired OTP."));
 
-        if (verificationOptional.isEmpty()) {
-            throw new BadRequestException("Invalid OTP or expired OTP.");
-        }
-
-        AccountVerification accountVerification = verificationOptional.get();
-        User user = accountVerification.getUser();
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("id", userId.toString()));
         user.setIsVerified(true);
 
         userRepository.save(user);
-        accountVerificationRepository.delete(accountVerification);
 
         return "Account verified successfully.";
     }
 
-    private Integer generateOtp() {
-        return (int) (Math.random() * 9000) + 1000;  // توليد OTP بين 1000 و 9999
-    }
-
     // إنشاء قالب البريد الإلكتروني
     private String createEmailBody(Integer otp) {
         String pngImageUrl = "https://firebasestorage.googleapis.com/v0/b/testing-18f33.appspot.com/o/image.png?alt=media&token=ed7d8c51-10e5-42c9-8c57-79eb031e5858";
@@ -1,45 +1,54 @@
 package com.hamza.fruitsappbackend.modules.user.service_impl;
 
+import com.hamza.fruitsappbackend.constant.MailStatus;
 import com.hamza.fruitsappbackend.modules.user.dto.MailBody;
+import com.hamza.fruitsappbackend.modules.user.entity.OutboxMail;
+import com.hamza.fruitsappbackend.modules.user.mail.MailOutboxDispatcher;
+import com.hamza.fruitsappbackend.modules.user.repository.OutboxMailRepository;
 import com.hamza.fruitsappbackend.modules.user.service.EmailService;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+
+// Puts the email in the outbox as part of the caller's transaction (next to the OTP row it
+// carries) and leaves the SMTP conversation to MailOutboxDispatcher, so the request never waits
+// on the mail provider and a rolled back request sends nothing.
 @Service
 public class EmailServiceImpl implements EmailService {
 
-    private static final Logger logger = LoggerFactory.getLogger(EmailServiceImpl.class);
-    private final JavaMailSender mailSender;
+    private final OutboxMailRepository outboxMailRepository;
+    private final MailOutboxDispatcher mailOutboxDispatcher;
 
-    public EmailServiceImpl(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    @Autowired
+    public EmailServiceImpl(OutboxMailRepository outboxMailRepository, MailOutboxDispatcher mailOutboxDispatcher) {
+        this.outboxMailRepository = outboxMailRepository;
+        this.mailOutboxDispatcher = mailOutboxDispatcher;
     }
 
     @Override
-    @Async
+    @Transactional
     public void sendEmail(MailBody mailBody) {
-        MimeMessage message = mailSender.createMimeMessage();
-
-        try {
-            // إعداد رسالة البريد الإلكتروني
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setTo(mailBody.to());
-            helper.setFrom("hamza.damra@students.alquds.edu");
-            helper.setSubject(mailBody.subject());
-            helper.setText(mailBody.body(), true);
-
-            // إرسال الرسالة
-            mailSender.send(message);
-            logger.info("HTML email sent successfully to {}", mailBody.to());
-
-        } catch (MessagingException e) {
-            logger.error("Failed to send email to {} due to an error: {}", mailBody.to(), e.getMessage());
-        }
+        LocalDateTime now = LocalDateTime.now();
+        outboxMailRepository.save(OutboxMail.builder()
+                .recipient(mailBody.to())
+                .subject(mailBody.subject())
+                .body(mailBody.body())
+                .status(MailStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+
+        // Deliver as soon as the message is visible instead of waiting for the next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                mailOutboxDispatcher.wake();
+            }
+        });
     }
 }
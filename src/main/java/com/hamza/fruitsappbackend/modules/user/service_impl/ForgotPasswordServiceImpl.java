@@ -2,9 +2,10 @@ package com.hamza.fruitsappbackend.modules.user.service_impl;
 
 import com.hamza.fruitsappbackend.modules.user.dto.ChangePassword;
 import com.hamza.fruitsappbackend.modules.user.dto.MailBody;
-import com.hamza.fruitsappbackend.modules.user.entity.ForgotPassword;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
-import com.hamza.fruitsappbackend.modules.user.repository.ForgotPasswordRepository;
+import com.hamza.fruitsappbackend.modules.user.exception.UserNotFoundException;
+import com.hamza.fruitsappbackend.modules.user.otp.OtpEngine;
+import com.hamza.fruitsappbackend.modules.user.otp.OtpPurpose;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.modules.user.service.EmailService;
 import com.hamza.fruitsappbackend.modules.user.service.ForgotPasswordService;
@@ -13,10 +14,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -27,39 +27,25 @@ public class ForgotPasswordServiceImpl implements ForgotPasswordService {
 
     private final UserRepository userRepository;
     private final EmailService mailService;
-    private final ForgotPasswordRepository forgotPasswordRepository;
+    private final OtpEngine otpEngine;
     private final PasswordEncoder passwordEncoder;
 
     @Autowired
     public ForgotPasswordServiceImpl(UserRepository userRepository, EmailService mailService,
-                                     ForgotPasswordRepository forgotPasswordRepository, PasswordEncoder passwordEncoder) {
+                                     OtpEngine otpEngine, PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
         this.mailService = mailService;
-        this.forgotPasswordRepository = forgotPasswordRepository;
+        this.otpEngine = otpEngine;
         this.passwordEncoder = passwordEncoder;
     }
 
     @Override
-    @Async
+    @Transactional
     public void sendVerificationEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Please provide a valid email"));
 
-        Integer otp = generateOtp();
-
-        ForgotPassword forgotPassword = forgotPasswordRepository.findByUser(user)
-                .map(existingForgotPassword -> {
-                    existingForgotPassword.setOtp(otp);
-                    existingForgotPassword.setExpirationTime(new Date(System.currentTimeMillis() + (60 * 60 * 1000)));
-                    return existingForgotPassword;
-                })
-                .orElse(ForgotPassword.builder()
-                        .user(user)
-                        .otp(otp)
-                        .expirationTime(new Date(System.currentTimeMillis() + (60 * 60 * 1000)))  // 1-hour expiration
-                        .build());
-
-        forgotPasswordRepository.save(forgotPassword);
+        Integer otp = otpEngine.issue(OtpPurpose.FORGOT_PASSWORD, user);
 
         String htmlBody = createEmailBody(otp);
 
@@ -70,7 +56,7 @@ public class ForgotPasswordServiceImpl implements ForgotPasswordService {
                 .build();
 
         mailService.sendEmail(mailBody);
-        logger.info("Password reset email sent to {}", user.getEmail());
+        logger.info("Password reset email queued for {}", user.getEmail());
     }
 
     @Override
@@ -79,30 +65,23 @@ public class ForgotPasswordServiceImpl implements ForgotPasswordService {
             return "Passwords do not match.";
         }
 
-        Optional<ForgotPassword> forgotPasswordOptional = forgotPasswordRepository
-                .findByOtpAndExpirationTimeAfter(otp, new Date());
+        Optional<Long> userId = otpEngine.consume(OtpPurpose.FORGOT_PASSWORD, otp);
 
-        if (forgotPasswordOptional.isEmpty()) {
+        if (userId.isEmpty()) {
             return "Invalid OTP or expired link.";
         }
 
-        ForgotPassword forgotPassword = forgotPasswordOptional.get();
-        User user = forgotPassword.getUser();
+        User user = userRepository.findById(userId.get())
+                .orElseThrow(() -> new UserNotFoundException("id", userId.get().toString()));
 
         user.setPassword(passwordEncoder.encode(changePassword.newPassword()));
         userRepository.save(user);
 
-        forgotPasswordRepository.delete(forgotPassword);
-
         logger.info("Password reset successfully for user: {}", user.getEmail());
 
         return "Password reset successfully.";
     }
 
-    private Integer generateOtp() {
-        return (int) (Math.random() * 9000) + 1000;  // Generate OTP between 1000 and 9999
-    }
-
     private String createEmailBody(Integer otp) {
         String pngImageUrl = "https://firebasestorage.googleapis.com/v0/b/testing-18f33.appspot.com/o/image.png?alt=media&token=ed7d8c51-10e5-42c9-8c57-79eb031e5858";
 
@@ -2,9 +2,10 @@ package com.hamza.fruitsappbackend.modules.user.service_impl;
 
 import com.hamza.fruitsappbackend.modules.user.dto.ChangeEmail;
 import com.hamza.fruitsappbackend.modules.user.dto.MailBody;
-import com.hamza.fruitsappbackend.modules.user.entity.ResetEmail;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
-import com.hamza.fruitsappbackend.modules.user.repository.ResetEmailRepository;
+import com.hamza.fruitsappbackend.modules.user.exception.UserNotFoundException;
+import com.hamza.fruitsappbackend.modules.user.otp.OtpEngine;
+import com.hamza.fruitsappbackend.modules.user.otp.OtpPurpose;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.modules.user.service.EmailService;
 import com.hamza.fruitsappbackend.modules.user.service.ResetEmailService;
@@ -13,8 +14,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -23,37 +24,24 @@ public class ResetEmailServiceImpl implements ResetEmailService {
     private static final Logger logger = LoggerFactory.getLogger(ResetEmailServiceImpl.class);
     private final UserRepository userRepository;
     private final EmailService mailService;
-    private final ResetEmailRepository resetEmailRepository;
+    private final OtpEngine otpEngine;
 
     @Autowired
     public ResetEmailServiceImpl(UserRepository userRepository, EmailService mailService,
-                                 ResetEmailRepository resetEmailRepository) {
+                                 OtpEngine otpEngine) {
         this.userRepository = userRepository;
         this.mailService = mailService;
-        this.resetEmailRepository = resetEmailRepository;
+        this.otpEngine = otpEngine;
 
     }
 
     @Override
+    @Transactional
     public void sendVerificationEmail(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Please provide a valid email"));
 
-        Integer otp = generateOtp();
-
-        ResetEmail resetEmail = resetEmailRepository.findByUser(user)
-                .map(existingForgotPassword -> {
-                    existingForgotPassword.setOtp(otp);
-                    existingForgotPassword.setExpirationTime(new Date(System.currentTimeMillis() + (60 * 60 * 1000)));
-                    return existingForgotPassword;
-                })
-                .orElse(ResetEmail.builder()
-                        .user(user)
-                        .otp(otp)
-                        .expirationTime(new Date(System.currentTimeMillis() + (60 * 60 * 1000)))  // 1-hour expiration
-                        .build());
-
-        resetEmailRepository.save(resetEmail);
+        Integer otp = otpEngine.issue(OtpPurpose.RESET_EMAIL, user);
 
         String htmlBody = createEmailBody(otp);
 
@@ -64,7 +52,7 @@ public class ResetEmailServiceImpl implements ResetEmailService {
                 .build();
 
         mailService.sendEmail(mailBody);
-        logger.info("Email reset email sent to {}", user.getEmail());
+        logger.info("Email reset email queued for {}", user.getEmail());
     }
 
     @Override
@@ -73,30 +61,23 @@ public class ResetEmailServiceImpl implements ResetEmailService {
             return "Email do not match.";
         }
 
-        Optional<ResetEmail> resetEmailOptional = resetEmailRepository
-                .findByOtpAndExpirationTimeAfter(otp, new Date());
+        Optional<Long> userId = otpEngine.consume(OtpPurpose.RESET_EMAIL, otp);
 
-        if (resetEmailOptional.isEmpty()) {
+        if (userId.isEmpty()) {
             return "Invalid OTP or expired link.";
         }
 
-        ResetEmail resetEmail = resetEmailOptional.get();
-        User user = resetEmail.getUser();
+        User user = userRepository.findById(userId.get())
+                .orElseThrow(() -> new UserNotFoundException("id", userId.get().toString()));
 
         user.setEmail(changeEmail.newEmail());
         userRepository.save(user);
 
-        resetEmailRepository.delete(resetEmail);
-
         logger.info("Email reset successfully for user: {}", user.getEmail());
 
         return "Email reset successfully.";
     }
 
-    private Integer generateOtp() {
-        return (int) (Math.random() * 9000) + 1000;
-    }
-
     private String createEmailBody(Integer otp) {
         String pngImageUrl = "https://firebasestorage.googleapis.com/v0/b/testing-18f33.appspot.com/o/image.png?alt=media&token=ed7d8c51-10e5-42c9-8c57-79eb031e5858";
 
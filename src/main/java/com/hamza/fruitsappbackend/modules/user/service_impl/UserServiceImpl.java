@@ -1,22 +1,24 @@
 package com.hamza.fruitsappbackend.modules.user.service_impl;
 
-import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
-import com.hamza.fruitsappbackend.modules.order.entity.Order;
-import com.hamza.fruitsappbackend.modules.review.entity.Review;
+import com.hamza.fruitsappbackend.modules.address.mapper.AddressMapper;
+import com.hamza.fruitsappbackend.modules.cart.mapper.CartMapper;
+import com.hamza.fruitsappbackend.modules.order.mapper.OrderMapper;
+import com.hamza.fruitsappbackend.modules.review.mapper.ReviewMapper;
 import com.hamza.fruitsappbackend.modules.role.entity.Role;
 import com.hamza.fruitsappbackend.modules.user.dto.UserDTO;
 import com.hamza.fruitsappbackend.exception.global.BadRequestException;
 import com.hamza.fruitsappbackend.modules.user.exception.UserNotFoundException;
 import com.hamza.fruitsappbackend.modules.role.exception.RoleNotFoundException;
-import com.hamza.fruitsappbackend.modules.address.entity.Address;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
+import com.hamza.fruitsappbackend.modules.user.mapper.UserMapper;
+import com.hamza.fruitsappbackend.modules.user.otp.OtpEngine;
+import com.hamza.fruitsappbackend.modules.user.otp.OtpPurpose;
 import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.modules.role.repository.RoleRepository;
 import com.hamza.fruitsappbackend.modules.user.service.UserService;
 import com.hamza.fruitsappbackend.modules.user.service.AccountVerificationService;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,21 +39,33 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
+    private final AddressMapper addressMapper;
+    private final CartMapper cartMapper;
+    private final OrderMapper orderMapper;
+    private final ReviewMapper reviewMapper;
     private final PasswordEncoder passwordEncoder;
     private final AuthorizationUtils authorizationUtils;
     private final AccountVerificationService accountVerificationService;
+    private final OtpEngine otpEngine;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository, RoleRepository roleRepository,
-                           ModelMapper modelMapper, PasswordEncoder passwordEncoder,
-                           AuthorizationUtils authorizationUtils, AccountVerificationService accountVerificationService) {
+                           UserMapper userMapper, AddressMapper addressMapper, CartMapper cartMapper,
+                           OrderMapper orderMapper, ReviewMapper reviewMapper, PasswordEncoder passwordEncoder,
+                           AuthorizationUtils authorizationUtils, AccountVerificationService accountVerificationService,
+                           OtpEngine otpEngine) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
-        this.modelMapper = modelMapper;
+        this.userMapper = userMapper;
+        this.addressMapper = addressMapper;
+        this.cartMapper = cartMapper;
+        this.orderMapper = orderMapper;
+        this.reviewMapper = reviewMapper;
         this.passwordEncoder = passwordEncoder;
         this.authorizationUtils = authorizationUtils;
         this.accountVerificationService = accountVerificationService;
+        this.otpEngine = otpEngine;
     }
 
     @Override
@@ -75,7 +89,7 @@ public class UserServiceImpl implements UserService {
             throw new RoleNotFoundException("Some roles not found.", String.valueOf(roleNames.size() - roles.size()));
         }
 
-        User user = modelMapper.map(userDTO, User.class);
+        User user = userMapper.toEntity(userDTO);
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         user.setIsVerified(false);
         user.setRoles(roles);
@@ -88,14 +102,14 @@ public class UserServiceImpl implements UserService {
             logger.info("User saved successfully with email: {}", savedUser.getEmail());
         }
 
-        return modelMapper.map(savedUser, UserDTO.class);
+        return userMapper.toDto(savedUser);
     }
 
     @Override
     public Optional<UserDTO> getUserById(Long id, String token) {
         authorizationUtils.checkUserOrAdminRole(token, id);
         return userRepository.findById(id)
-                .map(user -> modelMapper.map(user, UserDTO.class))
+                .map(userMapper::toDto)
                 .or(() -> {
                     logger.error("User not found with ID: {}", id);
                     throw new UserNotFoundException("id", id.toString());
@@ -105,7 +119,7 @@ public class UserServiceImpl implements UserService {
     @Override
     public Optional<UserDTO> getUserByEmail(String email) {
         return userRepository.findByEmail(email)
-                .map(user -> modelMapper.map(user, UserDTO.class));
+                .map(userMapper::toDto);
     }
 
     @Override
@@ -113,7 +127,7 @@ public class UserServiceImpl implements UserService {
         authorizationUtils.checkUserOrAdminRoleByEmail(token, email);
 
         return userRepository.findByEmail(email)
-                .map(user -> modelMapper.map(user, UserDTO.class));
+                .map(userMapper::toDto);
     }
 
     @Override
@@ -121,7 +135,7 @@ public class UserServiceImpl implements UserService {
         authorizationUtils.checkAdminRole(token);
 
         return userRepository.findAll().stream()
-                .map(user -> modelMapper.map(user, UserDTO.class))
+                .map(userMapper::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -139,7 +153,7 @@ public class UserServiceImpl implements UserService {
         User updatedUser = userRepository.save(existingUser);
 
         logger.info("User updated successfully with ID: {}", userDTO.getId());
-        return modelMapper.map(updatedUser, UserDTO.class);
+        return userMapper.toDto(updatedUser);
     }
 
     @Override
@@ -174,22 +188,18 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public String verifyAccount(Integer otp) {
+        // The verification service marks the user verified and uses up the code
         String result = accountVerificationService.verifyAccount(otp);
-        if ("Account verified successfully.".equals(result)) {
-            User user = userRepository.findByOtp(otp)
-                    .orElseThrow(() -> new UserNotFoundException("OTP", otp.toString()));
-            user.setIsVerified(true);
-            userRepository.save(user);
-            logger.info("User verified successfully with OTP: {}", otp);
-        }
+        logger.info("User verified successfully with OTP: {}", otp);
         return result;
     }
 
     @Override
     public UserDTO getUserByOtp(Integer otp) {
-        User user = userRepository.findByOtp(otp)
-                .orElseThrow(() -> new UserNotFoundException("OTP", otp.toString()));
-        return modelMapper.map(user, UserDTO.class);
+        User user = otpEngine.findUserId(OtpPurpose.ACCOUNT_VERIFICATION, otp)
+                .flatMap(userRepository::findById)
+                .orElseThrow(() -> new UserNotFoundException("OTP", String.valueOf(otp)));
+        return userMapper.toDto(user);
     }
 
     private void updateUserDetails(UserDTO userDTO, User user) {
@@ -213,7 +223,7 @@ public class UserServiceImpl implements UserService {
         if (userDTO.getAddresses() != null) {
             user.setAddresses(
                     userDTO.getAddresses().stream()
-                            .map(addressDTO -> modelMapper.map(addressDTO, Address.class))
+                            .map(addressMapper::toEntity)
                             .collect(Collectors.toList())
             );
         }
@@ -222,7 +232,7 @@ public class UserServiceImpl implements UserService {
         if (userDTO.getCarts() != null) {  // Use getCarts() for multiple carts
             user.setCarts(
                     userDTO.getCarts().stream()  // Convert each CartDTO to Cart entity
-                            .map(cartDTO -> modelMapper.map(cartDTO, Cart.class))
+                            .map(cartMapper::toEntity)
                             .collect(Collectors.toList())
             );
         }
@@ -231,7 +241,7 @@ public class UserServiceImpl implements UserService {
         if (userDTO.getOrders() != null) {
             user.setOrders(
                     userDTO.getOrders().stream()
-                            .map(orderDTO -> modelMapper.map(orderDTO, Order.class))
+                            .map(orderMapper::toEntity)
                             .collect(Collectors.toList())
             );
         }
@@ -240,7 +250,7 @@ public class UserServiceImpl implements UserService {
         if (userDTO.getReviews() != null) {
             user.setReviews(
                     userDTO.getReviews().stream()
-                            .map(reviewDTO -> modelMapper.map(reviewDTO, Review.class))
+                            .map(reviewMapper::toEntity)
                             .collect(Collectors.toList())
             );
         }
@@ -1,13 +1,21 @@
 package com.hamza.fruitsappbackend.modules.wishlist.repository;
 
 import com.hamza.fruitsappbackend.modules.wishlist.entity.Wishlist;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface WishlistRepository extends JpaRepository<Wishlist, Long> {
+    @EntityGraph(attributePaths = {"product"})
     List<Wishlist> findByUserId(Long userId);
+
+    @Query("SELECT w.product.id FROM Wishlist w WHERE w.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
+
     Optional<Wishlist> findByUserIdAndProductId(Long userId, Long productId);
 
     void deleteAllByProductId(Long productId);
@@ -3,6 +3,8 @@ package com.hamza.fruitsappbackend.modules.wishlist.service_impl;
 import com.hamza.fruitsappbackend.modules.wishlist.dto.WishlistDTO;
 import com.hamza.fruitsappbackend.modules.product.entity.Product;
 import com.hamza.fruitsappbackend.modules.user.entity.User;
+import com.hamza.fruitsappbackend.modules.product.service.UserProductFlags;
+import com.hamza.fruitsappbackend.modules.product.service.UserProductFlagsService;
 import com.hamza.fruitsappbackend.modules.wishlist.dto.WishlistResponse;
 import com.hamza.fruitsappbackend.modules.wishlist.entity.Wishlist;
 import com.hamza.fruitsappbackend.modules.product.exception.ProductNotFoundException;
@@ -13,12 +15,10 @@ import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
 import com.hamza.fruitsappbackend.modules.wishlist.repository.WishlistRepository;
 import com.hamza.fruitsappbackend.modules.wishlist.service.WishlistService;
 import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
-import com.hamza.fruitsappbackend.security.JwtTokenProvider;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,24 +35,21 @@ public class WishlistServiceImpl implements WishlistService {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final AuthorizationUtils authorizationUtils;
-    private final JwtTokenProvider jwtTokenProvider;
+    private final UserProductFlagsService userProductFlagsService;
 
     @Autowired
     public WishlistServiceImpl(WishlistRepository wishlistRepository, UserRepository userRepository,
                                ProductRepository productRepository, AuthorizationUtils authorizationUtils,
-                               JwtTokenProvider jwtTokenProvider) {
+                               UserProductFlagsService userProductFlagsService) {
         this.wishlistRepository = wishlistRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.authorizationUtils = authorizationUtils;
-        this.jwtTokenProvider = jwtTokenProvider;
+        this.userProductFlagsService = userProductFlagsService;
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     public void addToWishlist(Long productId, String token) {
         Long userId = getUserIdFromToken(token);
         authorizationUtils.checkUserOrAdminRole(token, userId);
@@ -76,10 +73,7 @@ public class WishlistServiceImpl implements WishlistService {
     }
 
     @Override
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     public void removeFromWishlist(Long productId, String token) {
         Long userId = getUserIdFromToken(token);
         authorizationUtils.checkUserOrAdminRole(token, userId);
@@ -99,8 +93,9 @@ public class WishlistServiceImpl implements WishlistService {
         List<Wishlist> wishlists = wishlistRepository.findByUserId(userId);
         logger.info("Fetched wishlist for user ID {}", userId);
 
+        UserProductFlags flags = userProductFlagsService.getFlagsForUser(authorizationUtils.getUserIdFromToken(token));
         return new WishlistResponse(wishlists.size(), wishlists.stream()
-                .map(wishlist -> convertToWishlistDTO(wishlist, token))
+                .map(wishlist -> convertToWishlistDTO(wishlist, flags))
                 .collect(Collectors.toList()));
     }
 
@@ -111,12 +106,13 @@ public class WishlistServiceImpl implements WishlistService {
         List<Wishlist> wishlists = wishlistRepository.findAll();
         logger.info("Fetched all wishlists");
 
+        UserProductFlags flags = userProductFlagsService.getFlagsForUser(authorizationUtils.getUserIdFromToken(token));
         return new WishlistResponse(wishlists.size(), wishlists.stream()
-                .map(wishlist -> convertToWishlistDTO(wishlist, token))
+                .map(wishlist -> convertToWishlistDTO(wishlist, flags))
                 .collect(Collectors.toList()));
     }
 
-    private WishlistDTO convertToWishlistDTO(Wishlist wishlist, String token) {
+    private WishlistDTO convertToWishlistDTO(Wishlist wishlist, UserProductFlags flags) {
         WishlistDTO wishlistDTO = new WishlistDTO();
         wishlistDTO.setId(wishlist.getId());
         wishlistDTO.setProductId(wishlist.getProduct().getId());
@@ -140,27 +136,15 @@ public class WishlistServiceImpl implements WishlistService {
         wishlistDTO.setCounterFiveStars(wishlist.getProduct().getCounterFiveStars());
         wishlistDTO.setCreatedAt(wishlist.getCreatedAt());
 
-        // Determine if the product is in the user's wishlist
-        User user = authorizationUtils.getUserFromToken(token);
-        boolean isFavorite = user.getWishlistItems().stream()
-                .anyMatch(wishlistItem -> wishlistItem.getProduct().getId().equals(wishlist.getProduct().getId()));
-        wishlistDTO.setFavorite(isFavorite);
-
-        // Determine if the product is in the user's cart
-        boolean isInCart = user.getCarts().stream()
-                .flatMap(cart -> cart.getCartItems().stream())
-                .anyMatch(cartItem -> cartItem.getProduct().getId().equals(wishlist.getProduct().getId()));
-        wishlistDTO.setInCart(isInCart);
+        wishlistDTO.setFavorite(flags.isFavorite(wishlist.getProduct().getId()));
+        wishlistDTO.setInCart(flags.isInCart(wishlist.getProduct().getId()));
 
         return wishlistDTO;
     }
 
     @Override
     @Transactional
-    @Caching(evict = {
-            @CacheEvict(value = "allWishlists", allEntries = true),
-            @CacheEvict(value = "allProducts", allEntries = true)
-    })
+    @CacheEvict(value = "allWishlists", allEntries = true)
     public void removeAllFromWishlist(String token) {
         Long userId = getUserIdFromToken(token);
         authorizationUtils.checkUserOrAdminRole(token, userId);
@@ -170,6 +154,6 @@ public class WishlistServiceImpl implements WishlistService {
     }
 
     private Long getUserIdFromToken(String token) {
-        return Long.valueOf(jwtTokenProvider.getUserIdFromToken(token));
+        return authorizationUtils.getUserIdFromToken(token);
     }
 }
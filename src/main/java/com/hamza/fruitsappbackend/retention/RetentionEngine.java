@@ -0,0 +1,152 @@
+package com.hamza.fruitsappbackend.retention;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Purges the rows every RetentionPolicy bean allows to delete. Each policy is walked in primary key
+// order, app.retention.chunk-size rows per transaction, so no delete holds many row locks or runs
+// long. Chunks are at least app.retention.pause-ms apart and further slowed down to stay under
+// app.retention.max-rows-per-second. Runs happen on their own thread so the throttling never holds
+// up the other scheduled jobs. Per policy: retention.rows.purged and retention.run.
+@Component
+public class RetentionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetentionEngine.class);
+
+    private final List<RetentionPolicy> policies;
+    private final RetentionRepository retentionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final int maxRowsPerSecond;
+    private final Map<String, Counter> purged = new HashMap<>();
+    private final Map<String, Timer> runs = new HashMap<>();
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public RetentionEngine(List<RetentionPolicy> policies, RetentionRepository retentionRepository,
+                           PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                           @Value("${app.retention.chunk-size:500}") int chunkSize,
+                           @Value("${app.retention.pause-ms:200}") long pauseMillis,
+                           @Value("${app.retention.max-rows-per-second:2000}") int maxRowsPerSecond) {
+        this.policies = policies;
+        this.retentionRepository = retentionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        for (RetentionPolicy policy : policies) {
+            purged.put(policy.name(), Counter.builder("retention.rows.purged")
+                    .description("Rows deleted by the retention policy")
+                    .tag("policy", policy.name())
+                    .register(meterRegistry));
+            runs.put(policy.name(), Timer.builder("retention.run")
+                    .description("Time taken by one run of the retention policy, pauses included")
+                    .tag("policy", policy.name())
+                    .register(meterRegistry));
+        }
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(initialDelayString = "${app.retention.initial-delay-ms:60000}",
+            fixedDelayString = "${app.retention.interval-ms:3600000}")
+    public void schedule() {
+        // A run still going (large backlog) is left to finish rather than queued behind
+        if (running.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    purgeAll();
+                } finally {
+                    running.set(false);
+                }
+            });
+        }
+    }
+
+    public void purgeAll() {
+        for (RetentionPolicy policy : policies) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                purge(policy);
+            } catch (RuntimeException e) {
+                logger.error("Retention policy {} failed", policy.name(), e);
+            }
+        }
+    }
+
+    public long purge(RetentionPolicy policy) {
+        long startTime = System.nanoTime();
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(policy.retention()));
+        long total = 0;
+        long afterId = 0;
+        try {
+            while (true) {
+                long chunkStart = System.nanoTime();
+                List<Long> ids = retentionRepository.findIds(policy, afterId, cutoff, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                afterId = ids.get(ids.size() - 1);
+                Integer deleted = transactionTemplate.execute(status -> retentionRepository.delete(policy, ids, cutoff));
+                total += deleted;
+                purged.get(policy.name()).increment(deleted);
+                if (ids.size() < chunkSize || !throttle(ids.size(), chunkStart)) {
+                    break;
+                }
+            }
+        } finally {
+            runs.get(policy.name()).record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        if (total > 0) {
+            logger.info("Retention policy {} purged {} rows in {} ms", policy.name(), total,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // false when interrupted (shutdown), which ends the run
+    private boolean throttle(int rows, long chunkStartNanos) {
+        long minChunkMillis = maxRowsPerSecond > 0 ? rows * 1000L / maxRowsPerSecond : 0;
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStartNanos);
+        long sleepMillis = Math.max(pauseMillis, minChunkMillis - elapsedMillis);
+        try {
+            Thread.sleep(sleepMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
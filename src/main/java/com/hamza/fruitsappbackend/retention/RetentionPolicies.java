@@ -0,0 +1,47 @@
+package com.hamza.fruitsappbackend.retention;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+// One policy per entity whose rows go stale. Expired codes are normally removed by OtpEngine as
+// they expire; these policies catch what it missed (other instances, downtime).
+@Configuration
+public class RetentionPolicies {
+
+    @Bean
+    public RetentionPolicy expiredAccountVerifications() {
+        return new RetentionPolicy("account_verification", "account_verification", "verification_id",
+                "expiration_time < ?", Duration.ZERO);
+    }
+
+    @Bean
+    public RetentionPolicy expiredForgotPasswords() {
+        return new RetentionPolicy("forgot_password", "forgot_password", "forgot_password_id",
+                "expiration_time < ?", Duration.ZERO);
+    }
+
+    @Bean
+    public RetentionPolicy expiredResetEmails() {
+        return new RetentionPolicy("reset_email", "reset_email", "reset_email_id",
+                "expiration_time < ?", Duration.ZERO);
+    }
+
+    // Carts checked out into an order stay for the order's sake; only completed carts no order
+    // points to are purged, with their items.
+    @Bean
+    public RetentionPolicy completedCarts(@Value("${app.retention.completed-carts-days:30}") int days) {
+        return new RetentionPolicy("completed_carts", "carts", "id",
+                "status = 'COMPLETED' AND updated_at < ? AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.cart_id = carts.id)",
+                Duration.ofDays(days), List.of(new RetentionPolicy.Dependent("cart_items", "cart_id")));
+    }
+
+    @Bean
+    public RetentionPolicy deliveredMails(@Value("${app.retention.mail-outbox-days:30}") int days) {
+        return new RetentionPolicy("mail_outbox", "mail_outbox", "id",
+                "status IN ('SENT', 'FAILED') AND created_at < ?", Duration.ofDays(days));
+    }
+}
@@ -0,0 +1,18 @@
+package com.hamza.fruitsappbackend.retention;
+
+import java.time.Duration;
+import java.util.List;
+
+// Rows of one table that may be deleted: those matching condition, whose single ? is bound to now
+// minus retention. Rows of dependent tables that point at a purged row through their foreign key
+// column are deleted with it, in the same transaction.
+public record RetentionPolicy(String name, String table, String idColumn, String condition,
+                              Duration retention, List<Dependent> dependents) {
+
+    public RetentionPolicy(String name, String table, String idColumn, String condition, Duration retention) {
+        this(name, table, idColumn, condition, retention, List.of());
+    }
+
+    public record Dependent(String table, String foreignKeyColumn) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.hamza.fruitsappbackend.retention;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// The SQL behind RetentionEngine. Table, column and condition strings come from the
+// RetentionPolicy beans, never from user input.
+@Repository
+public class RetentionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RetentionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // The next chunk of purgeable ids after afterId, walking the primary key
+    public List<Long> findIds(RetentionPolicy policy, long afterId, Timestamp cutoff, int limit) {
+        String sql = "SELECT " + policy.idColumn() + " FROM " + policy.table()
+                + " WHERE " + policy.idColumn() + " > ? AND (" + policy.condition() + ")"
+                + " ORDER BY " + policy.idColumn() + " LIMIT ?";
+        return jdbcTemplate.queryForList(sql, Long.class, afterId, cutoff, limit);
+    }
+
+    // Must run in a transaction. The condition is checked again on delete, so a row that stopped
+    // matching since findIds (a reopened cart) stays; with dependents the rows still matching are
+    // locked first so only their dependents go.
+    public int delete(RetentionPolicy policy, List<Long> ids, Timestamp cutoff) {
+        List<Long> purgeable = ids;
+        if (!policy.dependents().isEmpty()) {
+            purgeable = jdbcTemplate.queryForList("SELECT " + policy.idColumn() + " FROM " + policy.table()
+                    + " WHERE " + policy.idColumn() + " IN (" + placeholders(ids.size()) + ")"
+                    + " AND (" + policy.condition() + ") FOR UPDATE", Long.class, withCutoff(ids, cutoff));
+            if (purgeable.isEmpty()) {
+                return 0;
+            }
+            for (RetentionPolicy.Dependent dependent : policy.dependents()) {
+                jdbcTemplate.update("DELETE FROM " + dependent.table() + " WHERE " + dependent.foreignKeyColumn()
+                        + " IN (" + placeholders(purgeable.size()) + ")", purgeable.toArray());
+            }
+        }
+        return jdbcTemplate.update("DELETE FROM " + policy.table()
+                + " WHERE " + policy.idColumn() + " IN (" + placeholders(purgeable.size()) + ")"
+                + " AND (" + policy.condition() + ")", withCutoff(purgeable, cutoff));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] withCutoff(List<Long> ids, Timestamp cutoff) {
+        List<Object> args = new ArrayList<>(ids);
+        args.add(cutoff);
+        return args.toArray();
+    }
+}
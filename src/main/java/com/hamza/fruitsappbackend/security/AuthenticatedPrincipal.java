@@ -0,0 +1,25 @@
+package com.hamza.fruitsappbackend.security;
+
+import com.hamza.fruitsappbackend.modules.role.entity.Role;
+import com.hamza.fruitsappbackend.modules.user.entity.User;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public record AuthenticatedPrincipal(Long id, String email, Set<String> roles) {
+
+    public AuthenticatedPrincipal {
+        roles = Set.copyOf(roles);
+    }
+
+    public static AuthenticatedPrincipal from(User user) {
+        Set<String> roles = user.getRoles().stream()
+                .map(Role::getName)
+                .collect(Collectors.toSet());
+        return new AuthenticatedPrincipal(user.getId(), user.getEmail(), roles);
+    }
+
+    public boolean isAdmin() {
+        return roles.contains("ROLE_ADMIN");
+    }
+}
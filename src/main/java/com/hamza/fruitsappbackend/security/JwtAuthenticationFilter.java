@@ -10,14 +10,14 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.logging.Logger;
 
 @Component
@@ -25,17 +25,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = Logger.getLogger(JwtAuthenticationFilter.class.getName());
 
-    private final JwtTokenProvider jwtTokenProvider;
-private final UserDetailsService userDetailsService;
+    private final PrincipalResolver principalResolver;
 
     @Autowired
-    public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService) {
-        this.jwtTokenProvider = jwtTokenProvider;
-        this.userDetailsService = userDetailsService;
+    public JwtAuthenticationFilter(PrincipalResolver principalResolver) {
+        this.principalResolver = principalResolver;
     }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain) throws ServletException, IOException {
+        try {
+            authenticate(request, response, filterChain);
+        } finally {
+            principalResolver.recordRequest(principalResolver.currentResolution());
+        }
+    }
+
+    private void authenticate(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         String requestURI = request.getRequestURI();
         logger.info("Request URI: " + requestURI);
 
@@ -67,16 +73,15 @@ private final UserDetailsService userDetailsService;
                 return;
             }
 
-            if (jwtTokenProvider.validateToken(token)) {
-                String userName = jwtTokenProvider.getUserNameFromToken(token);
-                logger.info("Username from token: " + userName);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userName);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            // Parsed and loaded once here; services read the same principal through AuthorizationUtils.
+            AuthenticatedPrincipal principal = principalResolver.resolve(token);
+            List<SimpleGrantedAuthority> authorities = principal.roles().stream()
+                    .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
+                    .toList();
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+            SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                logger.info("User authenticated: " + userName);
-            }
+            logger.info("User authenticated: " + principal.email());
 
             filterChain.doFilter(request, response);
 
@@ -0,0 +1,114 @@
+package com.hamza.fruitsappbackend.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Claims of tokens whose signature has already been verified, keyed by a 64-bit hash of the
+// compact token. An entry is only returned for the exact same token string and never past the
+// token's own expiration, so a hit is equivalent to re-parsing it.
+@Component
+public class JwtClaimsCache {
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public JwtClaimsCache(@Value("${app.jwt.claims-cache.max-entries:10000}") int maxEntries, MeterRegistry meterRegistry) {
+        this.maxEntries = maxEntries;
+        this.hits = lookups(meterRegistry, "hit");
+        this.misses = lookups(meterRegistry, "miss");
+        this.evictions = Counter.builder("auth.jwt.claims.cache.evictions")
+                .description("Verified claims dropped because they expired or the cache was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.jwt.claims.cache.size", entries, Map::size)
+                .description("Verified JWT claims currently cached")
+                .register(meterRegistry);
+    }
+
+    public Claims get(String token) {
+        long key = hash(token);
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.token.equals(token)) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            // Let the parser report the expiry
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.claims;
+    }
+
+    public void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration == null || maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            makeRoom();
+        }
+        entries.put(hash(token), new Entry(token, claims, expiration.getTime()));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    // Drops expired entries first; if the cache is still full, drops whatever the iterator yields
+    // first until there is a tenth of the capacity free, which keeps this off the per-request path.
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(e -> {
+            boolean expired = e.getValue().expiresAt <= now;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        int target = maxEntries - Math.max(1, maxEntries / 10);
+        Iterator<Long> keys = entries.keySet().iterator();
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    // FNV-1a over the UTF-16 chars; collisions are harmless because the token itself is compared.
+    static long hash(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.jwt.claims.cache.lookups")
+                .description("Verified JWT claims cache lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Entry(String token, Claims claims, long expiresAt) {
+    }
+}
@@ -31,17 +31,22 @@ public class JwtTokenProvider {
 
     private Key key;
 
+    // Built once; the parser is immutable and safe to share between threads
+    private JwtParser jwtParser;
+
     private final UserRepository userRepository;
+    private final JwtClaimsCache jwtClaimsCache;
 
     @Autowired
-    public JwtTokenProvider(UserRepository userRepository) {
+    public JwtTokenProvider(UserRepository userRepository, JwtClaimsCache jwtClaimsCache) {
         this.userRepository = userRepository;
-
+        this.jwtClaimsCache = jwtClaimsCache;
     }
 
     @PostConstruct
     public void init() {
         this.key = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
 
@@ -95,9 +100,7 @@ public class JwtTokenProvider {
         if (token.startsWith("Bearer ")) {
             token = token.substring(7);
         }
-        JwtParser jwtValidatorParser = Jwts.parserBuilder().setSigningKey(key).build();
-        Claims claims = jwtValidatorParser.parseClaimsJws(token).getBody();
-        return claims.getSubject();
+        return verifiedClaims(token).getSubject();
     }
 
     public Claims getAllClaimsFromToken(String token) {
@@ -105,21 +108,21 @@ public class JwtTokenProvider {
         if (token.startsWith("Bearer ")) {
             token = token.substring(7);
         }
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verifiedClaims(token);
     }
 
     public boolean validateToken(String token) {
+        parseClaims(token);
+        return true;
+    }
+
+    public Claims parseClaims(String token) {
         try {
             token = token.trim();
             if (token.startsWith("Bearer ")) {
                 token = token.substring(7);
             }
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            return verifiedClaims(token);
         } catch (SignatureException e) {
             logger.severe("Invalid JWT signature: " + e.getMessage());
             throw new JwtAuthenticationException("Invalid JWT token", e);
@@ -135,6 +138,15 @@ public class JwtTokenProvider {
         }
     }
 
+    // Only claims that passed signature and expiry checks are cached, so a hit skips the HMAC
+    private Claims verifiedClaims(String token) {
+        Claims claims = jwtClaimsCache.get(token);
+        if (claims == null) {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+            jwtClaimsCache.put(token, claims);
+        }
+        return claims;
+    }
 
     public String getUserIdFromToken(String token) {
         Claims claims = getAllClaimsFromToken(token);
@@ -0,0 +1,48 @@
+package com.hamza.fruitsappbackend.security;
+
+import com.hamza.fruitsappbackend.modules.user.entity.User;
+
+// Per-request state: the resolved principal for a token plus how many times the
+// token was parsed and the user was loaded while serving the request.
+public class PrincipalResolution {
+
+    private String token;
+    private AuthenticatedPrincipal principal;
+    private User user;
+    private int tokenParses;
+    private int userLoads;
+
+    boolean matches(String token) {
+        return principal != null && token.equals(this.token);
+    }
+
+    void resolved(String token, AuthenticatedPrincipal principal, User user) {
+        this.token = token;
+        this.principal = principal;
+        this.user = user;
+    }
+
+    void tokenParsed() {
+        tokenParses++;
+    }
+
+    void userLoaded() {
+        userLoads++;
+    }
+
+    public AuthenticatedPrincipal getPrincipal() {
+        return principal;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public int getTokenParses() {
+        return tokenParses;
+    }
+
+    public int getUserLoads() {
+        return userLoads;
+    }
+}
@@ -0,0 +1,101 @@
+package com.hamza.fruitsappbackend.security;
+
+import com.hamza.fruitsappbackend.modules.user.entity.User;
+import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+@Component
+public class PrincipalResolver {
+
+    public static final String RESOLUTION_ATTRIBUTE = PrincipalResolver.class.getName() + ".RESOLUTION";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final UserRepository userRepository;
+    private final DistributionSummary tokenParsesPerRequest;
+    private final DistributionSummary userLoadsPerRequest;
+
+    @Autowired
+    public PrincipalResolver(JwtTokenProvider jwtTokenProvider, UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.userRepository = userRepository;
+        this.tokenParsesPerRequest = DistributionSummary.builder("auth.request.token.parses")
+                .description("JWT parses performed while serving a single request")
+                .register(meterRegistry);
+        this.userLoadsPerRequest = DistributionSummary.builder("auth.request.user.loads")
+                .description("User lookups performed while serving a single request")
+                .register(meterRegistry);
+    }
+
+    public AuthenticatedPrincipal resolve(String token) {
+        return resolveInternal(token).getPrincipal();
+    }
+
+    public User resolveUser(String token) {
+        return resolveInternal(token).getUser();
+    }
+
+    public PrincipalResolution currentResolution() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (PrincipalResolution) attributes.getAttribute(RESOLUTION_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    public void recordRequest(PrincipalResolution resolution) {
+        if (resolution == null) {
+            return;
+        }
+        tokenParsesPerRequest.record(resolution.getTokenParses());
+        userLoadsPerRequest.record(resolution.getUserLoads());
+    }
+
+    private PrincipalResolution resolveInternal(String token) {
+        token = stripBearer(token);
+
+        PrincipalResolution resolution = currentOrNewResolution();
+        if (resolution.matches(token)) {
+            return resolution;
+        }
+
+        resolution.tokenParsed();
+        Claims claims = jwtTokenProvider.parseClaims(token);
+        String email = claims.getSubject();
+
+        resolution.userLoaded();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new AccessDeniedException("User not found"));
+
+        resolution.resolved(token, AuthenticatedPrincipal.from(user), user);
+        return resolution;
+    }
+
+    private PrincipalResolution currentOrNewResolution() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            // Outside of a request (scheduled jobs, websocket callbacks) there is nothing to share.
+            return new PrincipalResolution();
+        }
+        PrincipalResolution resolution = (PrincipalResolution) attributes.getAttribute(RESOLUTION_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolution == null) {
+            resolution = new PrincipalResolution();
+            attributes.setAttribute(RESOLUTION_ATTRIBUTE, resolution, RequestAttributes.SCOPE_REQUEST);
+        }
+        return resolution;
+    }
+
+    private String stripBearer(String token) {
+        token = token.trim();
+        if (token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return token;
+    }
+}
@@ -0,0 +1,468 @@
+package com.hamza.fruitsappbackend.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hamza.fruitsappbackend.exception.global.BadRequestException;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.websocket.Session;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fans product changes out to the WebSocket sessions and SSE subscribers that asked for them,
+// without blocking the writer. Subscribers pick topics:
+//   all            every change; what a connection gets until it subscribes to anything else
+//   category:<id>  changes to the products of a category
+//   product:<id>   changes to one product (wishlist, cart)
+//   price          price changes of any product
+//   price:<id>     price changes of one product
+// A topic -> subscribers index routes each change to the subscribers of its topics only, so its
+// cost follows the number of interested subscribers rather than open connections.
+// Each change is serialized once; every subscriber has a bounded queue holding at most one pending
+// payload per product (a newer update replaces the queued one), and queues are drained on a small
+// dedicated pool, one drain at a time per subscriber. When a queue is full the oldest pending
+// product is dropped; a subscriber whose send fails is closed and removed.
+@Component
+public class ProductBroadcastHub {
+
+    private static final Logger logger = LogManager.getLogger(ProductBroadcastHub.class);
+
+    public static final String ALL = "all";
+    public static final String PRICE = "price";
+    private static final String CATEGORY_PREFIX = "category:";
+    private static final String PRODUCT_PREFIX = "product:";
+    private static final String PRICE_PREFIX = "price:";
+    private static final List<String> ID_PREFIXES = List.of(CATEGORY_PREFIX, PRODUCT_PREFIX, PRICE_PREFIX);
+
+    private static final String SSE_EVENT_NAME = "product-update";
+    private static final int WS_SEND_TIME_LIMIT_MS = 10_000;
+    private static final String TOMCAT_BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+    private static final int WS_BUFFER_SIZE_LIMIT = 512 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final int queueCapacity;
+    private final int maxTopics;
+    private final ExecutorService executor;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    // topic -> subscribed channels; a topic without subscribers has no entry
+    private final Map<String, Set<Channel>> topicIndex = new ConcurrentHashMap<>();
+    private final DistributionSummary fanout;
+    private final Counter coalesced;
+    private final Counter dropped;
+    private final Counter failed;
+
+    @Autowired
+    public ProductBroadcastHub(@Qualifier("objectMapper") ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${app.broadcast.queue-capacity:64}") int queueCapacity,
+                               @Value("${app.broadcast.max-topics:500}") int maxTopics,
+                               @Value("${app.broadcast.threads:4}") int threads) {
+        this.objectMapper = objectMapper;
+        this.queueCapacity = queueCapacity;
+        this.maxTopics = maxTopics;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "product-broadcast-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.fanout = DistributionSummary.builder("product.broadcast.fanout")
+                .description("Subscribers a product change was routed to")
+                .register(meterRegistry);
+        this.coalesced = messages(meterRegistry, "coalesced");
+        this.dropped = messages(meterRegistry, "dropped");
+        this.failed = messages(meterRegistry, "failed");
+        Gauge.builder("product.broadcast.subscribers", channels, Map::size)
+                .description("Open WebSocket sessions and SSE subscriptions receiving product updates")
+                .register(meterRegistry);
+        Gauge.builder("product.broadcast.topics", topicIndex, Map::size)
+                .description("Topics with at least one subscriber")
+                .register(meterRegistry);
+        Gauge.builder("product.broadcast.queue.depth", this, ProductBroadcastHub::queueDepth)
+                .description("Product updates queued for subscribers and not yet sent")
+                .register(meterRegistry);
+    }
+
+    public void register(WebSocketSession session) {
+        // A channel sends one message at a time, so each send goes out inline on the broadcast thread
+        // and a stalled client holds that thread until the blocking send times out. Tomcat's timeout
+        // is cut to the same limit the decorator uses; SSE writes are bounded by the connector's
+        // write timeout.
+        Session standardSession = session instanceof NativeWebSocketSession nativeSession
+                ? nativeSession.getNativeSession(Session.class)
+                : null;
+        if (standardSession != null) {
+            standardSession.getUserProperties().put(TOMCAT_BLOCKING_SEND_TIMEOUT, (long) WS_SEND_TIME_LIMIT_MS);
+        }
+        WebSocketSession concurrentSession =
+                new ConcurrentWebSocketSessionDecorator(session, WS_SEND_TIME_LIMIT_MS, WS_BUFFER_SIZE_LIMIT);
+        open(session.getId(), null, new Subscriber() {
+            @Override
+            public void send(String payload) throws IOException {
+                concurrentSession.sendMessage(new TextMessage(payload));
+            }
+
+            @Override
+            public void close() {
+                try {
+                    concurrentSession.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException e) {
+                    logger.debug("Closing WebSocket session {} failed", session.getId(), e);
+                }
+            }
+        });
+    }
+
+    public void unregister(WebSocketSession session) {
+        Channel channel = channels.remove(session.getId());
+        if (channel != null) {
+            channel.unindexAll();
+        }
+    }
+
+    // The first topics a session subscribes to replace its implicit "all".
+    public void subscribe(WebSocketSession session, Collection<String> topics) {
+        Channel channel = channels.get(session.getId());
+        if (channel != null) {
+            channel.subscribe(parseTopics(topics));
+        }
+    }
+
+    public void unsubscribe(WebSocketSession session, Collection<String> topics) {
+        Channel channel = channels.get(session.getId());
+        if (channel != null) {
+            channel.unsubscribe(parseTopics(topics));
+        }
+    }
+
+    // No topics subscribes to all changes.
+    public SseEmitter subscribe(long timeoutMillis, Collection<String> topics) {
+        Set<String> parsed = topics == null || topics.isEmpty() ? null : parseTopics(topics);
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        String id = "sse-" + UUID.randomUUID();
+        open(id, parsed, new Subscriber() {
+            @Override
+            public void send(String payload) throws IOException {
+                emitter.send(SseEmitter.event().name(SSE_EVENT_NAME).data(payload, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(() -> remove(id));
+        emitter.onTimeout(() -> remove(id));
+        emitter.onError(e -> remove(id));
+        return emitter;
+    }
+
+    // Changes are sent as the product's catalog view, deletions as a {"id", "type": "DELETED"}
+    // tombstone. Updates that carry no snapshot (stock, rating and order counters) and bulk deletes
+    // are not broadcast.
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        ProductDTO snapshot = event.snapshot();
+        if (snapshot == null || (event.type() == ProductChangedEvent.Type.UPDATED && event.changedProperties().isEmpty())) {
+            return;
+        }
+        Long productId = event.productId();
+        Set<Channel> targets = new HashSet<>();
+        collect(targets, ALL);
+        collect(targets, PRODUCT_PREFIX + productId);
+        if (snapshot.getCategoryId() != null) {
+            collect(targets, CATEGORY_PREFIX + snapshot.getCategoryId());
+        }
+        if (event.type() == ProductChangedEvent.Type.UPDATED && event.changedProperties().contains("price")) {
+            collect(targets, PRICE);
+            collect(targets, PRICE_PREFIX + productId);
+        }
+        fanout.record(targets.size());
+        if (targets.isEmpty()) {
+            return;
+        }
+        String payload = event.type() == ProductChangedEvent.Type.DELETED
+                ? serialize(tombstone(productId))
+                : serialize(snapshot);
+        for (Channel channel : targets) {
+            channel.offer(productId, payload);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void open(String id, Set<String> topics, Subscriber subscriber) {
+        Channel channel = new Channel(id, subscriber);
+        channels.put(id, channel);
+        try {
+            if (topics == null) {
+                channel.subscribeToAll();
+            } else {
+                channel.subscribe(topics);
+            }
+        } catch (RuntimeException e) {
+            // Too many topics: the subscription is refused and must not stay registered
+            remove(id);
+            throw e;
+        }
+    }
+
+    private void remove(String id) {
+        Channel channel = channels.remove(id);
+        if (channel != null) {
+            channel.unindexAll();
+        }
+    }
+
+    private void collect(Set<Channel> targets, String topic) {
+        Set<Channel> subscribed = topicIndex.get(topic);
+        if (subscribed != null) {
+            targets.addAll(subscribed);
+        }
+    }
+
+    private static Set<String> parseTopics(Collection<String> topics) {
+        if (topics == null || topics.isEmpty()) {
+            throw new BadRequestException("At least one topic is required");
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String topic : topics) {
+            parsed.add(parseTopic(topic));
+        }
+        return parsed;
+    }
+
+    // Normalises the id so "product:07" and "product:7" are the same topic.
+    private static String parseTopic(String topic) {
+        String value = topic == null ? "" : topic.trim();
+        if (value.equals(ALL) || value.equals(PRICE)) {
+            return value;
+        }
+        for (String prefix : ID_PREFIXES) {
+            if (value.startsWith(prefix)) {
+                try {
+                    return prefix + Long.parseLong(value.substring(prefix.length()));
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            }
+        }
+        throw new BadRequestException("Unknown topic: " + topic);
+    }
+
+    private static Map<String, Object> tombstone(Long productId) {
+        Map<String, Object> tombstone = new LinkedHashMap<>();
+        tombstone.put("id", productId);
+        tombstone.put("type", ProductChangedEvent.Type.DELETED.name());
+        return tombstone;
+    }
+
+    private String serialize(Object product) {
+        try {
+            return objectMapper.writeValueAsString(product);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to convert product to JSON", e);
+        }
+    }
+
+    private int queueDepth() {
+        int depth = 0;
+        for (Channel channel : channels.values()) {
+            depth += channel.size();
+        }
+        return depth;
+    }
+
+    private interface Subscriber {
+        void send(String payload) throws IOException;
+
+        void close();
+    }
+
+    private final class Channel {
+        private final String id;
+        private final Subscriber subscriber;
+        // productId -> latest payload, oldest product first; guarded by this
+        private final LinkedHashMap<Long, String> queue = new LinkedHashMap<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // guarded by this, as are implicitAll and closed
+        private final Set<String> topics = new HashSet<>();
+        private boolean implicitAll;
+        private boolean closed;
+
+        private Channel(String id, Subscriber subscriber) {
+            this.id = id;
+            this.subscriber = subscriber;
+        }
+
+        private synchronized void subscribeToAll() {
+            if (!closed && topics.add(ALL)) {
+                index(ALL);
+                implicitAll = true;
+            }
+        }
+
+        private synchronized void subscribe(Set<String> requested) {
+            if (closed) {
+                return;
+            }
+            if (implicitAll && !requested.contains(ALL)) {
+                topics.remove(ALL);
+                unindex(ALL);
+            }
+            implicitAll = false;
+            int added = 0;
+            for (String topic : requested) {
+                if (!topics.contains(topic)) {
+                    added++;
+                }
+            }
+            if (topics.size() + added > maxTopics) {
+                throw new BadRequestException("A subscriber can follow at most " + maxTopics + " topics");
+            }
+            for (String topic : requested) {
+                if (topics.add(topic)) {
+                    index(topic);
+                }
+            }
+        }
+
+        private synchronized void unsubscribe(Set<String> requested) {
+            implicitAll = false;
+            for (String topic : requested) {
+                if (topics.remove(topic)) {
+                    unindex(topic);
+                }
+            }
+        }
+
+        private synchronized void unindexAll() {
+            closed = true;
+            topics.forEach(this::unindex);
+            topics.clear();
+        }
+
+        // Both run inside the map's per-key compute, so a topic's set is never dropped while being added to
+        private void index(String topic) {
+            topicIndex.compute(topic, (key, subscribed) -> {
+                Set<Channel> result = subscribed != null ? subscribed : ConcurrentHashMap.newKeySet();
+                result.add(this);
+                return result;
+            });
+        }
+
+        private void unindex(String topic) {
+            topicIndex.computeIfPresent(topic, (key, subscribed) -> {
+                subscribed.remove(this);
+                return subscribed.isEmpty() ? null : subscribed;
+            });
+        }
+
+        private void offer(Long productId, String payload) {
+            synchronized (this) {
+                if (queue.containsKey(productId)) {
+                    coalesced.increment();
+                } else if (queue.size() >= queueCapacity) {
+                    Iterator<Long> oldest = queue.keySet().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    dropped.increment();
+                }
+                queue.put(productId, payload);
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                String payload;
+                synchronized (this) {
+                    Iterator<String> next = queue.values().iterator();
+                    if (!next.hasNext()) {
+                        draining.set(false);
+                        return;
+                    }
+                    payload = next.next();
+                    next.remove();
+                }
+                try {
+                    subscriber.send(payload);
+                } catch (IOException | RuntimeException e) {
+                    // Includes the decorator's SessionLimitExceededException and a completed emitter
+                    failed.increment();
+                    try {
+                        close();
+                    } finally {
+                        draining.set(false);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void close() {
+            remove(id);
+            synchronized (this) {
+                queue.clear();
+            }
+            try {
+                subscriber.close();
+            } catch (RuntimeException e) {
+                logger.debug("Closing subscriber {} failed", id, e);
+            }
+        }
+
+        private synchronized int size() {
+            return queue.size();
+        }
+    }
+
+    private static Counter messages(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("product.broadcast.messages")
+                .description("Product updates not delivered as sent: coalesced, dropped on overflow or failed")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -1,8 +1,9 @@
 package com.hamza.fruitsappbackend.websocket;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.exception.global.BadRequestException;
 import com.hamza.fruitsappbackend.security.JwtTokenProvider;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,7 +17,6 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,14 +24,16 @@ import java.util.List;
 @Component
 public class WebSocketProductHandler extends TextWebSocketHandler {
     private final JwtTokenProvider jwtTokenProvider;
-    private final List<WebSocketSession> sessions = new ArrayList<>();
+    private final ProductBroadcastHub productBroadcastHub;
     private final ObjectMapper objectMapper;
     private static final Logger logger = LogManager.getLogger(WebSocketProductHandler.class);
 
 
     @Autowired
-    public WebSocketProductHandler(JwtTokenProvider jwtTokenProvider, @Qualifier("objectMapper") ObjectMapper objectMapper) {
+    public WebSocketProductHandler(JwtTokenProvider jwtTokenProvider, ProductBroadcastHub productBroadcastHub,
+                                   @Qualifier("objectMapper") ObjectMapper objectMapper) {
         this.jwtTokenProvider = jwtTokenProvider;
+        this.productBroadcastHub = productBroadcastHub;
         this.objectMapper = objectMapper;
     }
 
@@ -48,7 +50,7 @@ public class WebSocketProductHandler extends TextWebSocketHandler {
 
             if (token != null && !token.isEmpty()) {
                 if (jwtTokenProvider.validateToken(token)) {
-                    sessions.add(session);
+                    productBroadcastHub.register(session);
                     logger.info("Token is valid. WebSocket session established with session ID: {}", session.getId());
                 } else {
                     System.out.println("Invalid token. Closing WebSocket session.");
@@ -63,38 +65,25 @@ public class WebSocketProductHandler extends TextWebSocketHandler {
 
     @Override
     public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
-        sessions.remove(session);
+        productBroadcastHub.unregister(session);
         logger.info("WebSocket session closed: {}", status);
     }
 
+    // {"action": "subscribe" | "unsubscribe", "topics": ["category:3", "product:12", "price"]},
+    // see ProductBroadcastHub for the topics
     @Override
-    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) throws JsonProcessingException {
-        logger.info("Received message: {}", message.getPayload());
-    }
-
-    public void sendProductUpdate(ProductDTO productDTO) {
-        logger.info("Sending ProductDTO: {}", productDTO);
-
-        TextMessage message = createWebSocketMessage(productDTO);
-        List<WebSocketSession> closedSessions = new ArrayList<>();
-
-        for (WebSocketSession session : sessions) {
-            try {
-                session.sendMessage(message);
-            } catch (IOException e) {
-                closedSessions.add(session);
-            }
-        }
-
-        sessions.removeAll(closedSessions);
-    }
-
-    private TextMessage createWebSocketMessage(ProductDTO productDTO) {
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
         try {
-            String payload = objectMapper.writeValueAsString(productDTO);
-            return new TextMessage(payload);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to convert product to JSON", e);
+            JsonNode request = objectMapper.readTree(message.getPayload());
+            List<String> topics = new ArrayList<>();
+            request.path("topics").forEach(topic -> topics.add(topic.asText()));
+            switch (request.path("action").asText()) {
+                case "subscribe" -> productBroadcastHub.subscribe(session, topics);
+                case "unsubscribe" -> productBroadcastHub.unsubscribe(session, topics);
+                default -> logger.info("Ignoring message without a known action: {}", message.getPayload());
+            }
+        } catch (JsonProcessingException | BadRequestException e) {
+            logger.info("Ignoring invalid subscription message on session {}: {}", session.getId(), e.getMessage());
         }
     }
 }
@@ -0,0 +1,37 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.hamza.fruitsappbackend.FruitsAppBackendApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+// One application context per JMH fork, started against the embedded H2 database from
+// application-benchmark.properties and shared by every benchmark state in that fork.
+public final class BenchmarkContext {
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkContext() {
+    }
+
+    public static synchronized ConfigurableApplicationContext get() {
+        if (context == null) {
+            SpringApplication application = new SpringApplication(FruitsAppBackendApplication.class);
+            application.setAdditionalProfiles("benchmark");
+            application.addInitializers(initialized -> initialized.getBeanFactory().addBeanPostProcessor(new RoundTripCounter()));
+            context = application.run();
+        }
+        return context;
+    }
+
+    // JMH forks a VM per benchmark and parameter set, so the context is closed with the trial.
+    public static synchronized void close() {
+        if (context != null) {
+            context.close();
+            context = null;
+        }
+    }
+
+    public static SyntheticDataGenerator generator(long seed) {
+        return new SyntheticDataGenerator(get(), seed);
+    }
+}
@@ -0,0 +1,78 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.hamza.fruitsappbackend.modules.cart.dto.CartItemDTO;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartItemResponseDto;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartMutationDTO;
+import com.hamza.fruitsappbackend.modules.cart.service.CartItemService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Quantity changes on an active cart of the given size; increases and decreases are paired so the
+// cart stays the same. The batch variant applies 20 taps in two CartItemService.applyCartMutations
+// calls, and the database round-trips per tap of each variant are printed at the end of the trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int cartSize;
+
+    private CartItemService cartItemService;
+    private String token;
+    private Long productId;
+    private List<CartMutationDTO> tenIncreases;
+    private List<CartMutationDTO> tenDecreases;
+    private long taps;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticDataGenerator generator = BenchmarkContext.generator(42);
+        SyntheticDataGenerator.SyntheticUser user = generator.user(generator.catalog(8, 500), 0, cartSize, 0);
+        token = user.token();
+        productId = user.cartProductIds().get(0);
+        tenIncreases = Collections.nCopies(10, new CartMutationDTO(productId, 1));
+        tenDecreases = Collections.nCopies(10, new CartMutationDTO(productId, -1));
+        cartItemService = BenchmarkContext.get().getBean(CartItemService.class);
+        RoundTripCounter.reset();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%ncart of %d items: %.2f round-trips per tap%n",
+                cartSize, (double) RoundTripCounter.get() / taps);
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public CartItemDTO increaseThenDecreaseQuantity() {
+        cartItemService.increaseCartItemQuantity(productId, token);
+        taps += 2;
+        return cartItemService.decreaseCartItemQuantity(productId, token);
+    }
+
+    @Benchmark
+    public CartItemResponseDto twentyTapsInTwoBatches() {
+        cartItemService.applyCartMutations(tenIncreases, token);
+        taps += 20;
+        return cartItemService.applyCartMutations(tenDecreases, token);
+    }
+}
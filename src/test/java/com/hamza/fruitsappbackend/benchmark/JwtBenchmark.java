@@ -0,0 +1,63 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.hamza.fruitsappbackend.security.AuthenticatedPrincipal;
+import com.hamza.fruitsappbackend.security.JwtTokenProvider;
+import com.hamza.fruitsappbackend.security.PrincipalResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Token checks done on every authenticated request.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtTokenProvider jwtTokenProvider;
+    private PrincipalResolver principalResolver;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticDataGenerator generator = BenchmarkContext.generator(42);
+        token = generator.user(generator.catalog(8, 500), 0, 0, 0).token();
+        jwtTokenProvider = BenchmarkContext.get().getBean(JwtTokenProvider.class);
+        principalResolver = BenchmarkContext.get().getBean(PrincipalResolver.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public String getUserNameFromToken() {
+        return jwtTokenProvider.getUserNameFromToken(token);
+    }
+
+    // Parse plus the user lookup, as done once per request by the authentication filter.
+    @Benchmark
+    public AuthenticatedPrincipal resolvePrincipal() {
+        return principalResolver.resolve(token);
+    }
+}
@@ -0,0 +1,269 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.hamza.fruitsappbackend.constant.CartStatus;
+import com.hamza.fruitsappbackend.modules.address.dto.AddressDTO;
+import com.hamza.fruitsappbackend.modules.address.entity.Address;
+import com.hamza.fruitsappbackend.modules.address.mapper.AddressMapper;
+import com.hamza.fruitsappbackend.modules.address.mapper.AddressMapperImpl;
+import com.hamza.fruitsappbackend.modules.cart.dto.CartDTO;
+import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
+import com.hamza.fruitsappbackend.modules.cart.entity.CartItem;
+import com.hamza.fruitsappbackend.modules.cart.mapper.CartItemMapperImpl;
+import com.hamza.fruitsappbackend.modules.cart.mapper.CartMapper;
+import com.hamza.fruitsappbackend.modules.cart.mapper.CartMapperImpl;
+import com.hamza.fruitsappbackend.modules.order.dto.OrderDTO;
+import com.hamza.fruitsappbackend.modules.order.dto.OrderItemDTO;
+import com.hamza.fruitsappbackend.modules.order.entity.Order;
+import com.hamza.fruitsappbackend.modules.order.entity.OrderItem;
+import com.hamza.fruitsappbackend.modules.order.mapper.OrderItemMapper;
+import com.hamza.fruitsappbackend.modules.order.mapper.OrderItemMapperImpl;
+import com.hamza.fruitsappbackend.modules.order.mapper.OrderMapper;
+import com.hamza.fruitsappbackend.modules.order.mapper.OrderMapperImpl;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.entity.Category;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.modules.product.mapper.ProductMapper;
+import com.hamza.fruitsappbackend.modules.product.mapper.ProductMapperImpl;
+import com.hamza.fruitsappbackend.modules.review.dto.ReviewDTO;
+import com.hamza.fruitsappbackend.modules.review.entity.Review;
+import com.hamza.fruitsappbackend.modules.review.mapper.ReviewMapper;
+import com.hamza.fruitsappbackend.modules.review.mapper.ReviewMapperImpl;
+import com.hamza.fruitsappbackend.modules.role.entity.Role;
+import com.hamza.fruitsappbackend.modules.role.mapper.RoleMapperImpl;
+import com.hamza.fruitsappbackend.modules.user.dto.UserDTO;
+import com.hamza.fruitsappbackend.modules.user.entity.User;
+import com.hamza.fruitsappbackend.modules.user.mapper.UserMapper;
+import com.hamza.fruitsappbackend.modules.user.mapper.UserMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Generated mappers against a bare ModelMapper (as previously configured in ModelMapperConfig)
+// on the DTO paths the services hit per element. Entities are plain objects with their
+// associations populated, which is what ModelMapper walks when they are initialized.
+//
+// mvn -Pbenchmark test-compile exec:exec -Djmh.args="MapperBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private ProductMapper productMapper;
+    private OrderMapper orderMapper;
+    private OrderItemMapper orderItemMapper;
+    private ReviewMapper reviewMapper;
+    private UserMapper userMapper;
+    private AddressMapper addressMapper;
+    private CartMapper cartMapper;
+
+    private List<Product> productPage;
+    private Order order;
+    private OrderItem orderItem;
+    private Review review;
+    private User user;
+    private Address address;
+    private Cart cart;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        productMapper = new ProductMapperImpl();
+        orderMapper = new OrderMapperImpl();
+        orderItemMapper = new OrderItemMapperImpl();
+        reviewMapper = new ReviewMapperImpl();
+        userMapper = new UserMapperImpl(new RoleMapperImpl());
+        addressMapper = new AddressMapperImpl();
+        cartMapper = new CartMapperImpl(new CartItemMapperImpl());
+
+        Category category = new Category();
+        category.setId(1L);
+        category.setName("Fruits");
+
+        productPage = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            productPage.add(product(id, category));
+        }
+
+        user = new User();
+        user.setId(7L);
+        user.setName("Benchmark User");
+        user.setEmail("user@example.com");
+        user.setPassword("$2a$10$hash");
+        user.setIsVerified(true);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(LocalDateTime.now());
+        user.setRoles(Set.of(Role.builder().id(1L).name("ROLE_USER").build()));
+
+        address = new Address();
+        address.setId(3L);
+        address.setFullName("Benchmark User");
+        address.setCity("Gaza");
+        address.setStreetAddress("Main street 1");
+        address.setPhoneNumber("0590000000");
+        address.setUser(user);
+
+        cart = new Cart();
+        cart.setId(11L);
+        cart.setStatus(CartStatus.ACTIVE);
+        cart.setUser(user);
+        for (Product product : productPage.subList(0, 5)) {
+            CartItem item = new CartItem(cart, product);
+            item.setId(product.getId());
+            cart.getCartItems().add(item);
+        }
+
+        order = new Order();
+        order.setId(5L);
+        order.setTotalPrice(BigDecimal.valueOf(42.5));
+        order.setCreatedAt(LocalDateTime.now());
+        order.setUpdatedAt(LocalDateTime.now());
+        order.setUser(user);
+        order.setAddress(address);
+        order.setCart(cart);
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (Product product : productPage.subList(0, 5)) {
+            OrderItem item = new OrderItem();
+            item.setId(product.getId());
+            item.setQuantity(2);
+            item.setPrice(BigDecimal.valueOf(product.getPrice()));
+            item.setOrder(order);
+            item.setProduct(product);
+            orderItems.add(item);
+        }
+        order.setOrderItems(orderItems);
+        orderItem = orderItems.get(0);
+
+        review = new Review();
+        review.setId(9L);
+        review.setRating(4.0);
+        review.setComment("Fresh and sweet");
+        review.setCreatedAt(LocalDateTime.now());
+        review.setUpdatedAt(LocalDateTime.now());
+        review.setUser(user);
+        review.setProduct(productPage.get(0));
+
+        user.setAddresses(List.of(address));
+        user.setCarts(List.of(cart));
+        user.setOrders(List.of(order));
+        user.setReviews(List.of(review));
+    }
+
+    @Benchmark
+    public List<ProductDTO> productPageModelMapper() {
+        List<ProductDTO> page = new ArrayList<>(productPage.size());
+        for (Product product : productPage) {
+            ProductDTO productDTO = modelMapper.map(product, ProductDTO.class);
+            productDTO.setAddedAt(product.getCreatedAt());
+            page.add(productDTO);
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<ProductDTO> productPageGenerated() {
+        List<ProductDTO> page = new ArrayList<>(productPage.size());
+        for (Product product : productPage) {
+            page.add(productMapper.toDto(product));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public OrderDTO orderModelMapper() {
+        return modelMapper.map(order, OrderDTO.class);
+    }
+
+    @Benchmark
+    public OrderDTO orderGenerated() {
+        return orderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public OrderItemDTO orderItemModelMapper() {
+        return modelMapper.map(orderItem, OrderItemDTO.class);
+    }
+
+    @Benchmark
+    public OrderItemDTO orderItemGenerated() {
+        return orderItemMapper.toDto(orderItem);
+    }
+
+    @Benchmark
+    public ReviewDTO reviewModelMapper() {
+        return modelMapper.map(review, ReviewDTO.class);
+    }
+
+    @Benchmark
+    public ReviewDTO reviewGenerated() {
+        return reviewMapper.toDto(review);
+    }
+
+    @Benchmark
+    public UserDTO userModelMapper() {
+        return modelMapper.map(user, UserDTO.class);
+    }
+
+    @Benchmark
+    public UserDTO userGenerated() {
+        return userMapper.toDto(user);
+    }
+
+    @Benchmark
+    public AddressDTO addressModelMapper() {
+        return modelMapper.map(address, AddressDTO.class);
+    }
+
+    @Benchmark
+    public AddressDTO addressGenerated() {
+        return addressMapper.toDto(address);
+    }
+
+    @Benchmark
+    public CartDTO cartModelMapper() {
+        return modelMapper.map(cart, CartDTO.class);
+    }
+
+    @Benchmark
+    public CartDTO cartGenerated() {
+        return cartMapper.toDto(cart);
+    }
+
+    private static Product product(long id, Category category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setDescription("Description of product " + id);
+        product.setPrice(1.5 + id);
+        product.setStockQuantity(100);
+        product.setImageUrl("https://example.com/" + id + ".png");
+        product.setOrderCount(id * 3);
+        product.setProductWeight(1.0);
+        product.setCaloriesPer100Grams(52);
+        product.setExpirationDate(LocalDate.now().plusDays(30));
+        product.setTotalRating(4.2);
+        product.setCreatedAt(LocalDateTime.now());
+        product.setUpdatedAt(LocalDateTime.now());
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,52 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.hamza.fruitsappbackend.modules.order.dto.OrderResponseDto;
+import com.hamza.fruitsappbackend.modules.order.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Order history for a user with the given number of orders (OrderServiceImpl.buildOrderResponseDto).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderBenchmark {
+
+    @Param({"5", "50"})
+    public int orderCount;
+
+    private OrderService orderService;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticDataGenerator generator = BenchmarkContext.generator(42);
+        token = generator.user(generator.catalog(8, 500), 0, 0, orderCount).token();
+        orderService = BenchmarkContext.get().getBean(OrderService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public OrderResponseDto ordersByUser() {
+        return orderService.getOrdersByUserId(token);
+    }
+}
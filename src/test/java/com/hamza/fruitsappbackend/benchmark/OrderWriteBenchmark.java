@@ -0,0 +1,75 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.hamza.fruitsappbackend.modules.order.dto.OrderDTO;
+import com.hamza.fruitsappbackend.modules.order.service.OrderService;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Checkout of an active cart with the given number of items (OrderServiceImpl.createOrder). The
+// cart is refilled outside the measurement before every call, and the database round-trips of
+// the checkout itself (see RoundTripCounter) are printed per order at the end of the trial.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderWriteBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int itemCount;
+
+    private OrderService orderService;
+    private SyntheticDataGenerator generator;
+    private SyntheticDataGenerator.SyntheticUser user;
+    private List<Product> catalog;
+    private long roundTrips;
+    private long orders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = BenchmarkContext.generator(42);
+        catalog = generator.catalog(8, 500);
+        user = generator.user(catalog, 0, 0, 0);
+        orderService = BenchmarkContext.get().getBean(OrderService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void fillCart() {
+        generator.fillActiveCart(user, catalog, itemCount);
+        RoundTripCounter.reset();
+    }
+
+    @TearDown(Level.Invocation)
+    public void countRoundTrips() {
+        roundTrips += RoundTripCounter.get();
+        orders++;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%ncreateOrder with %d items: %.1f round-trips per order%n",
+                itemCount, (double) roundTrips / orders);
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public OrderDTO createOrder() {
+        return orderService.createOrder(new OrderDTO(), user.token());
+    }
+}
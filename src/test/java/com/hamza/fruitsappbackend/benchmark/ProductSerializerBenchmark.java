@@ -0,0 +1,77 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// ProductDTOSerializer through an ObjectMapper configured like the application's bean.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializerBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ProductResponse page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .configure(SerializationFeature.INDENT_OUTPUT, true)
+                .registerModule(new JavaTimeModule());
+
+        Random random = new Random(42);
+        List<ProductDTO> content = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            ProductDTO productDTO = new ProductDTO();
+            productDTO.setId(id);
+            productDTO.setName("Organic Apple " + id);
+            productDTO.setDescription("Fresh organic apple " + id + " picked this week, sold by weight.");
+            productDTO.setPrice(0.5 + random.nextInt(2000) / 100.0);
+            productDTO.setStockQuantity(random.nextInt(500));
+            productDTO.setImageUrl("https://cdn.example.com/products/" + id + ".png");
+            productDTO.setCategoryId(1 + id % 8);
+            productDTO.setProductWeight(1.0);
+            productDTO.setCaloriesPer100Grams(52);
+            productDTO.setExpirationDate(LocalDate.now().plusDays(30));
+            productDTO.setAddedAt(LocalDateTime.now());
+            productDTO.setOrderCount((long) random.nextInt(5000));
+            productDTO.setTotalRating(random.nextInt(50) / 10.0);
+            productDTO.setIsFavorite(random.nextBoolean());
+            productDTO.setIsInCart(random.nextBoolean());
+            content.add(productDTO);
+        }
+        page = new ProductResponse(pageSize, 0, 500, (500 + pageSize - 1) / pageSize, false, content);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
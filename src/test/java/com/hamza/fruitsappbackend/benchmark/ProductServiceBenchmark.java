@@ -0,0 +1,68 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductResponse;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.modules.product.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Product reads for a user whose wishlist and cart are the given size, i.e. ProductServiceImpl
+// resolving the favorite/in-cart flags and converting the catalog entries (convertToDto/applyFlags).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    @Param({"0", "25", "200"})
+    public int wishlistSize;
+
+    @Param({"0", "10", "50"})
+    public int cartSize;
+
+    private ProductService productService;
+    private String token;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticDataGenerator generator = BenchmarkContext.generator(42);
+        List<Product> catalog = generator.catalog(8, 500);
+        token = generator.user(catalog, wishlistSize, cartSize, 0).token();
+        productId = catalog.get(catalog.size() / 2).getId();
+        productService = BenchmarkContext.get().getBean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContext.close();
+    }
+
+    @Benchmark
+    public ProductResponse allProductsPage() {
+        return productService.getAllProducts(token, 20, 0, "id", "asc");
+    }
+
+    @Benchmark
+    public Optional<ProductDTO> productById() {
+        return productService.getProductById(token, productId);
+    }
+}
@@ -0,0 +1,77 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Wraps the application DataSource and counts calls that reach the database server: statement
+// executions (a JDBC batch counts once), commits and rollbacks. Registered by BenchmarkContext.
+public class RoundTripCounter implements BeanPostProcessor {
+
+    private static final Set<String> ROUND_TRIPS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch", "commit", "rollback");
+
+    private static final AtomicLong roundTrips = new AtomicLong();
+
+    public static long get() {
+        return roundTrips.get();
+    }
+
+    public static void reset() {
+        roundTrips.set(0);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    private static Object proxy(Class<?> type, Object target) {
+        return Proxy.newProxyInstance(RoundTripCounter.class.getClassLoader(), new Class<?>[]{type}, new Counting(target));
+    }
+
+    private record Counting(Object target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (ROUND_TRIPS.contains(method.getName())) {
+                roundTrips.incrementAndGet();
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                return result;
+            }
+            if (result instanceof Connection) {
+                return proxy(Connection.class, result);
+            }
+            if (result instanceof CallableStatement) {
+                return proxy(CallableStatement.class, result);
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, result);
+            }
+            if (result instanceof Statement) {
+                return proxy(Statement.class, result);
+            }
+            return result;
+        }
+    }
+}
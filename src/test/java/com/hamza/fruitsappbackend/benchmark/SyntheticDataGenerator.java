@@ -0,0 +1,231 @@
+package com.hamza.fruitsappbackend.benchmark;
+
+import com.hamza.fruitsappbackend.constant.CartStatus;
+import com.hamza.fruitsappbackend.modules.address.entity.Address;
+import com.hamza.fruitsappbackend.modules.address.repository.AddressRepository;
+import com.hamza.fruitsappbackend.modules.cart.entity.Cart;
+import com.hamza.fruitsappbackend.modules.cart.entity.CartItem;
+import com.hamza.fruitsappbackend.modules.cart.repository.CartRepository;
+import com.hamza.fruitsappbackend.modules.order.entity.Order;
+import com.hamza.fruitsappbackend.modules.order.entity.OrderItem;
+import com.hamza.fruitsappbackend.modules.order.repository.OrderRepository;
+import com.hamza.fruitsappbackend.modules.product.entity.Category;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.modules.product.repository.CategoryRepository;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
+import com.hamza.fruitsappbackend.modules.role.entity.Role;
+import com.hamza.fruitsappbackend.modules.role.repository.RoleRepository;
+import com.hamza.fruitsappbackend.modules.user.entity.User;
+import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
+import com.hamza.fruitsappbackend.modules.wishlist.entity.Wishlist;
+import com.hamza.fruitsappbackend.modules.wishlist.repository.WishlistRepository;
+import com.hamza.fruitsappbackend.security.JwtTokenProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Seeded, repeatable data for the benchmarks: a shared catalog plus users with wishlists, an
+// active cart and past orders of a requested size. Everything goes through the real repositories.
+public class SyntheticDataGenerator {
+
+    private static final String[] FRUITS = {"Apple", "Banana", "Mango", "Orange", "Grape", "Peach", "Pear",
+            "Cherry", "Lemon", "Kiwi", "Papaya", "Guava", "Plum", "Apricot", "Pineapple", "Melon"};
+    private static final String[] VARIETIES = {"Red", "Green", "Golden", "Organic", "Baby", "Wild", "Sweet", "Local"};
+
+    private static final AtomicInteger USER_SEQUENCE = new AtomicInteger();
+
+    private final Random random;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRepository roleRepository;
+    private final UserRepository userRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final WishlistRepository wishlistRepository;
+    private final CartRepository cartRepository;
+    private final AddressRepository addressRepository;
+    private final OrderRepository orderRepository;
+    private final JwtTokenProvider jwtTokenProvider;
+
+    public SyntheticDataGenerator(ApplicationContext context, long seed) {
+        this.random = new Random(seed);
+        this.transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        this.roleRepository = context.getBean(RoleRepository.class);
+        this.userRepository = context.getBean(UserRepository.class);
+        this.categoryRepository = context.getBean(CategoryRepository.class);
+        this.productRepository = context.getBean(ProductRepository.class);
+        this.wishlistRepository = context.getBean(WishlistRepository.class);
+        this.cartRepository = context.getBean(CartRepository.class);
+        this.addressRepository = context.getBean(AddressRepository.class);
+        this.orderRepository = context.getBean(OrderRepository.class);
+        this.jwtTokenProvider = context.getBean(JwtTokenProvider.class);
+    }
+
+    // Returns the catalog, creating it on first use so every benchmark in a fork shares it.
+    public List<Product> catalog(int categoryCount, int productCount) {
+        List<Product> existing = productRepository.findAll();
+        if (existing.size() >= productCount) {
+            return existing.subList(0, productCount);
+        }
+        return transactionTemplate.execute(status -> {
+            List<Category> categories = new ArrayList<>();
+            for (int i = 0; i < categoryCount; i++) {
+                Category category = new Category();
+                category.setName("Category " + i);
+                category.setDescription("Synthetic category " + i);
+                categories.add(categoryRepository.save(category));
+            }
+            List<Product> products = new ArrayList<>();
+            for (int i = existing.size(); i < productCount; i++) {
+                products.add(productRepository.save(product(i, categories.get(i % categories.size()))));
+            }
+            return products;
+        });
+    }
+
+    public SyntheticUser user(List<Product> catalog, int wishlistSize, int cartSize, int orderCount) {
+        SyntheticUser syntheticUser = transactionTemplate.execute(status -> {
+            User user = new User();
+            int sequence = USER_SEQUENCE.incrementAndGet();
+            user.setName("Benchmark User " + sequence);
+            user.setEmail("benchmark" + sequence + "@example.com");
+            user.setPassword("{noop}benchmark");
+            user.setIsVerified(true);
+            user.setRoles(Set.of(userRole()));
+            user = userRepository.save(user);
+
+            for (Product product : sample(catalog, wishlistSize)) {
+                Wishlist wishlist = new Wishlist();
+                wishlist.setUser(user);
+                wishlist.setProduct(product);
+                wishlistRepository.save(wishlist);
+            }
+
+            Address address = new Address();
+            address.setUser(user);
+            address.setFullName(user.getName());
+            address.setCity("Gaza");
+            address.setStreetAddress("Street " + sequence);
+            address.setPhoneNumber("059" + (1000000 + sequence));
+            address.setZipCode("00970");
+            address.setDefault(true);
+            address = addressRepository.save(address);
+
+            for (int i = 0; i < orderCount; i++) {
+                Cart completed = cart(user, catalog, 1 + random.nextInt(5), CartStatus.COMPLETED);
+                orderRepository.save(order(user, address, completed));
+            }
+
+            Cart active = cart(user, catalog, cartSize, CartStatus.ACTIVE);
+            List<Long> cartProductIds = active.getCartItems().stream()
+                    .map(item -> item.getProduct().getId())
+                    .toList();
+            return new SyntheticUser(user.getId(), user.getEmail(), null, active.getId(), cartProductIds);
+        });
+        return syntheticUser.withToken(token(syntheticUser.email()));
+    }
+
+    // Puts size products into the user's current active cart, e.g. again after a checkout.
+    public void fillActiveCart(SyntheticUser user, List<Product> catalog, int size) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Cart cart = cartRepository.findAllByUserIdAndStatus(user.id(), CartStatus.ACTIVE).get(0);
+            addItems(cart, catalog, size);
+            cartRepository.save(cart);
+        });
+    }
+
+    private Role userRole() {
+        return roleRepository.findByName("ROLE_USER")
+                .orElseGet(() -> roleRepository.save(Role.builder().name("ROLE_USER").build()));
+    }
+
+    private Cart cart(User user, List<Product> catalog, int size, CartStatus status) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        cart.setStatus(status);
+        addItems(cart, catalog, size);
+        return cartRepository.save(cart);
+    }
+
+    private void addItems(Cart cart, List<Product> catalog, int size) {
+        BigDecimal total = BigDecimal.ZERO;
+        int quantity = 0;
+        for (Product product : sample(catalog, size)) {
+            CartItem item = new CartItem(cart, product);
+            item.setQuantity(1 + random.nextInt(4));
+            cart.getCartItems().add(item);
+            total = total.add(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            quantity += item.getQuantity();
+        }
+        cart.setTotalPrice(total);
+        cart.setTotalQuantity(quantity);
+    }
+
+    private Order order(User user, Address address, Cart cart) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setAddress(address);
+        order.setCart(cart);
+        order.setTotalPrice(cart.getTotalPrice());
+        List<OrderItem> items = new ArrayList<>();
+        for (CartItem cartItem : cart.getCartItems()) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(cartItem.getProduct());
+            item.setQuantity(cartItem.getQuantity());
+            item.setPrice(cartItem.getPrice());
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        return order;
+    }
+
+    private Product product(int index, Category category) {
+        String name = VARIETIES[random.nextInt(VARIETIES.length)] + " " + FRUITS[index % FRUITS.length] + " " + index;
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Fresh " + name.toLowerCase() + " picked this week, sold by weight.");
+        product.setPrice(Math.round((0.5 + random.nextDouble() * 20) * 100) / 100.0);
+        product.setStockQuantity(10_000 + random.nextInt(10_000));
+        product.setImageUrl("https://cdn.example.com/products/" + index + ".png");
+        product.setOrderCount((long) random.nextInt(5_000));
+        product.setProductWeight(0.25 + random.nextInt(8) * 0.25);
+        product.setCaloriesPer100Grams(20 + random.nextInt(80));
+        product.setExpirationDate(LocalDate.now().plusDays(7 + random.nextInt(60)));
+        product.setTotalRating(Math.round(random.nextDouble() * 50) / 10.0);
+        product.setCategory(category);
+        return product;
+    }
+
+    private List<Product> sample(List<Product> catalog, int size) {
+        List<Product> shuffled = new ArrayList<>(catalog);
+        Collections.shuffle(shuffled, random);
+        return shuffled.subList(0, Math.min(size, shuffled.size()));
+    }
+
+    private String token(String email) {
+        UserDetails principal = org.springframework.security.core.userdetails.User.withUsername(email)
+                .password("{noop}benchmark")
+                .authorities("ROLE_USER")
+                .build();
+        return "Bearer " + jwtTokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    public record SyntheticUser(Long id, String email, String token, Long cartId, List<Long> cartProductIds) {
+
+        SyntheticUser withToken(String token) {
+            return new SyntheticUser(id, email, token, cartId, cartProductIds);
+        }
+    }
+}
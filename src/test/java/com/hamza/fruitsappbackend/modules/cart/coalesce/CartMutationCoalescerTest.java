@@ -0,0 +1,64 @@
+package com.hamza.fruitsappbackend.modules.cart.coalesce;
+
+import com.hamza.fruitsappbackend.benchmark.SyntheticDataGenerator;
+import com.hamza.fruitsappbackend.benchmark.SyntheticDataGenerator.SyntheticUser;
+import com.hamza.fruitsappbackend.modules.cart.exception.CartItemNotFoundException;
+import com.hamza.fruitsappbackend.modules.cart.repository.CartItemRepository;
+import com.hamza.fruitsappbackend.modules.cart.service.CartItemService;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.utils.AuthorizationUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Quantity taps must answer the same whether they are coalesced or not (window 0), on the
+// embedded H2 database used by the benchmarks.
+@SpringBootTest
+@ActiveProfiles("benchmark")
+class CartMutationCoalescerTest {
+
+    @Autowired
+    private ApplicationContext applicationContext;
+    @Autowired
+    private CartItemService cartItemService;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private AuthorizationUtils authorizationUtils;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 50})
+    void increasingAProductNotInTheCartIsRejected(long windowMillis) {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(applicationContext, 14);
+        List<Product> catalog = generator.catalog(4, 60);
+        SyntheticUser user = generator.user(catalog, 0, 2, 0);
+        Long inCart = user.cartProductIds().get(0);
+        Long missing = catalog.stream().map(Product::getId)
+                .filter(id -> !user.cartProductIds().contains(id))
+                .findFirst().orElseThrow();
+        int quantity = cartItemRepository.findByCartIdAndProductId(user.cartId(), inCart).orElseThrow().getQuantity();
+
+        CartMutationCoalescer coalescer = new CartMutationCoalescer(cartItemService, authorizationUtils, meterRegistry,
+                windowMillis, 5000, 1);
+        try {
+            assertThrows(CartItemNotFoundException.class, () -> coalescer.increase(missing, user.token()));
+            assertEquals(quantity + 1, coalescer.increase(inCart, user.token()).getQuantity());
+        } finally {
+            coalescer.shutdown();
+        }
+
+        assertTrue(cartItemRepository.findByCartIdAndProductId(user.cartId(), missing).isEmpty());
+    }
+}
@@ -0,0 +1,310 @@
+package com.hamza.fruitsappbackend.modules.product.stock;
+
+import com.hamza.fruitsappbackend.constant.OrderStatus;
+import com.hamza.fruitsappbackend.modules.cart.exception.InsufficientStockException;
+import com.hamza.fruitsappbackend.modules.order.entity.Order;
+import com.hamza.fruitsappbackend.modules.order.entity.OrderItem;
+import com.hamza.fruitsappbackend.modules.order.service_impl.OrderServiceImpl;
+import com.hamza.fruitsappbackend.modules.product.dto.ProductDTO;
+import com.hamza.fruitsappbackend.modules.product.entity.Category;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.modules.product.event.ProductChangedEvent;
+import com.hamza.fruitsappbackend.modules.product.repository.CategoryRepository;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductStockRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Flash-sale style contention on a handful of products against the embedded H2 database used by
+// the benchmarks: many buyers race for more units than exist, and the stock must end at exactly
+// what was sold, never below zero, in both the SQL and the in-memory ledger mode.
+@SpringBootTest
+@ActiveProfiles("benchmark")
+class StockReservationStressTest {
+
+    private static final int BUYERS = 48;
+    private static final int ATTEMPTS_PER_BUYER = 25;
+
+    @Autowired
+    private StockReservationEngine stockReservationEngine;
+    @Autowired
+    private StockLedger stockLedger;
+    @Autowired
+    private ProductStockRepository productStockRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    private TransactionTemplate transactionTemplate;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        category = new Category();
+        category.setName("Flash sale " + System.nanoTime());
+        category.setDescription("Stress test category");
+        category = categoryRepository.save(category);
+    }
+
+    @Test
+    void conditionalUpdatesNeverOversell() throws Exception {
+        Long hot = product(300);
+        Result result = race(stockReservationEngine, hot, null);
+
+        assertSoldOut(hot, 300, result);
+    }
+
+    @Test
+    void ordersSpanningProductsAreAllOrNothing() throws Exception {
+        Long scarce = product(120);
+        Long plenty = product(100_000);
+        Result result = race(stockReservationEngine, scarce, plenty);
+
+        assertSoldOut(scarce, 120, result);
+        assertEquals(100_000 - result.sold.get(), stock(plenty));
+        assertEquals(result.orders.get(), orderCount(plenty));
+    }
+
+    @Test
+    void ledgerNeverOversellsAndWritesBehind() throws Exception {
+        StockReservationEngine ledgerEngine = new StockReservationEngine(productStockRepository, stockLedger,
+                eventPublisher, meterRegistry, true);
+        Long hot = product(300);
+        Long plenty = product(100_000);
+        Result result = race(ledgerEngine, hot, plenty);
+
+        assertEquals(0, stockLedger.available(hot));
+        stockLedger.flush();
+        assertSoldOut(hot, 300, result);
+        assertEquals(100_000 - result.sold.get(), stock(plenty));
+    }
+
+    @Test
+    void ledgerNeverOversellsWhileStockIsReloaded() throws Exception {
+        StockReservationEngine ledgerEngine = new StockReservationEngine(productStockRepository, stockLedger,
+                eventPublisher, meterRegistry, true);
+        Long hot = product(300);
+        AtomicBoolean racing = new AtomicBoolean(true);
+        Thread reloader = new Thread(() -> {
+            while (racing.get()) {
+                stockEdited(hot);
+                // Inside a transaction like a checkout, so the reload holds its connection before the ledger lock.
+                transactionTemplate.executeWithoutResult(status -> stockLedger.available(hot));
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        reloader.start();
+        Result result;
+        try {
+            result = race(ledgerEngine, hot, null);
+        } finally {
+            racing.set(false);
+            reloader.join();
+        }
+
+        stockLedger.flush();
+        assertSoldOut(hot, 300, result);
+        stockEdited(hot);
+        assertEquals(300 - result.sold.get(), stockLedger.available(hot));
+    }
+
+    @Test
+    void reloadCountsHoldsOfCheckoutsInFlight() {
+        Long productId = product(10);
+        List<StockLedger.Hold> committed = new ArrayList<>();
+        List<StockLedger.Hold> released = new ArrayList<>();
+        stockLedger.reserve(Map.of(productId, 4), committed);
+        stockLedger.reserve(Map.of(productId, 3), released);
+
+        stockEdited(productId);
+        assertEquals(3, stockLedger.available(productId));
+
+        stockLedger.commit(committed);
+        stockLedger.release(released);
+        assertEquals(6, stockLedger.available(productId));
+        stockLedger.flush();
+        stockEdited(productId);
+        assertEquals(6, stock(productId));
+        assertEquals(6, stockLedger.available(productId));
+    }
+
+    @Test
+    void cancellingOrdersDuringCheckoutsKeepsTheirStock() throws Exception {
+        Long hot = product(300);
+        // Loaded before the race, so any write of the entity would carry the initial stock back
+        Order order = new Order();
+        OrderItem item = new OrderItem();
+        item.setProduct(productRepository.findById(hot).orElseThrow());
+        order.setOrderItems(List.of(item, item));
+        AtomicBoolean racing = new AtomicBoolean(true);
+        AtomicInteger cancelled = new AtomicInteger();
+        Thread canceller = new Thread(() -> {
+            while (racing.get() && cancelled.get() < 25) {
+                order.setStatus(OrderStatus.PENDING);
+                orderService.handleOrderStatusChange(order, OrderStatus.CANCELLED);
+                cancelled.incrementAndGet();
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        canceller.start();
+        Result result;
+        try {
+            result = race(stockReservationEngine, hot, null);
+        } finally {
+            racing.set(false);
+            canceller.join();
+        }
+
+        assertTrue(cancelled.get() > 0, "no order was cancelled during the race");
+        assertEquals(300 - result.sold.get(), stock(hot));
+        assertEquals(result.orders.get() - 2L * cancelled.get(), orderCount(hot));
+    }
+
+    @Test
+    void rolledBackCheckoutReturnsStock() {
+        StockReservationEngine ledgerEngine = new StockReservationEngine(productStockRepository, stockLedger,
+                eventPublisher, meterRegistry, true);
+        Long productId = product(10);
+
+        for (StockReservationEngine engine : List.of(stockReservationEngine, ledgerEngine)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                engine.reserve(Map.of(productId, 4));
+                status.setRollbackOnly();
+            });
+        }
+        stockLedger.flush();
+
+        assertEquals(10, stock(productId));
+        assertEquals(10, stockLedger.available(productId));
+        assertThrows(InsufficientStockException.class, () -> transactionTemplate.executeWithoutResult(
+                status -> stockReservationEngine.reserve(Map.of(productId, 11))));
+    }
+
+    // Every buyer asks for 1-3 units of the hot product (plus one of the second product, if any)
+    // until it has made its attempts; refused checkouts roll back like a failed order would.
+    private Result race(StockReservationEngine engine, Long hot, Long second) throws Exception {
+        Result result = new Result();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(BUYERS);
+        try {
+            List<Future<?>> buyers = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_BUYER; attempt++) {
+                        int quantity = 1 + ThreadLocalRandom.current().nextInt(3);
+                        Map<Long, Integer> quantities = second == null
+                                ? Map.of(hot, quantity)
+                                : Map.of(hot, quantity, second, quantity);
+                        try {
+                            transactionTemplate.executeWithoutResult(status -> engine.reserve(quantities));
+                            result.sold.addAndGet(quantity);
+                            result.orders.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            result.refused.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    private void assertSoldOut(Long productId, int initialStock, Result result) {
+        int remaining = stock(productId);
+        assertTrue(remaining >= 0, "stock went negative: " + remaining);
+        assertEquals(initialStock - result.sold.get(), remaining);
+        assertEquals(result.orders.get(), orderCount(productId));
+        assertTrue(result.refused.get() > 0, "demand should exceed stock");
+        // Requests are at most 3 units, so anything left must be less than that.
+        assertTrue(remaining < 3, "stock left unsold: " + remaining);
+    }
+
+    private Long product(int stock) {
+        Product product = new Product();
+        product.setName("Flash sale product " + System.nanoTime());
+        product.setDescription("Stress test product");
+        product.setPrice(1.0);
+        product.setStockQuantity(stock);
+        product.setProductWeight(1.0);
+        product.setCaloriesPer100Grams(50);
+        product.setExpirationDate(LocalDate.now().plusDays(30));
+        product.setCategory(category);
+        return productRepository.save(product).getId();
+    }
+
+    // What the product API publishes after an admin edits the stock: the ledger drops its count.
+    private void stockEdited(Long productId) {
+        ProductDTO snapshot = new ProductDTO();
+        snapshot.setId(productId);
+        stockLedger.onProductChanged(new ProductChangedEvent(ProductChangedEvent.Type.UPDATED, productId, snapshot,
+                Set.of("stockQuantity")));
+    }
+
+    private int stock(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private long orderCount(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT order_count FROM products WHERE id = ?", Long.class, productId);
+    }
+
+    private static final class Result {
+        private final AtomicInteger sold = new AtomicInteger();
+        private final AtomicInteger orders = new AtomicInteger();
+        private final AtomicInteger refused = new AtomicInteger();
+    }
+}
@@ -0,0 +1,125 @@
+package com.hamza.fruitsappbackend.modules.user.mail;
+
+import com.hamza.fruitsappbackend.constant.MailStatus;
+import com.hamza.fruitsappbackend.modules.user.dto.MailBody;
+import com.hamza.fruitsappbackend.modules.user.entity.OutboxMail;
+import com.hamza.fruitsappbackend.modules.user.entity.User;
+import com.hamza.fruitsappbackend.modules.user.repository.ForgotPasswordRepository;
+import com.hamza.fruitsappbackend.modules.user.repository.OutboxMailRepository;
+import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
+import com.hamza.fruitsappbackend.modules.user.service.EmailService;
+import com.hamza.fruitsappbackend.modules.user.service.ForgotPasswordService;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Outbox delivery against GreenMail standing in for the SMTP server, on the embedded H2 database
+// used by the benchmarks.
+@SpringBootTest(properties = {
+        "spring.mail.port=3025",
+        "app.mail.outbox.backoff-initial-ms=200",
+        "app.mail.outbox.poll-interval-ms=100"
+})
+@ActiveProfiles("benchmark")
+class MailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("benchmark", "benchmark"));
+
+    @Autowired
+    private ForgotPasswordService forgotPasswordService;
+    @Autowired
+    private EmailService emailService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ForgotPasswordRepository forgotPasswordRepository;
+    @Autowired
+    private OutboxMailRepository outboxMailRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void resetEmailIsQueuedWithTheOtpAndDelivered() throws Exception {
+        User user = createUser();
+
+        forgotPasswordService.sendVerificationEmail(user.getEmail());
+
+        assertTrue(forgotPasswordRepository.findByUser(user).isPresent());
+        assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+        MimeMessage received = greenMail.getReceivedMessages()[0];
+        assertEquals("Reset Password", received.getSubject());
+        assertEquals(user.getEmail(), received.getAllRecipients()[0].toString());
+
+        await().until(() -> status(user.getEmail()) == MailStatus.SENT);
+    }
+
+    @Test
+    void rolledBackRequestSendsNothing() {
+        String recipient = uniqueEmail();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            emailService.sendEmail(new MailBody(recipient, "Rolled back", "<p>never sent</p>"));
+            status.setRollbackOnly();
+        });
+
+        assertTrue(mails(recipient).isEmpty());
+        assertFalse(greenMail.waitForIncomingEmail(500, 1));
+    }
+
+    @Test
+    void failedDeliveryIsRetriedUntilTheServerIsBack() {
+        String recipient = uniqueEmail();
+        greenMail.stop();
+
+        emailService.sendEmail(new MailBody(recipient, "Retried", "<p>second time lucky</p>"));
+
+        await().until(() -> mails(recipient).get(0).getAttempts() >= 1);
+        OutboxMail failedOnce = mails(recipient).get(0);
+        assertTrue(failedOnce.getLastError() != null);
+        assertTrue(failedOnce.getStatus() != MailStatus.SENT);
+
+        greenMail.start();
+        await().until(() -> status(recipient) == MailStatus.SENT);
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    private MailStatus status(String recipient) {
+        return mails(recipient).get(0).getStatus();
+    }
+
+    private List<OutboxMail> mails(String recipient) {
+        return outboxMailRepository.findAll().stream()
+                .filter(mail -> mail.getRecipient().equals(recipient))
+                .toList();
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setName("Outbox Test");
+        user.setEmail(uniqueEmail());
+        user.setPassword("secret");
+        return userRepository.save(user);
+    }
+
+    private static String uniqueEmail() {
+        return UUID.randomUUID() + "@example.com";
+    }
+}
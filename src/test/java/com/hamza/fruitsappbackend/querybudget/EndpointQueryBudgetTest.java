@@ -0,0 +1,160 @@
+package com.hamza.fruitsappbackend.querybudget;
+
+import com.hamza.fruitsappbackend.benchmark.SyntheticDataGenerator;
+import com.hamza.fruitsappbackend.benchmark.SyntheticDataGenerator.SyntheticUser;
+import com.hamza.fruitsappbackend.modules.product.entity.Product;
+import com.hamza.fruitsappbackend.modules.product.repository.ProductRepository;
+import com.hamza.fruitsappbackend.modules.review.entity.Review;
+import com.hamza.fruitsappbackend.modules.review.repository.ReviewRepository;
+import com.hamza.fruitsappbackend.modules.user.repository.UserRepository;
+import com.hamza.fruitsappbackend.modules.wishlist.dto.WishlistResponse;
+import com.hamza.fruitsappbackend.modules.wishlist.service.WishlistService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Budgets for the main read endpoints against the embedded H2 database, a little above what they
+// use today so a regression fails the build. The data is sized so an N+1 shows up as a clear
+// overrun: 20 wishlist items, 10 cart items, 5 past orders and 15 reviews. Every endpoint is
+// requested once with other data before the first measurement, so class loading and first-use
+// initialisation stay out of the numbers, while the measured user, products and reviews are
+// never cached beforehand.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("benchmark")
+@Import(QueryMeter.class)
+@ExtendWith(QueryBudgetExtension.class)
+class EndpointQueryBudgetTest {
+
+    private static final int WISHLIST_SIZE = 20;
+    private static final int CART_SIZE = 10;
+    private static final int ORDER_COUNT = 5;
+    private static final int REVIEW_COUNT = 15;
+
+    private static List<Product> catalog;
+    private static Long warmUpProductId;
+    private static Long reviewedProductId;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ApplicationContext applicationContext;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private WishlistService wishlistService;
+
+    private SyntheticUser user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SyntheticDataGenerator generator = new SyntheticDataGenerator(applicationContext, 25);
+        if (catalog == null) {
+            catalog = generator.catalog(4, 60);
+            warmUpProductId = catalog.get(0).getId();
+            reviewedProductId = catalog.get(1).getId();
+            review(generator, warmUpProductId, 3);
+            review(generator, reviewedProductId, REVIEW_COUNT);
+            warmUp(generator.user(catalog, WISHLIST_SIZE, CART_SIZE, ORDER_COUNT));
+        }
+        user = generator.user(catalog, WISHLIST_SIZE, CART_SIZE, ORDER_COUNT);
+    }
+
+    @Test
+    @QueryBudget(statements = 9, rows = 60, allocatedBytes = 1_200_000)
+    void productPage() throws Exception {
+        request("/api/v1/products/all?itemsPerPage=20", user);
+    }
+
+    @Test
+    @QueryBudget(statements = 8, rows = 40, allocatedBytes = 1_000_000)
+    void productById() throws Exception {
+        request("/api/v1/products/" + catalog.get(2).getId(), user);
+    }
+
+    @Test
+    @QueryBudget(statements = 6, rows = 15, allocatedBytes = 900_000)
+    void cart() throws Exception {
+        request("/api/cart/get", user);
+    }
+
+    @Test
+    @QueryBudget(statements = 8, rows = 60, allocatedBytes = 1_200_000)
+    void wishlist() throws Exception {
+        request("/api/wishlist/user", user);
+    }
+
+    // Authors come with the reviews, so the statement count must not grow with the number of reviews
+    @Test
+    @QueryBudget(statements = 6, rows = 40, allocatedBytes = 1_100_000)
+    void productReviews() throws Exception {
+        request("/api/v1/reviews/product/" + reviewedProductId, user);
+    }
+
+    @Test
+    @QueryBudget(statements = 7, rows = 30, allocatedBytes = 1_000_000)
+    void productReviewFeed() throws Exception {
+        request("/api/v1/reviews/product/" + reviewedProductId + "?cursor=&itemsPerPage=10", user);
+    }
+
+    @Test
+    @QueryBudget(statements = 6, rows = 10, allocatedBytes = 600_000)
+    void orders() throws Exception {
+        request("/api/v1/orders/user", user);
+    }
+
+    // The service on its own, without the web layer
+    @Test
+    @QueryBudget(statements = 8, rows = 60, allocatedBytes = 800_000)
+    void wishlistService() {
+        WishlistResponse response = wishlistService.getWishlistByUserId(user.token());
+        assertEquals(WISHLIST_SIZE, response.getItems().size());
+    }
+
+    private void warmUp(SyntheticUser warmUpUser) throws Exception {
+        request("/api/v1/products/all?itemsPerPage=5", warmUpUser);
+        request("/api/v1/products/" + warmUpProductId, warmUpUser);
+        request("/api/cart/get", warmUpUser);
+        request("/api/wishlist/user", warmUpUser);
+        request("/api/v1/reviews/product/" + warmUpProductId, warmUpUser);
+        request("/api/v1/reviews/product/" + warmUpProductId + "?cursor=", warmUpUser);
+        request("/api/v1/orders/user", warmUpUser);
+        wishlistService.getWishlistByUserId(warmUpUser.token());
+    }
+
+    private void request(String uri, SyntheticUser as) throws Exception {
+        mockMvc.perform(get(uri).header(HttpHeaders.AUTHORIZATION, as.token()))
+                .andExpect(status().isOk());
+    }
+
+    private void review(SyntheticDataGenerator generator, Long productId, int count) {
+        Product product = productRepository.findById(productId).orElseThrow();
+        for (int i = 0; i < count; i++) {
+            SyntheticUser reviewer = generator.user(catalog, 0, 0, 0);
+            Review review = new Review();
+            review.setUser(userRepository.getReferenceById(reviewer.id()));
+            review.setProduct(product);
+            review.setRating(1 + i % 5);
+            review.setComment("Review " + i + " of " + product.getName());
+            reviewRepository.save(review);
+        }
+    }
+}
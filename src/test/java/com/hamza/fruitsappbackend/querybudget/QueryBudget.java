@@ -0,0 +1,22 @@
+package com.hamza.fruitsappbackend.querybudget;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Upper bounds for the body of one test method (not its @BeforeEach), checked by
+// QueryBudgetExtension. Only work on the test thread counts; a negative bound is not checked.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    // JDBC statement executions, a batch counting once
+    int statements() default -1;
+
+    // Rows read from result sets
+    long rows() default -1;
+
+    // Heap allocated by the test thread
+    long allocatedBytes() default -1;
+}
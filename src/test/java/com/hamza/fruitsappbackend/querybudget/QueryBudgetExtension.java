@@ -0,0 +1,52 @@
+package com.hamza.fruitsappbackend.querybudget;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Measures each @QueryBudget test method and fails it when any bound is exceeded. The usage of
+// every measured test is published as a report entry, which is where new budgets come from.
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (context.getRequiredTestMethod().isAnnotationPresent(QueryBudget.class)) {
+            assertTrue(QueryMeter.isInstalled(), "@QueryBudget needs QueryMeter imported into the test context");
+            QueryMeter.start();
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+        QueryMeter.Usage usage = QueryMeter.stop();
+        if (budget == null || usage == null) {
+            return;
+        }
+        context.publishReportEntry("queryBudget", usage.toString());
+        // A test that already failed keeps its own failure
+        if (context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        List<String> exceeded = new ArrayList<>();
+        if (budget.statements() >= 0 && usage.statements() > budget.statements()) {
+            exceeded.add(usage.statements() + " statements, budget " + budget.statements());
+        }
+        if (budget.rows() >= 0 && usage.rows() > budget.rows()) {
+            exceeded.add(usage.rows() + " rows, budget " + budget.rows());
+        }
+        if (budget.allocatedBytes() >= 0 && usage.allocatedBytes() > budget.allocatedBytes()) {
+            exceeded.add(usage.allocatedBytes() + " bytes allocated, budget " + budget.allocatedBytes());
+        }
+        if (!exceeded.isEmpty()) {
+            fail(context.getDisplayName() + " went over its query budget: " + String.join("; ", exceeded));
+        }
+    }
+}
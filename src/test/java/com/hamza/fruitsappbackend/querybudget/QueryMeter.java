@@ -0,0 +1,139 @@
+package com.hamza.fruitsappbackend.querybudget;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Set;
+
+// Wraps the application DataSource and counts, for the thread that started a measurement, the
+// statements it executes and the rows it reads back. Import it into the test context
+// (@Import(QueryMeter.class)); other threads and unmeasured code are not counted.
+public class QueryMeter implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTIONS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> RESULT_SETS = Set.of("executeQuery", "getResultSet");
+
+    private static final ThreadLocal<Usage> CURRENT = new ThreadLocal<>();
+
+    private static volatile boolean installed;
+
+    static boolean isInstalled() {
+        return installed;
+    }
+
+    static void start() {
+        CURRENT.set(new Usage(allocatedBytes()));
+    }
+
+    static Usage stop() {
+        Usage usage = CURRENT.get();
+        CURRENT.remove();
+        if (usage != null && usage.allocatedBytes >= 0) {
+            usage.allocatedBytes = allocatedBytes() - usage.allocatedBytes;
+        }
+        return usage;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            installed = true;
+            return proxy(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    // -1 where the JVM does not track per-thread allocation
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static Object proxy(Class<?> type, Object target) {
+        return Proxy.newProxyInstance(QueryMeter.class.getClassLoader(), new Class<?>[]{type}, new Metering(target));
+    }
+
+    static final class Usage {
+        private int statements;
+        private long rows;
+        private long allocatedBytes;
+
+        private Usage(long allocatedBytes) {
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        int statements() {
+            return statements;
+        }
+
+        long rows() {
+            return rows;
+        }
+
+        // -1 when unknown
+        long allocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return statements + " statements, " + rows + " rows, " + allocatedBytes + " bytes allocated";
+        }
+    }
+
+    private record Metering(Object target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Usage usage = CURRENT.get();
+            if (usage != null && EXECUTIONS.contains(method.getName())) {
+                usage.statements++;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                return result;
+            }
+            if (method.getName().equals("next") && target instanceof ResultSet) {
+                if (usage != null && Boolean.TRUE.equals(result)) {
+                    usage.rows++;
+                }
+                return result;
+            }
+            if (result instanceof Connection) {
+                return proxy(Connection.class, result);
+            }
+            if (result instanceof CallableStatement) {
+                return proxy(CallableStatement.class, result);
+            }
+            if (result instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, result);
+            }
+            if (result instanceof Statement) {
+                return proxy(Statement.class, result);
+            }
+            if (result instanceof ResultSet && RESULT_SETS.contains(method.getName())) {
+                return proxy(ResultSet.class, result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+-- carts.active_cart_flag is a generated column in the MySQL schema (1 for the ACTIVE cart, NULL
+-- otherwise) backing the one-active-cart-per-user unique key. Hibernate cannot create it because
+-- the entity only maps it as @Transient, so the table is created here before the schema update.
+CREATE TABLE IF NOT EXISTS carts (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    total_price NUMERIC(10, 2),
+    total_quantity INTEGER,
+    user_id BIGINT NOT NULL,
+    active_cart_flag INTEGER GENERATED ALWAYS AS (CASE WHEN status = 'ACTIVE' THEN 1 END),
+    CONSTRAINT unique_active_cart_per_user UNIQUE (user_id, active_cart_flag)
+);